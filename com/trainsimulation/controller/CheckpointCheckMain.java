@@ -0,0 +1,165 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.StateDigest;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.time.format.DateTimeParseException;
+
+// Checks that a simulation resumed from a checkpoint carries on as if it had never been stopped
+// The same seeded scenario is run in the deterministic mode up to the checkpoint time, where its state is saved; it is
+// then run again without stopping until the end time, and resumed from the checkpoint in a fresh simulator until the
+// end time; the digests of the trains and the tracks of both runs are compared tick by tick from the checkpoint time
+// The time taken to save and to restore the checkpoint is shown, along with the time where the two runs first differ
+// (-1 if they never do); the program ends with an error if they differ at all
+public class CheckpointCheckMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: CheckpointCheckMain <start time ([day+]HH:mm[:ss])>"
+            + " <checkpoint time ([day+]HH:mm[:ss])> <end time ([day+]HH:mm[:ss])> <number of trains> <seed>"
+            + " <log directory> [passenger list directory]";
+
+    public static void main(String[] args) {
+        if (args.length < 6 || args.length > 7) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime checkpointTime;
+        final SimulationTime endTime;
+        final int numberOfTrains;
+        final long seed;
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+            checkpointTime = SimulationTime.parse(args[1]);
+            endTime = SimulationTime.parse(args[2]);
+            numberOfTrains = Integer.parseInt(args[3]);
+            seed = Long.parseLong(args[4]);
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final String logDirectory = args[5];
+        final String passengerListDirectory = args.length > 6 ? args[6] : null;
+
+        final File checkpointFile = new File(logDirectory, "checkpoint.bin");
+
+        new File(logDirectory).mkdirs();
+
+        try {
+            // Connect to the database once for all runs
+            DatabaseInterface databaseInterface = new DatabaseInterface();
+
+            // Run the simulation up to the tick before the checkpoint time, so the checkpoint time is the next tick
+            // to be simulated, then save its state
+            Simulator checkpointSimulator = new Simulator(databaseInterface);
+
+            checkpointSimulator.setup(
+                    new SimulationTime(startTime),
+                    new SimulationTime(checkpointTime.getTick() - 1),
+                    createScenario(numberOfTrains, passengerListDirectory, logDirectory, "before_checkpoint", seed)
+            );
+
+            checkpointSimulator.runToCompletion();
+
+            long startNanos = System.nanoTime();
+
+            checkpointSimulator.saveCheckpoint(checkpointFile);
+
+            final long saveMillis = (System.nanoTime() - startNanos) / 1000000;
+
+            // Run the simulation again without stopping, reusing the passenger lists already read
+            Simulator uninterruptedSimulator = new Simulator(databaseInterface);
+
+            uninterruptedSimulator.shareTripRecords(checkpointSimulator);
+            uninterruptedSimulator.setup(
+                    new SimulationTime(startTime),
+                    new SimulationTime(endTime),
+                    createScenario(numberOfTrains, passengerListDirectory, logDirectory, "uninterrupted", seed)
+            );
+            uninterruptedSimulator.setStateDigest(new StateDigest(checkpointTime.getTick(), true));
+
+            uninterruptedSimulator.runToCompletion();
+
+            final long uninterruptedDigest = uninterruptedSimulator.getStateDigest().getDigest();
+
+            uninterruptedSimulator.close();
+
+            // Then resume it from the checkpoint in a fresh simulator
+            Simulator resumedSimulator = new Simulator(databaseInterface);
+
+            resumedSimulator.shareTripRecords(checkpointSimulator);
+            resumedSimulator.setup(
+                    new SimulationTime(checkpointTime),
+                    new SimulationTime(endTime),
+                    createScenario(numberOfTrains, passengerListDirectory, logDirectory, "resumed", seed)
+            );
+
+            startNanos = System.nanoTime();
+
+            resumedSimulator.restoreCheckpoint(checkpointFile);
+
+            final long restoreMillis = (System.nanoTime() - startNanos) / 1000000;
+
+            resumedSimulator.setStateDigest(new StateDigest(checkpointTime.getTick(), true));
+
+            resumedSimulator.runToCompletion();
+
+            final long resumedDigest = resumedSimulator.getStateDigest().getDigest();
+
+            resumedSimulator.close();
+            checkpointSimulator.close();
+
+            final long firstDivergentTick = StateDigest.findFirstDivergence(
+                    new File(logDirectory + File.separator + "uninterrupted", "state_digest.csv"),
+                    new File(logDirectory + File.separator + "resumed", "state_digest.csv")
+            );
+
+            System.out.println("CHECKPOINT_BYTES,SAVE_MS,RESTORE_MS,UNINTERRUPTED_DIGEST,RESUMED_DIGEST,"
+                    + "FIRST_DIVERGENT_TIME");
+            System.out.println(
+                    checkpointFile.length() + ","
+                            + saveMillis + ","
+                            + restoreMillis + ","
+                            + Long.toHexString(uninterruptedDigest) + ","
+                            + Long.toHexString(resumedDigest) + ","
+                            + (firstDivergentTick >= 0 ? new SimulationTime(firstDivergentTick) : "-1")
+            );
+
+            System.exit(firstDivergentTick >= 0 ? 1 : 0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+
+    // Create the seeded, deterministic scenario of a run, logged into its own directory
+    private static Scenario createScenario(
+            int numberOfTrains,
+            String passengerListDirectory,
+            String logDirectory,
+            String runName,
+            long seed
+    ) {
+        Scenario scenario = new Scenario(
+                numberOfTrains,
+                passengerListDirectory,
+                logDirectory + File.separator + runName
+        );
+
+        scenario.setSeed(seed);
+        scenario.setDeterministic(true);
+
+        return scenario;
+    }
+}
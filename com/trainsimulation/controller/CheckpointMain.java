@@ -0,0 +1,73 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.time.format.DateTimeParseException;
+
+// Runs the simulation in batch mode, without any user interface, from the starting time up to the checkpoint time,
+// then saves the state of the simulation into the checkpoint file
+// The simulation may then be resumed from the checkpoint through the headless mode
+public class CheckpointMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: CheckpointMain <start time ([day+]HH:mm[:ss])>"
+            + " <checkpoint time ([day+]HH:mm[:ss])> <number of trains> <checkpoint file> [passenger list directory]";
+
+    public static void main(String[] args) {
+        if (args.length < 4 || args.length > 5) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime checkpointTime;
+        final int numberOfTrains;
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+
+            // The simulation stops right after the tick before the checkpoint time, so the checkpoint time is the
+            // next tick to be simulated
+            checkpointTime = new SimulationTime(SimulationTime.parse(args[1]).getTick() - 1);
+
+            numberOfTrains = Integer.parseInt(args[2]);
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final File checkpointFile = new File(args[3]);
+        final String passengerListDirectory = args.length > 4 ? args[4] : null;
+
+        try {
+            // Set the simulator up, with the logs up to the checkpoint saved beside the checkpoint file
+            Simulator simulator = new Simulator();
+
+            simulator.setup(
+                    startTime,
+                    checkpointTime,
+                    new Scenario(numberOfTrains, passengerListDirectory, checkpointFile.getPath() + "_logs")
+            );
+
+            simulator.runToCompletion();
+
+            long startNanos = System.nanoTime();
+
+            simulator.saveCheckpoint(checkpointFile);
+
+            System.out.println("Checkpoint saved in " + (System.nanoTime() - startNanos) / 1000000 + " ms");
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.StateDigest;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the same seeded scenario in the deterministic mode once for each of the given numbers of worker threads, then
+// compares the digests of the state at each tick of each run against those of the first run
+// For each run, the time where its state first differs from that of the first run is shown (-1 if it never does)
+public class DeterminismMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: DeterminismMain <start time ([day+]HH:mm[:ss])>"
+            + " <end time ([day+]HH:mm[:ss])> <number of trains> <seed> <log directory>"
+            + " <numbers of worker threads (comma-separated)> [passenger list directory]";
+
+    public static void main(String[] args) {
+        if (args.length < 6 || args.length > 7) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime endTime;
+        final int numberOfTrains;
+        final long seed;
+        final List<Integer> workerThreadCounts = new ArrayList<>();
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+            endTime = SimulationTime.parse(args[1]);
+            numberOfTrains = Integer.parseInt(args[2]);
+            seed = Long.parseLong(args[3]);
+
+            for (String workerThreadCount : args[5].split(",")) {
+                workerThreadCounts.add(Integer.parseInt(workerThreadCount.trim()));
+            }
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final String logDirectory = args[4];
+        final String passengerListDirectory = args.length > 6 ? args[6] : null;
+
+        try {
+            // Connect to the database once for all runs
+            DatabaseInterface databaseInterface = new DatabaseInterface();
+
+            // The passenger lists are read by the first run, then reused by the rest
+            Simulator firstSimulator = null;
+
+            List<File> digestFiles = new ArrayList<>();
+            List<Long> finalDigests = new ArrayList<>();
+
+            for (int workerThreadCount : workerThreadCounts) {
+                String runLogDirectory = logDirectory + File.separator + "threads_" + workerThreadCount;
+
+                Scenario scenario = new Scenario(numberOfTrains, passengerListDirectory, runLogDirectory);
+                scenario.setSeed(seed);
+                scenario.setWorkerThreads(workerThreadCount);
+                scenario.setDeterministic(true);
+                scenario.setStateDigesting(true);
+
+                Simulator simulator = new Simulator(databaseInterface);
+
+                if (firstSimulator != null) {
+                    simulator.shareTripRecords(firstSimulator);
+                }
+
+                simulator.setup(new SimulationTime(startTime), new SimulationTime(endTime), scenario);
+                simulator.runToCompletion();
+
+                digestFiles.add(new File(runLogDirectory, "state_digest.csv"));
+                finalDigests.add(simulator.getStateDigest().getDigest());
+
+                if (firstSimulator != null) {
+                    simulator.close();
+                } else {
+                    firstSimulator = simulator;
+                }
+            }
+
+            if (firstSimulator != null) {
+                firstSimulator.close();
+            }
+
+            System.out.println("WORKER_THREADS,FINAL_DIGEST,FIRST_DIVERGENT_TIME");
+
+            for (int index = 0; index < workerThreadCounts.size(); index++) {
+                final long firstDivergentTick = StateDigest.findFirstDivergence(
+                        digestFiles.get(0),
+                        digestFiles.get(index)
+                );
+
+                System.out.println(
+                        workerThreadCounts.get(index) + ","
+                                + Long.toHexString(finalDigests.get(index)) + ","
+                                + (firstDivergentTick >= 0 ? new SimulationTime(firstDivergentTick) : "-1")
+                );
+            }
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.simulator.ScenarioFork;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the simulation in batch mode, without any user interface, from the starting time up to the fork time, then
+// continues it in a separate branch for each of the given interventions until the ending time
+// Each intervention is one of "none", "headway=<headway distance>", or "pull=<train system>:<train identifier>"
+// The results of all branches are saved in a single table in the output directory
+public class ForkMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: ForkMain <start time ([day+]HH:mm[:ss])>"
+            + " <fork time ([day+]HH:mm[:ss])> <end time ([day+]HH:mm[:ss])> <number of trains> <output directory>"
+            + " <intervention>...";
+
+    public static void main(String[] args) {
+        if (args.length < 6) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime forkTime;
+        final SimulationTime endTime;
+        final int numberOfTrains;
+        final List<ScenarioFork.Intervention> interventions = new ArrayList<>();
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+
+            // The simulation stops right after the tick before the fork time, so the fork time is the next tick to be
+            // simulated
+            forkTime = new SimulationTime(SimulationTime.parse(args[1]).getTick() - 1);
+
+            endTime = SimulationTime.parse(args[2]);
+            numberOfTrains = Integer.parseInt(args[3]);
+
+            for (int index = 5; index < args.length; index++) {
+                interventions.add(parseIntervention(args[index]));
+            }
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final String outputDirectory = args[4];
+
+        try {
+            // Run the simulation up to the fork time
+            Simulator simulator = new Simulator();
+
+            simulator.setup(
+                    startTime,
+                    forkTime,
+                    new Scenario(numberOfTrains, null, outputDirectory + File.separator + "before_fork")
+            );
+
+            simulator.runToCompletion();
+
+            // Then continue it in each branch
+            ScenarioFork scenarioFork = new ScenarioFork(simulator);
+
+            scenarioFork.run(
+                    endTime,
+                    interventions,
+                    Math.max(1, Math.min(interventions.size(), Simulator.NUM_CPUS)),
+                    outputDirectory
+            );
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+
+    // Parse an intervention from its textual form
+    private static ScenarioFork.Intervention parseIntervention(String intervention) {
+        if (intervention.equals("none")) {
+            return null;
+        } else if (intervention.startsWith("headway=")) {
+            return new ScenarioFork.ChangeHeadway(Integer.parseInt(intervention.substring("headway=".length())));
+        } else if (intervention.startsWith("pull=")) {
+            String[] components = intervention.substring("pull=".length()).split(":");
+
+            if (components.length != 2) {
+                throw new IllegalArgumentException("Invalid intervention: " + intervention);
+            }
+
+            return new ScenarioFork.PullOutTrain(components[0], Short.parseShort(components[1]));
+        } else {
+            throw new IllegalArgumentException("Invalid intervention: " + intervention);
+        }
+    }
+}
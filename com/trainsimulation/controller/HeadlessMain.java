@@ -0,0 +1,77 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.time.format.DateTimeParseException;
+
+// Runs the simulation in batch mode, without any user interface
+// The simulation is run as fast as possible from the starting time to the ending time, after which the logs are saved
+// and the program exits, along with the time taken by each phase of the ticks
+// If a checkpoint file is given, the simulation resumes from the state saved in it instead of from the starting time
+public class HeadlessMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: HeadlessMain <start time ([day+]HH:mm[:ss])>"
+            + " <end time ([day+]HH:mm[:ss])> <number of trains> [passenger list directory] [log directory]"
+            + " [checkpoint file]";
+
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 6) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime endTime;
+        final int numberOfTrains;
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+            endTime = SimulationTime.parse(args[1]);
+            numberOfTrains = Integer.parseInt(args[2]);
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final String passengerListDirectory = args.length > 3 ? args[3] : null;
+        final String logDirectory = args.length > 4 ? args[4] : null;
+        final String checkpointFile = args.length > 5 ? args[5] : null;
+
+        try {
+            // Set the simulator up
+            Simulator simulator = new Simulator();
+
+            Scenario scenario = new Scenario(numberOfTrains, passengerListDirectory, logDirectory);
+
+            // Report the time taken by each phase of the ticks once the run is done
+            scenario.setTickProfiling(true);
+
+            simulator.setup(startTime, endTime, scenario);
+
+            // Resume from the checkpoint, if any
+            if (checkpointFile != null) {
+                long startNanos = System.nanoTime();
+
+                simulator.restoreCheckpoint(new File(checkpointFile));
+
+                System.out.println("Checkpoint restored in " + (System.nanoTime() - startNanos) / 1000000 + " ms");
+            }
+
+            // Run the simulation until it has reached its ending time and its logs have been saved
+            simulator.runToCompletion();
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+}
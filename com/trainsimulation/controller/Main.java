@@ -42,11 +42,22 @@ public class Main extends Application {
                     false);
 
             Main.mainScreenController = mainController;
+
+            // Have the interface observe the simulator
+            Main.simulator.setSimulationObserver(mainController);
         } catch (Throwable throwable) {
             throwable.printStackTrace();
         }
     }
 
+    // Stop every thread of the simulator once the interface has been closed
+    @Override
+    public void stop() {
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
     // Initializes the simulator
     private void initializeSimulator() throws Throwable {
         simulator = new Simulator();
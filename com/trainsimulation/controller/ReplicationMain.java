@@ -0,0 +1,72 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.simulator.ReplicationRunner;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.time.format.DateTimeParseException;
+
+// Runs several replications of the same scenario in batch mode, without any user interface
+// The results of each replication, as well as the summary of all replications, are saved in the output directory
+public class ReplicationMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: ReplicationMain <start time ([day+]HH:mm[:ss])>"
+            + " <end time ([day+]HH:mm[:ss])> <number of trains> <replications> <output directory> [base seed]"
+            + " [parallelism] [passenger list directory]";
+
+    public static void main(String[] args) {
+        if (args.length < 5 || args.length > 8) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime endTime;
+        final int numberOfTrains;
+        final int replications;
+        final long baseSeed;
+        final int parallelism;
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+            endTime = SimulationTime.parse(args[1]);
+            numberOfTrains = Integer.parseInt(args[2]);
+            replications = Integer.parseInt(args[3]);
+            baseSeed = args.length > 5 ? Long.parseLong(args[5]) : 0L;
+            parallelism = args.length > 6 ? Integer.parseInt(args[6]) : Math.min(replications, Simulator.NUM_CPUS);
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final String outputDirectory = args[4];
+        final String passengerListDirectory = args.length > 7 ? args[7] : null;
+
+        try {
+            Scenario scenario = new Scenario(numberOfTrains, passengerListDirectory, null);
+
+            ReplicationRunner replicationRunner = new ReplicationRunner(
+                    startTime,
+                    endTime,
+                    scenario,
+                    replications,
+                    baseSeed,
+                    Math.max(1, parallelism),
+                    outputDirectory
+            );
+
+            replicationRunner.run();
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+}
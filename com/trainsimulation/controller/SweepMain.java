@@ -0,0 +1,112 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.simulator.ParameterSweep;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs a parameter sweep in batch mode, without any user interface
+// Each list of parameter values is comma-separated, and every combination of the given values is run
+// The results of all scenarios are saved in a single table in the output directory
+public class SweepMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: SweepMain <start time ([day+]HH:mm[:ss])>"
+            + " <end time ([day+]HH:mm[:ss])> <output directory> <headway distances> <numbers of trains>"
+            + " <dwell time slopes>"
+            + " <dwell time intercepts> <end waiting times> [parallelism] [seed] [passenger list directory]";
+
+    public static void main(String[] args) {
+        if (args.length < 8 || args.length > 11) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime endTime;
+        final List<Integer> headwayDistances;
+        final List<Integer> numbersOfTrains;
+        final List<Double> dwellTimeSlopes;
+        final List<Double> dwellTimeIntercepts;
+        final List<Integer> endWaitingTimes;
+        final int parallelism;
+        final Long seed;
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+            endTime = SimulationTime.parse(args[1]);
+            headwayDistances = parseIntegers(args[3]);
+            numbersOfTrains = parseIntegers(args[4]);
+            dwellTimeSlopes = parseDoubles(args[5]);
+            dwellTimeIntercepts = parseDoubles(args[6]);
+            endWaitingTimes = parseIntegers(args[7]);
+            parallelism = args.length > 8 ? Integer.parseInt(args[8]) : Simulator.NUM_CPUS;
+            seed = args.length > 9 ? Long.valueOf(args[9]) : null;
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final String outputDirectory = args[2];
+        final String passengerListDirectory = args.length > 10 ? args[10] : null;
+
+        try {
+            Scenario baseScenario = new Scenario(0, passengerListDirectory, null);
+            baseScenario.setSeed(seed);
+
+            List<Scenario> scenarios = ParameterSweep.grid(
+                    baseScenario,
+                    headwayDistances,
+                    numbersOfTrains,
+                    dwellTimeSlopes,
+                    dwellTimeIntercepts,
+                    endWaitingTimes
+            );
+
+            ParameterSweep parameterSweep = new ParameterSweep(
+                    startTime,
+                    endTime,
+                    scenarios,
+                    Math.max(1, Math.min(parallelism, scenarios.size())),
+                    outputDirectory
+            );
+
+            parameterSweep.run();
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+
+    // Parse a comma-separated list of integers
+    private static List<Integer> parseIntegers(String values) {
+        List<Integer> integers = new ArrayList<>();
+
+        for (String value : values.split(",")) {
+            integers.add(Integer.parseInt(value.trim()));
+        }
+
+        return integers;
+    }
+
+    // Parse a comma-separated list of decimal numbers
+    private static List<Double> parseDoubles(String values) {
+        List<Double> doubles = new ArrayList<>();
+
+        for (String value : values.split(",")) {
+            doubles.add(Double.parseDouble(value.trim()));
+        }
+
+        return doubles;
+    }
+}
@@ -0,0 +1,138 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.VirtualThreads;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.format.DateTimeParseException;
+
+// Runs the same scenario in batch mode once with platform threads and once with virtual threads, then compares the
+// number of threads used and the number of ticks simulated per second in each mode
+// Only platform threads are counted, as these are the ones taking up operating system threads
+// Both modes run the trains on the tick loop and the worker threads (no train has a thread of its own in either), so
+// the baseline is the platform mode of the current engine, not a platform thread for each train; the modes only differ
+// in the helper threads, which wait on behalf of the user interface and for ticks to be observed
+public class ThreadModeMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: ThreadModeMain <start time ([day+]HH:mm[:ss])>"
+            + " <end time ([day+]HH:mm[:ss])> <number of trains> <log directory> [passenger list directory]";
+
+    public static void main(String[] args) {
+        if (args.length < 4 || args.length > 5) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final SimulationTime startTime;
+        final SimulationTime endTime;
+        final int numberOfTrains;
+
+        try {
+            startTime = SimulationTime.parse(args[0]);
+            endTime = SimulationTime.parse(args[1]);
+            numberOfTrains = Integer.parseInt(args[2]);
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+
+            return;
+        }
+
+        final String logDirectory = args[3];
+        final String passengerListDirectory = args.length > 4 ? args[4] : null;
+
+        if (!VirtualThreads.isSupported()) {
+            System.err.println("Virtual threads are not supported by this Java runtime, so platform threads will be"
+                    + " used in both modes");
+        }
+
+        try {
+            // Connect to the database once for both modes
+            DatabaseInterface databaseInterface = new DatabaseInterface();
+
+            // The passenger lists are read by the first run, then reused by the second
+            Simulator platformSimulator = new Simulator(databaseInterface);
+
+            long[] platformResults = run(
+                    platformSimulator,
+                    startTime,
+                    endTime,
+                    numberOfTrains,
+                    passengerListDirectory,
+                    logDirectory + File.separator + "platform",
+                    false
+            );
+
+            Simulator virtualSimulator = new Simulator(databaseInterface);
+            virtualSimulator.shareTripRecords(platformSimulator);
+
+            // Stop the threads of the first run, so they are not counted in the second
+            platformSimulator.close();
+
+            long[] virtualResults = run(
+                    virtualSimulator,
+                    startTime,
+                    endTime,
+                    numberOfTrains,
+                    passengerListDirectory,
+                    logDirectory + File.separator + "virtual",
+                    true
+            );
+
+            virtualSimulator.close();
+
+            final long ticks = endTime.getTick() - startTime.getTick() + 1;
+
+            System.out.println("Baseline: the platform mode of the current engine, in which the trains are stepped by"
+                    + " the tick loop and the worker threads rather than each running in a platform thread of its own;"
+                    + " the virtual mode only moves the helper threads onto virtual threads");
+            System.out.println("MODE,PEAK_PLATFORM_THREADS,ELAPSED_MILLISECONDS,TICKS_PER_SECOND");
+
+            printResults("platform", platformResults, ticks);
+            printResults("virtual", virtualResults, ticks);
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+
+    // Run a simulator until its ending time in the given mode, then return the peak number of platform threads and the
+    // time it took (ms)
+    private static long[] run(Simulator simulator, SimulationTime startTime, SimulationTime endTime, int numberOfTrains,
+                              String passengerListDirectory, String logDirectory, boolean virtualThreads)
+            throws InterruptedException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        Scenario scenario = new Scenario(numberOfTrains, passengerListDirectory, logDirectory);
+        scenario.setVirtualThreads(virtualThreads);
+
+        simulator.setup(new SimulationTime(startTime), new SimulationTime(endTime), scenario);
+
+        // Only count the threads created from this point on
+        threadMXBean.resetPeakThreadCount();
+
+        final long startNanoseconds = System.nanoTime();
+
+        simulator.runToCompletion();
+
+        final long elapsedMilliseconds = (System.nanoTime() - startNanoseconds) / 1_000_000;
+
+        return new long[]{threadMXBean.getPeakThreadCount(), elapsedMilliseconds};
+    }
+
+    private static void printResults(String mode, long[] results, long ticks) {
+        final double ticksPerSecond = ticks * 1000.0 / Math.max(1, results[1]);
+
+        System.out.println(mode + "," + results[0] + "," + results[1] + "," + String.format("%.2f", ticksPerSecond));
+    }
+}
@@ -0,0 +1,78 @@
+package com.trainsimulation.controller;
+
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.setup.BinaryTripFile;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+
+// Converts the CSV file of the passenger list of each train system in the given directory into a binary trip file,
+// which is then loaded instead of the CSV file whenever the simulation is set up with that directory
+public class TripConverterMain {
+    // Denotes the usage of the program
+    private static final String USAGE = "Usage: TripConverterMain <passenger list directory>";
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        final File passengerListDirectory = new File(args[0]);
+
+        if (!passengerListDirectory.isDirectory()) {
+            System.err.println(USAGE);
+
+            System.exit(2);
+        }
+
+        try {
+            // Set the simulator up only for its train systems and their stations, streaming the trips so the passenger
+            // lists are not read in full while doing so
+            Simulator simulator = new Simulator();
+
+            Scenario scenario = new Scenario(0, passengerListDirectory.getPath(), null);
+            scenario.setTripLoadingWindow(Scenario.SUGGESTED_TRIP_LOADING_WINDOW);
+
+            simulator.setup(new SimulationTime(0), new SimulationTime(0), scenario);
+
+            for (TrainSystem trainSystem : simulator.getTrainSystems()) {
+                final String trainSystemName = trainSystem.getTrainSystemInformation().getName();
+
+                File passengerListFile = new File(
+                        passengerListDirectory, trainSystemName + Scenario.PASSENGER_LIST_FILE_NAME
+                );
+
+                if (!passengerListFile.isFile()) {
+                    System.out.println("Skipped " + trainSystemName + " - no passenger list");
+
+                    continue;
+                }
+
+                File binaryTripFile = new File(
+                        passengerListDirectory, trainSystemName + Scenario.BINARY_PASSENGER_LIST_FILE_NAME
+                );
+
+                long startNanos = System.nanoTime();
+
+                int tripCount = BinaryTripFile.convert(trainSystem, passengerListFile, binaryTripFile);
+
+                System.out.println(
+                        "Converted " + tripCount + " trips of " + trainSystemName + " into " + binaryTripFile + " in "
+                                + (System.nanoTime() - startNanos) / 1000000 + " ms"
+                );
+            }
+
+            simulator.close();
+
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            System.exit(1);
+        }
+    }
+}
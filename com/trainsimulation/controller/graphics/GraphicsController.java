@@ -2,6 +2,7 @@ package com.trainsimulation.controller.graphics;
 
 import com.crowdsimulation.model.core.environment.station.Floor;
 import com.trainsimulation.controller.Controller;
+import com.trainsimulation.controller.Main;
 import com.trainsimulation.controller.screen.MainScreenController;
 import com.trainsimulation.model.core.environment.TrainSystem;
 import com.trainsimulation.model.core.environment.infrastructure.track.Junction;
@@ -11,7 +12,6 @@ import com.trainsimulation.model.core.environment.trainservice.passengerservice.
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.TrainCarriage;
-import com.trainsimulation.model.simulator.SimulationTime;
 import com.trainsimulation.model.utility.TrainQueue;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -284,7 +284,8 @@ public class GraphicsController extends Controller {
                     currentFloor,
                     tileSize,
                     background,
-                    SimulationTime.SLEEP_TIME_MILLISECONDS.get() < speedAwarenessLimitMilliseconds,
+                    Main.simulator.getPacingController().getTargetTickMilliseconds()
+                            < speedAwarenessLimitMilliseconds,
                     false,
                     true
             );
@@ -12,9 +12,8 @@ import com.trainsimulation.model.core.environment.trainservice.passengerservice.
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.property.TrainProperty;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
-import com.trainsimulation.model.db.DatabaseQueries;
+import com.trainsimulation.model.simulator.SimulationObserver;
 import com.trainsimulation.model.simulator.SimulationTime;
-import com.trainsimulation.model.utility.TrainMovement;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.fxml.FXML;
@@ -41,17 +40,12 @@ import javafx.scene.text.TextAlignment;
 
 import java.io.IOException;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-public class MainScreenController extends ScreenController {
-    // Used to manage how the add train button is activated with respect to when the trains have left the depot and
-    // entered a station
-    public static final Semaphore ARM_ADD_TRAIN_BUTTON = new Semaphore(0);
-
+public class MainScreenController extends ScreenController implements SimulationObserver {
     // Denotes whether the button activatable (regardless of whether the inactive trains list is empty or not)
     private static final AtomicBoolean armAddTrainActivatable = new AtomicBoolean(true);
 
@@ -140,11 +134,11 @@ public class MainScreenController extends ScreenController {
 
         // Set slider listeners
         simulationSpeedSlider.valueProperty().addListener(((observable, oldValue, newValue) -> {
-            SimulationTime.SLEEP_TIME_MILLISECONDS.set((int) (1.0 / newValue.intValue() * 1000));
+            Main.simulator.getPacingController().setTargetRealTimeFactor(newValue.intValue());
         }));
 
         headwaySlider.valueProperty().addListener(((observable, oldValue, newValue) -> {
-            TrainMovement.HEADWAY_DISTANCE.set(newValue.intValue());
+            Main.simulator.getHeadwayDistance().set(newValue.intValue());
         }));
 
         signalCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> {
@@ -178,7 +172,7 @@ public class MainScreenController extends ScreenController {
     // Updates the simulation time on the screen
     private void updateSimulationTime(SimulationTime simulationTime) {
         LocalTime currentTime = simulationTime.getTime();
-        long elapsedTime = simulationTime.getStartTime().until(currentTime, ChronoUnit.SECONDS);
+        long elapsedTime = simulationTime.getElapsedTicks();
 
         String timeString;
 
@@ -186,13 +180,56 @@ public class MainScreenController extends ScreenController {
                 + String.format("%02d", currentTime.getMinute()) + ":"
                 + String.format("%02d", currentTime.getSecond());
 
+        // Only show the day once the simulation has run past the first day
+        if (simulationTime.getDay() > 0) {
+            timeString = "Day " + simulationTime.getDay() + ", " + timeString;
+        }
+
         runningTimeText.setText(timeString);
 
-        timeString = elapsedTime + " s";
+        timeString = elapsedTime + " s ("
+                + String.format("%.1f", Main.simulator.getPacingController().getAchievedRealTimeFactor()) + "x)";
 
         elapsedTimeText.setText(timeString);
     }
 
+    @Override
+    public void onTick(SimulationTime simulationTime) {
+        // Redraw the updated time
+        requestUpdateSimulationTime(simulationTime);
+
+        // Update the view of the current station only
+        GraphicsController.requestDrawStationView(
+                MainScreenController.getActiveSimulationContext().getStationViewCanvases(),
+                MainScreenController.getActiveSimulationContext().getCurrentStation(),
+                MainScreenController.getActiveSimulationContext().getStationScaleDownFactor(),
+                false
+        );
+    }
+
+    @Override
+    public void onTrainMoved(TrainSystem trainSystem) {
+        // Redraw the line view of the active train system
+        GraphicsController.requestDrawLineView(
+                MainScreenController.getActiveSimulationContext().getLineViewCanvases(),
+                MainScreenController.getActiveSimulationContext().getTrainSystem(),
+                MainScreenController.getActiveSimulationContext().getLineScaleDownFactor(),
+                false
+        );
+    }
+
+    @Override
+    public void onTrainPulledOut(TrainSystem trainSystem) {
+        // Update the UI elements
+        requestUpdateUI(MainScreenController.getActiveSimulationContext().getTrainSystem(), false);
+    }
+
+    @Override
+    public void onSimulationDone() {
+        // Tell the UI thread to disable all buttons
+        requestDisableButtons();
+    }
+
     @FXML
     public void setupAction() throws IOException {
         FXMLLoader loader = ScreenController.getLoader(getClass(),
@@ -208,12 +245,12 @@ public class MainScreenController extends ScreenController {
 
         // Set the buttons up, if the dialog was closed due to the set up button
         if (setupController.isClosedWithAction()) {
+            // Run the simulation at the pace set through the speed slider
+            Main.simulator.getPacingController().setTargetRealTimeFactor(simulationSpeedSlider.getValue());
+
             // Get the train systems
             List<TrainSystem> trainSystems = Main.simulator.getTrainSystems();
 
-            // Load the trains belonging to each train system
-            loadTrains(trainSystems);
-
             // For each train line, create a tab for it
             JFXTabPane tabPane = createTabs(setupButton.getScene(), trainSystems);
 
@@ -300,6 +337,10 @@ public class MainScreenController extends ScreenController {
             List<Train> activeTrains = MainScreenController.getActiveSimulationContext().getTrainSystem()
                     .getActiveTrains();
 
+            // Get the train deployment semaphore of the active train system
+            Semaphore trainDeploymentSemaphore = MainScreenController.getActiveSimulationContext().getTrainSystem()
+                    .getTrainDeploymentSemaphore();
+
             // Check if it is possible to spawn a new train by checking whether there are inactive trains left in the
             // active train system
             if (inactiveTrains.size() > 0) {
@@ -318,10 +359,10 @@ public class MainScreenController extends ScreenController {
 
                 // Run a quick thread to monitor the rearming of the add train button
                 // This code is in a separate thread to avoid choking the JavaFX UI thread
-                new Thread(() -> {
+                Main.simulator.startHelperThread(() -> {
                     try {
                         // Wait until the train enters a station from the depot for the first time
-                        MainScreenController.ARM_ADD_TRAIN_BUTTON.acquire();
+                        trainDeploymentSemaphore.acquire();
                     } catch (InterruptedException ex) {
                         ex.printStackTrace();
                     }
@@ -334,7 +375,7 @@ public class MainScreenController extends ScreenController {
 
                     // The add train button may now be reactivated again
                     armAddTrainActivatable.set(true);
-                }).start();
+                });
 
                 // Update the UI
                 requestUpdateUI(getActiveSimulationContext().getTrainSystem(), false);
@@ -380,17 +421,17 @@ public class MainScreenController extends ScreenController {
             if (!editedTrain.getTrainMovement().isActive()) {
                 // Run a quick thread to monitor the rearming of the add train button
                 // This code is in a separate thread to avoid choking the JavaFX UI thread
-                new Thread(() -> {
+                Main.simulator.startHelperThread(() -> {
                     try {
                         // Wait until the train enters a station from the depot for the first time
-                        MainScreenController.ARM_ADD_TRAIN_BUTTON.acquire();
+                        editedTrain.getTrainSystem().getTrainDeploymentSemaphore().acquire();
                     } catch (InterruptedException ex) {
                         ex.printStackTrace();
                     }
 
                     // Eventually enable this button
                     addTrainButton.setDisable(false);
-                }).start();
+                });
             }
         }
     }
@@ -565,15 +606,6 @@ public class MainScreenController extends ScreenController {
         });
     }
 
-    // Load the trains to the inactive train memories of each train system
-    private void loadTrains(List<TrainSystem> trainSystems) {
-        for (TrainSystem trainSystem : trainSystems) {
-            trainSystem.getInactiveTrains().addAll(DatabaseQueries.getTrains(Main.simulator.getDatabaseInterface(),
-                    trainSystem)
-            );
-        }
-    }
-
     // For each train system, create a tab for it
     private JFXTabPane createTabs(Scene scene, List<TrainSystem> trainSystems) {
         // TODO: Automate the generation of these constants
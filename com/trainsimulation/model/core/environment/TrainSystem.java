@@ -6,14 +6,43 @@ import com.trainsimulation.model.core.environment.trainservice.maintenance.Depot
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
 import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.SpawnCalendar;
+import com.trainsimulation.model.simulator.StationLoadBalancer;
+import com.trainsimulation.model.simulator.TimingWheel;
+import com.trainsimulation.model.simulator.TripSource;
 import com.trainsimulation.model.utility.TrainSystemInformation;
 
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 // Denotes a train system object containing all its information, depot, and stations
 public class TrainSystem {
+    // Denotes the known discrepancies between the station names in the database versus in the passenger lists, from
+    // the names in the passenger lists to the names in the database
+    private static final Map<String, String> STATION_NAME_ALIASES = new HashMap<>();
+
+    // Denotes the known discrepancies which only apply to the passenger list of a certain train system
+    private static final Map<String, Map<String, String>> TRAIN_SYSTEM_STATION_NAME_ALIASES = new HashMap<>();
+
+    static {
+        STATION_NAME_ALIASES.put("V. Cruz", "Vito Cruz");
+        STATION_NAME_ALIASES.put("A. Santos", "Abad Santos");
+        STATION_NAME_ALIASES.put("Edsa", "EDSA");
+        STATION_NAME_ALIASES.put("P. Quirino", "Quirino");
+        STATION_NAME_ALIASES.put("P. Gil", "Pedro Gil");
+        STATION_NAME_ALIASES.put("Monumento", "Yamaha Monumento");
+        STATION_NAME_ALIASES.put("Boni", "Boni Avenue");
+        STATION_NAME_ALIASES.put("Shaw Blvd", "Shaw Boulevard");
+        STATION_NAME_ALIASES.put("Betty Go", "Betty-Go Belmonte");
+
+        TRAIN_SYSTEM_STATION_NAME_ALIASES.put("MRT-3", Collections.singletonMap("Araneta-Cubao", "Cubao"));
+        TRAIN_SYSTEM_STATION_NAME_ALIASES.put("LRT-2", Collections.singletonMap("Cubao", "Araneta Center-Cubao"));
+    }
+
+    // Denotes the simulator which this train system is a part of
+    private final Simulator simulator;
+
     // Denotes basic information about this train system
     private final TrainSystemInformation trainSystemInformation;
 
@@ -32,28 +61,114 @@ public class TrainSystem {
     // Denotes the depot of this train system
     private Depot depot;
 
-    // Denotes the passenger list of this train system (the list of passengers to be spawned by the simulator, and the
-    // time
-    private final List<PassengerTripInformation> passengersToSpawn;
+    // Denotes the complete passenger list of this train system, as it was loaded, in order of station entry time
+    private final List<PassengerTripInformation> passengerList;
+
+    // Contains the trips of the complete passenger list filed by the second of the day they are due, then by entry
+    // station, so the trips due at each tick may be taken without going through the rest
+    private SpawnCalendar spawnCalendar;
+
+    // Denotes where the trips to be spawned are taken from (the spawn calendar, unless the trips are streamed)
+    private TripSource tripSource;
+
+    // Denotes the day of the scenario whose trips are still to be spawned (the passenger list is taken to describe a
+    // typical day, so it is spawned again on each day of a run spanning multiple days)
+    private int spawnDay;
+
+    // Denotes the second of the day being spawned from which the trips are still to be spawned (the trips due before it
+    // have already been spawned, or skipped)
+    private int nextSpawnSecond;
+
+    // Denotes the passengers to be spawned again in the next tick, regardless of time (used when passengers already in
+    // the system are carried over from a checkpoint)
+    private final List<PassengerTripInformation> passengersToReadmit;
+
+    // Used to manage when a new train may be deployed with respect to when the previously deployed train has left the
+    // depot and entered a station
+    private final Semaphore trainDeploymentSemaphore;
+
+    // Logs completed passenger trips and their attributes (updated every time a passenger completes a trip)
+    private final List<String> passengerLogs;
+
+    // Logs station information (updated every minute)
+    private final List<String> stationLogs;
+
+    // Logs train information (updated every time a train departs a station)
+    private final List<String> trainLogs;
+
+    // Denotes the number of passengers spawned in this train system
+    private int spawnedPassengerCount;
+
+    // Denotes the number of trains automatically deployed into this train system so far
+    private int dispatchedTrainCount;
+
+    // Contains the ticks when the trains of this train system waiting at a station or at the end of the line are due to
+    // leave
+    private TimingWheel<Train> trainWakeUps;
+
+    // Contains the ticks when the recurring events of this train system are next due
+    private TimingWheel<Event> eventWakeUps;
+
+    // Denotes what groups the stations of this train system into tasks of about the same cost at each tick
+    private final StationLoadBalancer stationLoadBalancer;
 
-    public TrainSystem(TrainSystemInformation trainSystemInformation) {
+    // Denotes the stations of this train system by the names they may be retrieved with, and the number of stations
+    // indexed (null until a station is first retrieved)
+    private volatile Map<String, Station> stationIndex;
+    private int indexedStationCount;
+
+    public TrainSystem(Simulator simulator, TrainSystemInformation trainSystemInformation) {
+        this.simulator = simulator;
         this.trainSystemInformation = trainSystemInformation;
         this.stations = new ArrayList<>();
-        this.inactiveTrains = new ArrayList<>();
-        this.activeTrains = new ArrayList<>();
+        this.inactiveTrains = Collections.synchronizedList(new ArrayList<>());
+        this.activeTrains = Collections.synchronizedList(new ArrayList<>());
         this.passengers = Collections.synchronizedList(new ArrayList<>());
         this.depot = null;
-        this.passengersToSpawn = Collections.synchronizedList(new ArrayList<>());
+        this.passengerList = new ArrayList<>();
+        this.spawnCalendar = new SpawnCalendar(this.passengerList, this.stations);
+        this.spawnDay = 0;
+        this.nextSpawnSecond = 0;
+        this.tripSource = this.spawnCalendar;
+        this.passengersToReadmit = Collections.synchronizedList(new ArrayList<>());
+        this.trainDeploymentSemaphore = new Semaphore(0);
+        this.passengerLogs = Collections.synchronizedList(new ArrayList<>());
+        this.stationLogs = Collections.synchronizedList(new ArrayList<>());
+        this.trainLogs = Collections.synchronizedList(new ArrayList<>());
+        this.spawnedPassengerCount = 0;
+        this.dispatchedTrainCount = 0;
+        this.stationLoadBalancer = new StationLoadBalancer();
+        this.stationIndex = null;
+        this.indexedStationCount = 0;
     }
 
-    public TrainSystem(TrainSystemInformation trainSystemInformation, Depot depot) {
+    public TrainSystem(Simulator simulator, TrainSystemInformation trainSystemInformation, Depot depot) {
+        this.simulator = simulator;
         this.trainSystemInformation = trainSystemInformation;
         this.stations = new ArrayList<>();
-        this.inactiveTrains = new ArrayList<>();
-        this.activeTrains = new ArrayList<>();
+        this.inactiveTrains = Collections.synchronizedList(new ArrayList<>());
+        this.activeTrains = Collections.synchronizedList(new ArrayList<>());
         this.passengers = new ArrayList<>();
         this.depot = depot;
-        this.passengersToSpawn = new ArrayList<>();
+        this.passengerList = new ArrayList<>();
+        this.spawnCalendar = new SpawnCalendar(this.passengerList, this.stations);
+        this.spawnDay = 0;
+        this.nextSpawnSecond = 0;
+        this.tripSource = this.spawnCalendar;
+        this.passengersToReadmit = new ArrayList<>();
+        this.trainDeploymentSemaphore = new Semaphore(0);
+        this.passengerLogs = Collections.synchronizedList(new ArrayList<>());
+        this.stationLogs = Collections.synchronizedList(new ArrayList<>());
+        this.trainLogs = Collections.synchronizedList(new ArrayList<>());
+        this.spawnedPassengerCount = 0;
+        this.dispatchedTrainCount = 0;
+        this.stationLoadBalancer = new StationLoadBalancer();
+        this.stationIndex = null;
+        this.indexedStationCount = 0;
+    }
+
+    public Simulator getSimulator() {
+        return simulator;
     }
 
     public TrainSystemInformation getTrainSystemInformation() {
@@ -84,97 +199,301 @@ public class TrainSystem {
         return passengers;
     }
 
-    // Initialize station layouts of all stations in parallel
-    public void initializeStationLayouts(List<Station> stations) {
-        // Initialize a thread pool to load station layouts in parallel
-        final int NUM_CPUS = Runtime.getRuntime().availableProcessors();
-        ExecutorService stationLayoutLoadingExecutorService = Executors.newFixedThreadPool(NUM_CPUS);
+    public Semaphore getTrainDeploymentSemaphore() {
+        return trainDeploymentSemaphore;
+    }
+
+    public List<String> getPassengerLogs() {
+        return passengerLogs;
+    }
+
+    public List<String> getStationLogs() {
+        return stationLogs;
+    }
+
+    public List<String> getTrainLogs() {
+        return trainLogs;
+    }
+
+    public int getSpawnedPassengerCount() {
+        return spawnedPassengerCount;
+    }
+
+    public void setSpawnedPassengerCount(int spawnedPassengerCount) {
+        this.spawnedPassengerCount = spawnedPassengerCount;
+    }
+
+    // Take note of newly spawned passengers
+    public void addSpawnedPassengers(int passengers) {
+        this.spawnedPassengerCount += passengers;
+    }
 
+    public int getDispatchedTrainCount() {
+        return dispatchedTrainCount;
+    }
+
+    public void setDispatchedTrainCount(int dispatchedTrainCount) {
+        this.dispatchedTrainCount = dispatchedTrainCount;
+    }
+
+    public List<PassengerTripInformation> getPassengerList() {
+        return passengerList;
+    }
+
+    // Get the number of trips of the day being spawned which are still to be spawned
+    // This is only known if the trips are taken from a complete passenger list
+    public int getRemainingTripCount() {
+        return this.passengerList.size() - this.spawnCalendar.countBefore(this.nextSpawnSecond);
+    }
+
+    // Have only the given number of trips of the day being spawned (the last trips of the complete passenger list)
+    // still to be spawned
+    public void setRemainingTripCount(int remainingTripCount) {
+        this.nextSpawnSecond = remainingTripCount > 0
+                ? this.passengerList.get(this.passengerList.size() - remainingTripCount)
+                .getApproximateStationEntryTime().toSecondOfDay()
+                : (int) SimulationTime.SECONDS_PER_DAY;
+    }
+
+    public int getSpawnDay() {
+        return spawnDay;
+    }
+
+    public void setSpawnDay(int spawnDay) {
+        this.spawnDay = spawnDay;
+    }
+
+    public List<PassengerTripInformation> getPassengersToReadmit() {
+        return passengersToReadmit;
+    }
+
+    public StationLoadBalancer getStationLoadBalancer() {
+        return stationLoadBalancer;
+    }
+
+    public TimingWheel<Train> getTrainWakeUps() {
+        return trainWakeUps;
+    }
+
+    public TimingWheel<Event> getEventWakeUps() {
+        return eventWakeUps;
+    }
+
+    // Start the timing wheels of this train system over from the given tick, with the first spawn due at that tick,
+    // the first station logging due at the start of the next minute, and each waiting train due when it is to leave
+    public void resetWakeUps(long tick) {
+        this.trainWakeUps = new TimingWheel<>(tick);
+        this.eventWakeUps = new TimingWheel<>(tick);
+
+        this.eventWakeUps.schedule(tick, Event.SPAWN);
+        this.eventWakeUps.schedule(tick + (60 - tick % 60) % 60, Event.LOG);
+
+        synchronized (this.activeTrains) {
+            for (Train train : this.activeTrains) {
+                if (train.isWaiting()) {
+                    this.trainWakeUps.schedule(train.getTrainMovement().getWakeTick(), train);
+                }
+            }
+        }
+    }
+
+    // Initialize station layouts of all stations in parallel, in the worker threads of the simulator
+    public void initializeStationLayouts(List<Station> stations) {
         List<Station.StationLayoutLoadTask> stationLayoutLoadTasks = new ArrayList<>();
 
         for (Station station : stations) {
             stationLayoutLoadTasks.add(new Station.StationLayoutLoadTask(station));
         }
 
-        try {
-            stationLayoutLoadingExecutorService.invokeAll(stationLayoutLoadTasks);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        this.simulator.getTickScheduler().invokeAll(stationLayoutLoadTasks);
     }
 
     // Retrieve a station using its name
     public Station retrieveStation(String stationName) {
-        // Correct differences between the station names in the database and the station names in the passenger list
-        stationName = fixDiscrepancy(this.getTrainSystemInformation().getName(), stationName);
+        Map<String, Station> stationIndex = this.stationIndex;
+
+        // Index the stations again if any have been added since they were last indexed
+        if (stationIndex == null || this.indexedStationCount != this.stations.size()) {
+            stationIndex = indexStations();
+        }
+
+        return stationIndex.get(stationName);
+    }
+
+    // Index the stations of this train system by their names in the database, and by the names they are known as in
+    // the passenger list
+    private synchronized Map<String, Station> indexStations() {
+        if (this.stationIndex != null && this.indexedStationCount == this.stations.size()) {
+            return this.stationIndex;
+        }
+
+        Map<String, String> stationNameAliases = getStationNameAliases(this.getTrainSystemInformation().getName());
+
+        Map<String, Station> stationsByName = new HashMap<>();
 
         for (Station station : this.stations) {
-            if (station.getName().equals(stationName)) {
-                return station;
+            stationsByName.putIfAbsent(station.getName(), station);
+        }
+
+        Map<String, Station> stationIndex = new HashMap<>();
+
+        // A name known to be different in the passenger list always stands for the station it is corrected to
+        for (Map.Entry<String, Station> stationByName : stationsByName.entrySet()) {
+            if (!stationNameAliases.containsKey(stationByName.getKey())) {
+                stationIndex.put(stationByName.getKey(), stationByName.getValue());
             }
         }
 
-        return null;
+        for (Map.Entry<String, String> stationNameAlias : stationNameAliases.entrySet()) {
+            Station station = stationsByName.get(stationNameAlias.getValue());
+
+            if (station != null) {
+                stationIndex.put(stationNameAlias.getKey(), station);
+            }
+        }
+
+        this.indexedStationCount = this.stations.size();
+        this.stationIndex = stationIndex;
+
+        return stationIndex;
     }
 
-    // Fix known discrepancies between the station name in the database versus in the passenger list
-    private String fixDiscrepancy(String trainSystemName, String stationName) {
-        if (stationName.equals("V. Cruz")) {
-            stationName = "Vito Cruz";
-        } else if (stationName.equals("A. Santos")) {
-            stationName = "Abad Santos";
-        } else if (stationName.equals("Edsa")) {
-            stationName = "EDSA";
-        } else if (stationName.equals("P. Quirino")) {
-            stationName = "Quirino";
-        } else if (stationName.equals("P. Gil")) {
-            stationName = "Pedro Gil";
-        } else if (stationName.equals("Monumento")) {
-            stationName = "Yamaha Monumento";
-        } else if (stationName.equals("Boni")) {
-            stationName = "Boni Avenue";
-        } else if (stationName.equals("Shaw Blvd")) {
-            stationName = "Shaw Boulevard";
-        } else if (trainSystemName.equals("MRT-3") && stationName.equals("Araneta-Cubao")) {
-            stationName = "Cubao";
-        } else if (trainSystemName.equals("LRT-2") && stationName.equals("Cubao")) {
-            stationName = "Araneta Center-Cubao";
-        } else if (stationName.equals("Betty Go")) {
-            stationName = "Betty-Go Belmonte";
+    // Get the known discrepancies between the station names in the database versus in the passenger list of the given
+    // train system, from the names in the passenger list to the names in the database
+    private static Map<String, String> getStationNameAliases(String trainSystemName) {
+        Map<String, String> trainSystemStationNameAliases = TRAIN_SYSTEM_STATION_NAME_ALIASES.get(trainSystemName);
+
+        if (trainSystemStationNameAliases == null) {
+            return STATION_NAME_ALIASES;
         }
 
-        return stationName;
+        Map<String, String> stationNameAliases = new HashMap<>(STATION_NAME_ALIASES);
+        stationNameAliases.putAll(trainSystemStationNameAliases);
+
+        return stationNameAliases;
     }
 
     public void loadPassengerList(List<PassengerTripInformation> passengerList) {
-        this.passengersToSpawn.clear();
-        this.passengersToSpawn.addAll(passengerList);
+        this.passengerList.clear();
+        this.passengerList.addAll(passengerList);
+
+        this.spawnCalendar = new SpawnCalendar(this.passengerList, this.stations);
+
+        setTripSource(this.spawnCalendar);
+    }
+
+    // Have the trips to be spawned taken from the given source instead of from a complete passenger list
+    public void loadTripSource(TripSource tripSource) {
+        this.passengerList.clear();
+
+        this.spawnCalendar = new SpawnCalendar(this.passengerList, this.stations);
+
+        setTripSource(tripSource);
+    }
+
+    private void setTripSource(TripSource tripSource) {
+        if (this.tripSource != null && this.tripSource != tripSource) {
+            this.tripSource.close();
+        }
+
+        this.tripSource = tripSource;
+
+        this.spawnDay = 0;
+        this.nextSpawnSecond = 0;
+    }
+
+    // Return true if the trips to be spawned are streamed, rather than taken from a complete passenger list
+    public boolean isStreamingTrips() {
+        return this.tripSource != this.spawnCalendar;
+    }
+
+    // Let go of whatever the trips to be spawned are taken from
+    public void closeTripSource() {
+        this.tripSource.close();
+    }
+
+    // Once the day being spawned is over, start spawning the trips of the day of the given tick (the trips of the day
+    // which have not been spawned are skipped)
+    private void advanceSpawnDay(long tick) {
+        if (tick >= (this.spawnDay + 1) * SimulationTime.SECONDS_PER_DAY) {
+            this.spawnDay = (int) (tick / SimulationTime.SECONDS_PER_DAY);
+            this.nextSpawnSecond = 0;
+
+            this.tripSource.rewind();
+        }
+    }
+
+    // Get the tick of the earliest trip still to be spawned at or after the given time (Long.MAX_VALUE if there is
+    // none)
+    public long getNextSpawnTick(SimulationTime simulationTime) {
+        if (this.tripSource.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+
+        final long tick = simulationTime.getTick();
+        final long day = Math.max(this.spawnDay, tick / SimulationTime.SECONDS_PER_DAY);
+        final long secondOfDay = tick - day * SimulationTime.SECONDS_PER_DAY;
+
+        final int nextSecond;
+
+        if (day == this.spawnDay) {
+            nextSecond = this.tripSource.getNextSecond((int) Math.max(this.nextSpawnSecond, secondOfDay));
+        } else {
+            // The day of the given time has not been started yet, so only its first trip is known (if it is still to
+            // come); otherwise, the trips of that day are looked into once it has been started
+            nextSecond = (int) Math.max(this.tripSource.getFirstSecond(), secondOfDay);
+        }
+
+        if (nextSecond >= 0) {
+            return day * SimulationTime.SECONDS_PER_DAY + nextSecond;
+        }
+
+        // Otherwise, the next trip is the first trip of the following day
+        return (day + 1) * SimulationTime.SECONDS_PER_DAY + this.tripSource.getFirstSecond();
+    }
+
+    // Return true if there are no passengers anywhere in this train system, and none are about to be readmitted
+    public boolean isEmptyOfPassengers() {
+        if (!this.passengers.isEmpty() || !this.passengersToReadmit.isEmpty()) {
+            return false;
+        }
+
+        for (Station station : this.stations) {
+            if (!station.getStationLayout().getPassengersInStation().isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     // Remove all trips that happen before the simulation starts
     public void removeTripsBeforeStartTime(SimulationTime simulationTime) {
-        List<PassengerTripInformation> passengerTripsToRemove = new ArrayList<>();
+        final long startTick = simulationTime.getStartTick();
 
-        for (PassengerTripInformation passengerTripInformation : this.passengersToSpawn) {
-            if (passengerTripInformation.getApproximateStationEntryTime().isBefore(simulationTime.getStartTime())) {
-                passengerTripsToRemove.add(passengerTripInformation);
-            } else {
-                break;
-            }
+        // On a run starting past the first day, start from the trips of the day it starts on
+        if (this.spawnDay == 0 && startTick >= SimulationTime.SECONDS_PER_DAY) {
+            this.spawnDay = (int) (startTick / SimulationTime.SECONDS_PER_DAY);
         }
 
-        this.passengersToSpawn.removeAll(passengerTripsToRemove);
+        final long startSecond = startTick - this.spawnDay * SimulationTime.SECONDS_PER_DAY;
+
+        if (startSecond > this.nextSpawnSecond) {
+            this.nextSpawnSecond = (int) Math.min(startSecond, SimulationTime.SECONDS_PER_DAY);
+        }
     }
 
     // Collects all passengers to be spawned in the next tick, given the current time
+    // Only the trips due at the given tick are gone through; trips due before it which have been missed are skipped
+    // This should only be called by the thread updating this train system
     public HashMap<Station, List<PassengerTripInformation>> getPassengersToSpawn(
             SimulationTime simulationTime
     ) {
         HashMap<Station, List<PassengerTripInformation>> stationListHashMap = new HashMap<>();
-        List<PassengerTripInformation> passengerTripsDone = new ArrayList<>();
 
-        for (PassengerTripInformation passengerTripInformation : this.passengersToSpawn) {
-            if (passengerTripInformation.getApproximateStationEntryTime().equals(simulationTime.getTime())) {
+        // Spawn the passengers to be readmitted first, regardless of their times
+        synchronized (this.passengersToReadmit) {
+            for (PassengerTripInformation passengerTripInformation : this.passengersToReadmit) {
                 if (stationListHashMap.get(passengerTripInformation.getEntryStation()) == null) {
                     stationListHashMap.put(
                             passengerTripInformation.getEntryStation(),
@@ -183,14 +502,22 @@ public class TrainSystem {
                 }
 
                 stationListHashMap.get(passengerTripInformation.getEntryStation()).add(passengerTripInformation);
-
-                passengerTripsDone.add(passengerTripInformation);
-            } else if (passengerTripInformation.getApproximateStationEntryTime().isAfter(simulationTime.getTime())) {
-                break;
             }
+
+            this.passengersToReadmit.clear();
         }
 
-        this.passengersToSpawn.removeAll(passengerTripsDone);
+        final long tick = simulationTime.getTick();
+
+        advanceSpawnDay(tick);
+
+        final long secondOfDay = tick - this.spawnDay * SimulationTime.SECONDS_PER_DAY;
+
+        if (secondOfDay >= this.nextSpawnSecond) {
+            this.tripSource.collect((int) secondOfDay, stationListHashMap);
+
+            this.nextSpawnSecond = (int) secondOfDay + 1;
+        }
 
         return stationListHashMap;
     }
@@ -209,4 +536,13 @@ public class TrainSystem {
     public int hashCode() {
         return Objects.hash(trainSystemInformation);
     }
+
+    // The recurring events of a train system
+    public enum Event {
+        // Spawning the passengers whose trips are due
+        SPAWN,
+
+        // Logging the stations, once every minute
+        LOG
+    }
 }
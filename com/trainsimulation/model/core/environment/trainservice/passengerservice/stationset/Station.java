@@ -20,7 +20,6 @@ import java.io.File;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 // Stations are structures in a train line where trains regularly stop to load and unload passengers
 public class Station extends StationSet {
@@ -86,7 +85,7 @@ public class Station extends StationSet {
     // TODO: Offload to platform
     public final HashMap<PassengerMovement.TravelDirection, Train> trains;
 
-    // Initialize a thread pool to run floors in parallel
+    // Denotes the executor which runs the floors of this station in parallel (the worker threads of the simulator)
     private ExecutorService floorExecutorService;
 
     public Station(TrainSystem trainSystem, StationsEntity stationsEntity) {
@@ -114,7 +113,8 @@ public class Station extends StationSet {
 
         this.trainSystem = trainSystem;
 
-        this.stationPath = trainSystem.getTrainSystemInformation().getTrainSystemPath() + "\\stations\\" + this.name;
+        this.stationPath = trainSystem.getTrainSystemInformation().getTrainSystemPath() + File.separator + "stations"
+                + File.separator + this.name;
         this.station = null;
 
         // TODO: Offload to station gate itself
@@ -420,8 +420,8 @@ public class Station extends StationSet {
         return floorExecutorService;
     }
 
-    public void setFloorExecutorService(int threads) {
-        this.floorExecutorService = Executors.newFixedThreadPool(threads);
+    public void setFloorExecutorService(ExecutorService floorExecutorService) {
+        this.floorExecutorService = floorExecutorService;
     }
 
     public HashMap<StationGate, List<Passenger>> getPassengerBacklogs() {
@@ -517,7 +517,7 @@ public class Station extends StationSet {
             try {
                 // Prepare the path where the station layout may be found
                 String stationLayoutPath
-                        = this.station.getStationPath() + "\\run\\"
+                        = this.station.getStationPath() + File.separator + "run" + File.separator
                         + this.station.getName()
                         + com.crowdsimulation.model.core.environment.station.Station.STATION_LAYOUT_FILE_EXTENSION;
 
@@ -533,8 +533,11 @@ public class Station extends StationSet {
                 // Then set its parent
                 this.station.setStationLayout(station);
 
-                // Set the thread pool of this station with the number of threads as the number of floors in the station
-                this.station.setFloorExecutorService(station.getFloors().size());
+                // Have the floors of this station run in the worker threads of the simulator (or one at a time, in the
+                // deterministic mode)
+                this.station.setFloorExecutorService(
+                        this.station.getTrainSystem().getSimulator().getTickScheduler().getFloorExecutorService()
+                );
 
                 System.out.println("Successfully loaded " + stationLayoutFile.getName());
             } catch (Exception ex) {
@@ -1,8 +1,6 @@
 package com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset;
 
 import com.crowdsimulation.model.core.agent.passenger.movement.PassengerMovement;
-import com.trainsimulation.controller.Main;
-import com.trainsimulation.controller.screen.MainScreenController;
 import com.trainsimulation.model.core.agent.Agent;
 import com.trainsimulation.model.core.environment.TrainSystem;
 import com.trainsimulation.model.core.environment.infrastructure.track.Segment;
@@ -14,6 +12,7 @@ import com.trainsimulation.model.db.DatabaseQueries;
 import com.trainsimulation.model.db.entity.TrainCarriagesEntity;
 import com.trainsimulation.model.db.entity.TrainsEntity;
 import com.trainsimulation.model.simulator.Simulator;
+import com.trainsimulation.model.simulator.setup.Scenario;
 import com.trainsimulation.model.utility.TrainMovement;
 
 import java.util.ArrayList;
@@ -34,6 +33,9 @@ public class Train extends TrainSet implements Agent {
     // Contains a summarized representation of this train (for table tracking purposes)
     private TrainProperty trainProperty;
 
+    // Denotes what this train is currently doing
+    private volatile TrainState trainState;
+
     public Train(TrainSystem trainSystem, TrainsEntity trainsEntity) {
         super(trainSystem, trainsEntity.getId());
 
@@ -48,7 +50,7 @@ public class Train extends TrainSet implements Agent {
 
         // Get the carriages associated with this train
         List<TrainCarriagesEntity> trainCarriagesEntities = DatabaseQueries.getTrainCarriages(
-                Main.simulator.getDatabaseInterface(), this);
+                this.getTrainSystem().getSimulator().getDatabaseInterface(), this);
 
         // Add the train carriages
         Integer maxVelocity = null;
@@ -110,67 +112,61 @@ public class Train extends TrainSet implements Agent {
         this.trainProperty = trainProperty;
     }
 
-    @Override
-    public void run() {
-        try {
-            // Originate the train from the depot belonging to the train system where this train belongs to
-            Depot depot = this.getTrainSystem().getDepot();
-            Segment outgoingDepotSegment = depot.getPlatforms().get(Track.Direction.NORTHBOUND)
-                    .getPlatformHub().getPlatformSegment();
+    public TrainState getTrainState() {
+        return trainState;
+    }
 
-            this.trainMovement.setTrainAtSegment(outgoingDepotSegment, CARRIAGE_GAP);
+    public void setTrainState(TrainState trainState) {
+        this.trainState = trainState;
+    }
 
-            // Take note of the actions made
-            TrainMovement.TrainAction trainAction;
+    // Have this train decide what it should do at the current tick
+    // Deciding only reads the positions of the other trains (which are not modified until every train has decided), so
+    // all trains may decide in parallel
+    public void decide() {
+        if (this.trainState == TrainState.RUNNING) {
+            this.trainMovement.decide();
+        }
+    }
 
-            // Get the segment that leads out of the depot
-            Segment outsideDepotSegment = outgoingDepotSegment.getTo().getOutSegment(Track.Direction.DEPOT_OUT);
+    // Return true if this train is waiting at a station or at the end of the line, in which case it does nothing
+    // until the tick it is due to leave
+    public boolean isWaiting() {
+        return this.trainState == TrainState.WAITING_AT_STATION || this.trainState == TrainState.WAITING_AT_END;
+    }
 
-            // Then get the segment after that (the first segment of the main line after the segment that leads out of
-            // the depot)
-            // NOTE: This is only possible when the junction that the segment that leads out of the depot leads to only
-            // has one outsegment
-            Segment firstMainlineSegment = outsideDepotSegment.getTo().getOutSegments().values().iterator().next();
+    // Have this train wait for the given waiting time (s), counting the current tick, by having it woken up at the tick
+    // it is due to leave
+    // Return true if the train still needs to wait
+    // Else, return false
+    private boolean waitFor(int waitingTime) {
+        if (waitingTime <= 1) {
+            return false;
+        }
 
-            // Get the very first direction of the train
-            Track.Direction firstDirection = firstMainlineSegment.getDirection();
+        final long wakeTick = this.getTrainSystem().getSimulator().getTime().getTick() + waitingTime - 1;
 
-            // Set the direction of this train based on the first direction
-            this.getTrainMovement().setDesiredDirection(firstDirection);
-            this.getTrainMovement().setActualDirection(firstDirection);
+        this.trainMovement.setWakeTick(wakeTick);
+        this.getTrainSystem().getTrainWakeUps().schedule(wakeTick, this);
 
-            // Prepare the directions of the train, based on its assigned station stops and the first direction
-            this.getTrainMovement().generateDirectionsToNextStation(firstDirection);
+        return true;
+    }
 
-            // Exit the depot, then keep moving until the simulation is done
-            // TODO: Trains should also go home when told to, or when it's past operating hours
-            while (!Main.simulator.getDone().get()) {
+    // Carry out what this train should do at the current tick
+    // This is called by the simulator for each train one after the other, and only once every train has decided, so
+    // no two trains will ever modify the tracks at the same time
+    @Override
+    public void run() {
+        switch (this.trainState) {
+            case DEPLOYING:
+                // Try to originate the train from the depot
+                enterMainline();
+
+                break;
+            case RUNNING:
                 // Move until it is commanded otherwise (when it stops for a station or to avoid colliding with another
-                // train, or when it stops because of a signal), or until the simulation is done
-                do {
-                    synchronized (Simulator.tickLock) {
-                        Simulator.tickLock.wait();
-                    }
-
-                    // Take note of the action command
-                    trainAction = this.trainMovement.move();
-
-//                    // TODO: Move to own loop
-//                    // Redraw the station view
-//                    GraphicsController.requestDrawStationView(
-//                            MainScreenController.getActiveSimulationContext().getStationViewCanvases(),
-//                            MainScreenController.getActiveSimulationContext().getCurrentStation(),
-//                            MainScreenController.getActiveSimulationContext().getStationScaleDownFactor(),
-//                            false
-//                    );
-
-                    // Update the summary
-                    this.trainProperty.updateTrainProperty(this.identifier, this.trainMovement, this.trainCarriages
-                            .getFirst());
-
-                    // Pause the thread
-//                    Thread.sleep(SimulationTime.SLEEP_TIME_MILLISECONDS.get());
-                } while (trainAction == TrainMovement.TrainAction.PROCEED && !Main.simulator.getDone().get());
+                // train, or when it stops because of a signal)
+                TrainMovement.TrainAction trainAction = this.trainMovement.move();
 
                 // Do the specified actions (headway and signal stops do not have any explicit actions)
                 switch (trainAction) {
@@ -179,43 +175,12 @@ public class Train extends TrainSet implements Agent {
                         this.trainMovement.setEditable(true);
 
                         // Wait in the end for the specified amount of time
-                        while (this.trainMovement.waitAtEnd() && !Main.simulator.getDone().get()) {
-                            synchronized (Simulator.tickLock) {
-                                Simulator.tickLock.wait();
-                            }
-
-                            // Pause the thread
-//                            Thread.sleep(SimulationTime.SLEEP_TIME_MILLISECONDS.get());
-                        }
+                        this.trainState = TrainState.WAITING_AT_END;
 
-                        // Close the window for the train to be edited
-                        this.trainMovement.setEditable(false);
-
-                        // If the train has been deactivated at this point, scrub the previous directions and head
-                        // home to the depot instead
-                        if (!this.trainMovement.isActive()) {
-                            // Clear the stations list
-                            this.trainMovement.getStationQueue().setNewStations(
-                                    new ArrayList<>(),
-                                    !this.trainMovement.isTowardsNearEnd()
-                            );
-
-                            // Generate directions to the depot
-                            this.trainMovement.generateDirectionsToDepot();
-                        } else if (this.trainMovement.isStationListEdited()) {
-                            // Or if the train has had its station list edited at this point, re-generate the directions
-                            // list based on the new stations list
-                            this.getTrainMovement().setStationListEdited(false);
-
-                            // Generate the directions based on the new station list
-                            this.trainMovement.generateDirectionsToNextStation(
-                                    this.getTrainMovement().getDesiredDirection()
-                            );
+                        if (!waitFor(this.trainMovement.getEndWaitingTime())) {
+                            leaveEnd();
                         }
 
-                        // Switch directions
-                        this.trainMovement.switchDirection();
-
                         break;
                     case STATION_STOP:
                         // Snap the train flush to its segment in the station
@@ -226,79 +191,164 @@ public class Train extends TrainSet implements Agent {
                         );
 
                         // Wait in the station for the specified amount of time
-                        while (this.trainMovement.waitAtStation() && !Main.simulator.getDone().get()) {
-                            synchronized (Simulator.tickLock) {
-                                Simulator.tickLock.wait();
-                            }
-
-                            // If the train has been deactivated while waiting at a station, this will serve as the
-                            // train's final station stop
-                            // TODO: Maybe extend the waiting time to account for passengers disembarking?
-                            if (!this.getTrainMovement().isActive()) {
-                                this.getTrainMovement().setDisembarkedWhenRemoved(true);
-                            }
-
-                            // Pause the thread
-//                            Thread.sleep(SimulationTime.SLEEP_TIME_MILLISECONDS.get());
-                        }
+                        this.trainState = TrainState.WAITING_AT_STATION;
 
-                        // Remove this station from the station list, as the the train is already here
-                        this.trainMovement.getStationQueue().pop();
-
-                        // Before anything else, check if there are any stations left in the station queue
-                        // If there aren't any stations left, it means the train has already covered all necessary
-                        // stations, and it is time to regenerate the station queue in reverse order
-                        if (this.trainMovement.getStationQueue().isEmpty()) {
-                            // Update the station list, as it has run out
-                            this.trainMovement.getStationQueue().reverseStations(
-                                    !this.trainMovement.isTowardsNearEnd()
-                            );
-
-                            // Reverse the intended direction of the train
-                            this.getTrainMovement().setDesiredDirection(
-                                    Track.opposite(this.getTrainMovement().getDesiredDirection())
-                            );
+                        if (!waitFor(this.trainMovement.getWaitingTime())) {
+                            leaveStation();
                         }
 
-                        // Update the directions to the next station
-                        this.trainMovement.generateDirectionsToNextStation(
-                                this.getTrainMovement().getDesiredDirection()
-                        );
-
                         break;
+                    case DEPOT_STOP:
+                        // The train has reached the home depot after being deactivated, so it is now ready to despawn
+                        this.pullOut(this.getTrainSystem().getActiveTrains(), this.getTrainSystem().getInactiveTrains());
+
+                        return;
                 }
 
-                // Finally, check if the train has reached the home depot
-                // If it has, then the train is now ready to despawn
-                if (!this.getTrainMovement().isActive() && trainAction == TrainMovement.TrainAction.DEPOT_STOP) {
-                    this.pullOut(this.getTrainSystem().getActiveTrains(), this.getTrainSystem().getInactiveTrains());
+                break;
+            case WAITING_AT_STATION:
+                // Keep waiting until the train is due to leave
+                if (this.trainMovement.getWakeTick() > this.getTrainSystem().getSimulator().getTime().getTick()) {
+                    return;
+                }
 
-                    break;
+                // If the train has been deactivated while waiting at a station, this will serve as the train's final
+                // station stop
+                // TODO: Maybe extend the waiting time to account for passengers disembarking?
+                if (!this.getTrainMovement().isActive()) {
+                    this.getTrainMovement().setDisembarkedWhenRemoved(true);
                 }
 
-                // Update the summary
-                // TODO: Include train action in properties
-                this.trainProperty.updateTrainProperty(this.identifier, this.trainMovement, this.trainCarriages
-                        .getFirst());
-            }
-        } catch (InterruptedException ex) {
-            ex.printStackTrace();
+                leaveStation();
+
+                break;
+            case WAITING_AT_END:
+                // Keep waiting until the train is due to leave
+                if (this.trainMovement.getWakeTick() > this.getTrainSystem().getSimulator().getTime().getTick()) {
+                    return;
+                }
+
+                leaveEnd();
+
+                break;
         }
+
+        // Update the summary
+        // TODO: Include train action in properties
+        this.trainProperty.updateTrainProperty(this.identifier, this.trainMovement, this.trainCarriages.getFirst());
+    }
+
+    // Set the train on the tracks leading out of the depot, if those tracks are clear
+    private void enterMainline() {
+        // Originate the train from the depot belonging to the train system where this train belongs to
+        Depot depot = this.getTrainSystem().getDepot();
+        Segment outgoingDepotSegment = depot.getPlatforms().get(Track.Direction.NORTHBOUND)
+                .getPlatformHub().getPlatformSegment();
+
+        // Wait until the segment is free of the trains previously there
+        if (!this.trainMovement.setTrainAtSegment(outgoingDepotSegment, CARRIAGE_GAP)) {
+            return;
+        }
+
+        // Get the segment that leads out of the depot
+        Segment outsideDepotSegment = outgoingDepotSegment.getTo().getOutSegment(Track.Direction.DEPOT_OUT);
+
+        // Then get the segment after that (the first segment of the main line after the segment that leads out of
+        // the depot)
+        // NOTE: This is only possible when the junction that the segment that leads out of the depot leads to only
+        // has one outsegment
+        Segment firstMainlineSegment = outsideDepotSegment.getTo().getOutSegments().values().iterator().next();
+
+        // Get the very first direction of the train
+        Track.Direction firstDirection = firstMainlineSegment.getDirection();
+
+        // Set the direction of this train based on the first direction
+        this.getTrainMovement().setDesiredDirection(firstDirection);
+        this.getTrainMovement().setActualDirection(firstDirection);
+
+        // Prepare the directions of the train, based on its assigned station stops and the first direction
+        this.getTrainMovement().generateDirectionsToNextStation(firstDirection);
+
+        // Exit the depot starting from the next tick
+        // TODO: Trains should also go home when told to, or when it's past operating hours
+        this.trainState = TrainState.RUNNING;
+    }
+
+    // Have the train resume moving after it has waited at the end of the line
+    private void leaveEnd() {
+        // Close the window for the train to be edited
+        this.trainMovement.setEditable(false);
+
+        // If the train has been deactivated at this point, scrub the previous directions and head home to the depot
+        // instead
+        if (!this.trainMovement.isActive()) {
+            // Clear the stations list
+            this.trainMovement.getStationQueue().setNewStations(
+                    new ArrayList<>(),
+                    !this.trainMovement.isTowardsNearEnd()
+            );
+
+            // Generate directions to the depot
+            this.trainMovement.generateDirectionsToDepot();
+        } else if (this.trainMovement.isStationListEdited()) {
+            // Or if the train has had its station list edited at this point, re-generate the directions list based on
+            // the new stations list
+            this.getTrainMovement().setStationListEdited(false);
+
+            // Generate the directions based on the new station list
+            this.trainMovement.generateDirectionsToNextStation(
+                    this.getTrainMovement().getDesiredDirection()
+            );
+        }
+
+        // Switch directions
+        this.trainMovement.switchDirection();
+
+        this.trainState = TrainState.RUNNING;
+    }
+
+    // Have the train resume moving after it has waited at a station
+    private void leaveStation() {
+        // Remove this station from the station list, as the the train is already here
+        this.trainMovement.getStationQueue().pop();
+
+        // Before anything else, check if there are any stations left in the station queue
+        // If there aren't any stations left, it means the train has already covered all necessary stations, and it is
+        // time to regenerate the station queue in reverse order
+        if (this.trainMovement.getStationQueue().isEmpty()) {
+            // Update the station list, as it has run out
+            this.trainMovement.getStationQueue().reverseStations(
+                    !this.trainMovement.isTowardsNearEnd()
+            );
+
+            // Reverse the intended direction of the train
+            this.getTrainMovement().setDesiredDirection(
+                    Track.opposite(this.getTrainMovement().getDesiredDirection())
+            );
+        }
+
+        // Update the directions to the next station
+        this.trainMovement.generateDirectionsToNextStation(
+                this.getTrainMovement().getDesiredDirection()
+        );
+
+        this.trainState = TrainState.RUNNING;
     }
 
     // Deploy a train
     public void deploy(List<Train> activeTrains, List<Train> inactiveTrains) {
+        // Set the train status to active
+        this.getTrainMovement().setActive(true);
+
+        // Have the train wait to be set on the tracks leading out of the depot
+        this.trainState = TrainState.DEPLOYING;
+
         // Remove this train from the list of inactive trains
         inactiveTrains.remove(this);
 
-        // Add this train to the list of active trains
+        // Finally, add this train to the list of active trains, so the simulator will move it starting from the next
+        // tick
         activeTrains.add(this);
-
-        // Set the train status to active
-        this.getTrainMovement().setActive(true);
-
-        // Finally, start the train thread
-        new Thread(this).start();
     }
 
     // Pull a train out of the system
@@ -323,12 +373,11 @@ public class Train extends TrainSet implements Agent {
         // Reset the train to its default settings
         this.resetTrain();
 
-        // Enable the insert train button
-        MainScreenController.ARM_ADD_TRAIN_BUTTON.release();
+        // Allow another train to be deployed
+        this.getTrainSystem().getTrainDeploymentSemaphore().release();
 
-        // Update the UI elements
-        Main.mainScreenController.requestUpdateUI(MainScreenController.getActiveSimulationContext().getTrainSystem(),
-                false);
+        // Update the observer of the simulation, if any
+        this.getTrainSystem().getSimulator().notifyTrainPulledOut(this.getTrainSystem());
     }
 
     // Set the train to this station
@@ -404,7 +453,9 @@ public class Train extends TrainSet implements Agent {
         final int passengersOnPlatformLimit = 500;
         passengersAtPlatform = Math.min(passengersAtPlatform, passengersOnPlatformLimit);
 
-        double newWaitingTime = 0.03832 * passengersAtPlatform + 11.14;
+        Scenario scenario = this.getTrainSystem().getSimulator().getScenario();
+
+        double newWaitingTime = scenario.getDwellTimeSlope() * passengersAtPlatform + scenario.getDwellTimeIntercept();
 
         this.trainMovement.setWaitingTime((int) Math.round(newWaitingTime));
 
@@ -433,6 +484,14 @@ public class Train extends TrainSet implements Agent {
         );
 
         // Have the train log
-        Simulator.logTrain(this, Main.simulator.getTime().getTime());
+        Simulator.logTrain(this, this.getTrainSystem().getSimulator().getTime());
+    }
+
+    // Represents the possible states of the train from one tick to the next
+    public enum TrainState {
+        DEPLOYING, // The train is waiting for the tracks leading out of the depot to be clear
+        RUNNING, // The train is moving (or is stopped because of a train or a signal in front of it)
+        WAITING_AT_STATION, // The train is waiting at a station
+        WAITING_AT_END, // The train is waiting at the end of the line
     }
 }
@@ -10,7 +10,17 @@ public class DatabaseInterface {
     private final SessionFactory sessionFactory;
 
     public DatabaseInterface() throws Throwable {
-        this.sessionFactory = new Configuration().configure().buildSessionFactory();
+        Configuration configuration = new Configuration().configure();
+
+        // Allow the location of the database to be overridden through the "trainsimulation.database.url" system
+        // property, e.g., when running headless on another machine
+        String databaseUrl = System.getProperty("trainsimulation.database.url");
+
+        if (databaseUrl != null) {
+            configuration.setProperty("hibernate.connection.url", databaseUrl);
+        }
+
+        this.sessionFactory = configuration.buildSessionFactory();
     }
 
     public SessionFactory getSessionFactory() {
@@ -0,0 +1,286 @@
+package com.trainsimulation.model.simulator;
+
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Runs a batch of simulations, each in its own simulator with its own copy of a scenario, with a bounded number of
+// simulators running at the same time, then collects the metrics of each train system at the end of each run
+// A failing run does not stop the rest of the batch; it is kept as a failed result, and is saved as a failed row keyed
+// the same way as the runs which are done, so no run ever goes missing from the results
+public class BatchRunner {
+    // Denotes the metrics collected from each train system at the end of each run
+    public static final String[] METRICS = {
+            "SPAWNED",
+            "COMPLETED",
+            "STILL_IN_SYSTEM",
+            "TRAIN_DEPARTURES",
+            "MEAN_SECONDS_ALIVE"
+    };
+
+    // Denotes the status of a run which is done
+    public static final String DONE = "DONE";
+
+    // Denotes the status of a run which has failed
+    public static final String FAILED = "FAILED";
+
+    // Denotes the database interface shared by all runs
+    private final DatabaseInterface databaseInterface;
+
+    // Denotes the number of runs to be run at the same time
+    private final int parallelism;
+
+    // Denotes the directory where the outputs of the runs are saved
+    private final String outputDirectory;
+
+    // Denotes what each run is called, in the names of their log directories and in their progress messages
+    private final String runName;
+
+    public BatchRunner(DatabaseInterface databaseInterface, int parallelism, String outputDirectory, String runName) {
+        this.databaseInterface = databaseInterface;
+        this.parallelism = parallelism;
+        this.outputDirectory = outputDirectory;
+        this.runName = runName;
+    }
+
+    public String getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    // Run each of the given scenarios in its own simulator, set up by the given setup, then return the results of all
+    // runs in the order of their scenarios
+    public List<RunResult> run(List<Scenario> scenarios, RunSetup runSetup) throws Throwable {
+        new File(this.outputDirectory).mkdirs();
+
+        // Split the processors among the runs going at the same time
+        final int workerThreads = Math.max(1, Simulator.NUM_CPUS / this.parallelism);
+
+        final ExecutorService runExecutorService = Executors.newFixedThreadPool(this.parallelism);
+
+        List<RunTask> runTasks = new ArrayList<>();
+
+        for (int index = 0; index < scenarios.size(); index++) {
+            // Give each run its own log directory
+            Scenario runScenario = new Scenario(scenarios.get(index));
+
+            runScenario.setWorkerThreads(workerThreads);
+            runScenario.setLogDirectory(this.outputDirectory + File.separator + this.runName + "_" + index);
+
+            runTasks.add(new RunTask(index, runScenario, runSetup));
+        }
+
+        List<RunResult> runResults = new ArrayList<>();
+
+        try {
+            for (Future<RunResult> future : runExecutorService.invokeAll(runTasks)) {
+                runResults.add(future.get());
+            }
+        } catch (ExecutionException ex) {
+            throw ex.getCause();
+        } finally {
+            runExecutorService.shutdown();
+        }
+
+        int failedRuns = 0;
+
+        for (RunResult runResult : runResults) {
+            if (runResult.isFailed()) {
+                failedRuns++;
+            }
+        }
+
+        if (failedRuns > 0) {
+            System.out.println(failedRuns + " of " + runResults.size() + " runs failed");
+        }
+
+        return runResults;
+    }
+
+    // Collect the metrics of a train system at the end of a run
+    static double[] collectMetrics(TrainSystem trainSystem) {
+        // Get the mean number of seconds each passenger who completed a trip was alive
+        double totalSecondsAlive = 0.0;
+
+        synchronized (trainSystem.getPassengerLogs()) {
+            for (String log : trainSystem.getPassengerLogs()) {
+                // The total seconds alive is the last column of the passenger logs
+                totalSecondsAlive += Double.parseDouble(log.substring(log.lastIndexOf(',') + 1));
+            }
+        }
+
+        int completed = trainSystem.getPassengerLogs().size();
+
+        return new double[]{
+                trainSystem.getSpawnedPassengerCount(),
+                completed,
+                trainSystem.getPassengers().size(),
+                trainSystem.getTrainLogs().size(),
+                completed > 0 ? totalSecondsAlive / completed : 0.0
+        };
+    }
+
+    // Save the metrics of each train system of each run into a file in the output directory, keyed by the given
+    // columns, whose values for each run are given by the given function
+    // A failed run is saved as a single row with its keys and its status, and without any train system or metrics
+    public void saveResults(
+            List<RunResult> runResults,
+            String fileName,
+            String[] keyColumns,
+            Function<RunResult, Object[]> keyValues
+    ) {
+        final String filePath = this.outputDirectory + File.separator + fileName;
+
+        try (PrintWriter printWriter = new PrintWriter(filePath)) {
+            StringBuilder stringBuilder = new StringBuilder();
+
+            for (String keyColumn : keyColumns) {
+                stringBuilder.append(keyColumn).append(",");
+            }
+
+            stringBuilder.append("STATUS,TRAIN_SYSTEM");
+
+            for (String metric : METRICS) {
+                stringBuilder.append(",").append(metric);
+            }
+
+            stringBuilder.append("\n");
+
+            for (RunResult runResult : runResults) {
+                StringBuilder keys = new StringBuilder();
+
+                for (Object keyValue : keyValues.apply(runResult)) {
+                    keys.append(keyValue != null ? keyValue : "").append(",");
+                }
+
+                if (runResult.isFailed()) {
+                    stringBuilder.append(keys).append(FAILED).append(",");
+
+                    for (int metricIndex = 0; metricIndex < METRICS.length; metricIndex++) {
+                        stringBuilder.append(",");
+                    }
+
+                    stringBuilder.append("\n");
+
+                    continue;
+                }
+
+                for (Map.Entry<String, double[]> entry : runResult.getMetrics().entrySet()) {
+                    stringBuilder.append(keys).append(DONE).append(",");
+                    stringBuilder.append(entry.getKey());
+
+                    for (double value : entry.getValue()) {
+                        stringBuilder.append(",").append(value);
+                    }
+
+                    stringBuilder.append("\n");
+                }
+            }
+
+            printWriter.write(stringBuilder.toString());
+        } catch (FileNotFoundException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // Sets up the simulator of a run with the scenario of the run, short of running it
+    public interface RunSetup {
+        void setUp(Simulator simulator, int index, Scenario scenario) throws Exception;
+    }
+
+    // Contains the results of a single run
+    public static class RunResult {
+        // Denotes the index of the run in the batch
+        private final int index;
+
+        // Denotes the scenario the run was set up with
+        private final Scenario scenario;
+
+        // Contains the metrics (in the order of the metrics list) of each train system, by name (null if the run has
+        // failed)
+        private final Map<String, double[]> metrics;
+
+        // Denotes why the run has failed (null if it is done)
+        private final Exception failure;
+
+        public RunResult(int index, Scenario scenario, Map<String, double[]> metrics, Exception failure) {
+            this.index = index;
+            this.scenario = scenario;
+            this.metrics = metrics;
+            this.failure = failure;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        public Map<String, double[]> getMetrics() {
+            return metrics;
+        }
+
+        public Exception getFailure() {
+            return failure;
+        }
+
+        public boolean isFailed() {
+            return failure != null;
+        }
+    }
+
+    // Runs a single scenario in its own simulator
+    private class RunTask implements Callable<RunResult> {
+        private final int index;
+        private final Scenario scenario;
+        private final RunSetup runSetup;
+
+        public RunTask(int index, Scenario scenario, RunSetup runSetup) {
+            this.index = index;
+            this.scenario = scenario;
+            this.runSetup = runSetup;
+        }
+
+        @Override
+        public RunResult call() {
+            Map<String, double[]> metrics = new LinkedHashMap<>();
+
+            // Close the simulator once its metrics have been collected, so its threads do not outlive it
+            try (Simulator simulator = new Simulator(BatchRunner.this.databaseInterface)) {
+                this.runSetup.setUp(simulator, this.index, this.scenario);
+
+                // Run the scenario until it is done
+                simulator.runToCompletion();
+
+                for (TrainSystem trainSystem : simulator.getTrainSystems()) {
+                    metrics.put(trainSystem.getTrainSystemInformation().getName(), collectMetrics(trainSystem));
+                }
+            } catch (Exception ex) {
+                ex.printStackTrace();
+
+                System.out.println("Run " + BatchRunner.this.runName + "_" + this.index + " failed");
+
+                return new RunResult(this.index, this.scenario, null, ex);
+            }
+
+            System.out.println("Run " + BatchRunner.this.runName + "_" + this.index + " done");
+
+            return new RunResult(this.index, this.scenario, metrics, null);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.trainsimulation.model.simulator;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// An executor which runs each task right away in the thread which hands it over, one task at a time
+// This is given to the crowd simulation in the deterministic mode, so the floors of a station are always updated in
+// the same order
+public class DirectExecutorService extends AbstractExecutorService {
+    // Denotes whether this executor has been shut down
+    private volatile boolean shutdown;
+
+    public DirectExecutorService() {
+        this.shutdown = false;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+    }
+
+    // There are never any tasks waiting to be run
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+
+        return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    // Every task has already been run by the time it has been handed over
+    @Override
+    public boolean isTerminated() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return shutdown;
+    }
+}
@@ -0,0 +1,310 @@
+package com.trainsimulation.model.simulator;
+
+import com.crowdsimulation.model.core.agent.passenger.Passenger;
+import com.trainsimulation.model.core.environment.TrainSystem;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Logs and draws each tick of the simulation while the simulation is already running the ticks after it
+// Whatever is to be observed during a tick is recorded as it happens, then taken as a snapshot at the end of the tick
+// and handed over to a thread of its own, which formats the logs and notifies the observer of the simulation (if any)
+// The simulation may only run ahead of this thread by a bounded number of ticks; once it is that far ahead, it waits
+// for this thread to catch up, so the snapshots waiting to be observed never pile up
+public class ObservationPipeline {
+    // Denotes the simulator being observed
+    private final Simulator simulator;
+
+    // Contains the snapshots waiting to be observed (null if each snapshot is observed as soon as it is taken)
+    private final BlockingQueue<ObservationSnapshot> snapshots;
+
+    // Denotes the thread observing the snapshots (null if each snapshot is observed as soon as it is taken)
+    private final Thread observationThread;
+
+    // Guards what has been recorded during the current tick
+    private final Object recordLock;
+
+    // Contains what has been recorded during the current tick
+    private Set<TrainSystem> movedTrainSystems;
+    private Set<TrainSystem> pulledOutTrainSystems;
+    private List<Passenger> despawnedPassengers;
+    private List<ObservationSnapshot.TrainDeparture> trainDepartures;
+    private List<ObservationSnapshot.StationObservation> stationObservations;
+
+    // Denotes the number of snapshots handed over to the observation thread, and the number it has observed
+    // Guarded by this pipeline
+    private long publishedSnapshots;
+    private long observedSnapshots;
+
+    // Denotes whether this pipeline has been shut down
+    private volatile boolean shutdown;
+
+    // The simulation may run ahead of the observation by up to the given number of ticks (0 if each tick is to be
+    // observed before the next one starts)
+    public ObservationPipeline(Simulator simulator, int lag) {
+        this.simulator = simulator;
+
+        this.recordLock = new Object();
+
+        clearRecords();
+
+        this.publishedSnapshots = 0;
+        this.observedSnapshots = 0;
+
+        this.shutdown = false;
+
+        if (lag > 0) {
+            this.snapshots = new ArrayBlockingQueue<>(lag);
+            this.observationThread = simulator.startHelperThread(this::observeSnapshots);
+        } else {
+            this.snapshots = null;
+            this.observationThread = null;
+        }
+    }
+
+    // Record that a train in the given train system has moved during the current tick
+    public void recordTrainMoved(TrainSystem trainSystem) {
+        synchronized (this.recordLock) {
+            this.movedTrainSystems.add(trainSystem);
+        }
+    }
+
+    // Record that a train has been pulled out of the given train system during the current tick
+    public void recordTrainPulledOut(TrainSystem trainSystem) {
+        synchronized (this.recordLock) {
+            this.pulledOutTrainSystems.add(trainSystem);
+        }
+    }
+
+    // Record that the given passenger has completed its trip during the current tick
+    public void recordDespawnedPassenger(Passenger passenger) {
+        synchronized (this.recordLock) {
+            this.despawnedPassengers.add(passenger);
+        }
+    }
+
+    // Record that a train has departed a station during the current tick
+    public void recordTrainDeparture(ObservationSnapshot.TrainDeparture trainDeparture) {
+        synchronized (this.recordLock) {
+            this.trainDepartures.add(trainDeparture);
+        }
+    }
+
+    // Record the state of a station due to be logged during the current tick
+    public void recordStationObservation(ObservationSnapshot.StationObservation stationObservation) {
+        synchronized (this.recordLock) {
+            this.stationObservations.add(stationObservation);
+        }
+    }
+
+    // Take a snapshot of what has been recorded during the tick which has just been processed, then have it observed
+    // This should only be called by the simulation thread, at the end of each tick; if the simulation is too far ahead
+    // of the observation, this waits until the observation catches up
+    public void publish(SimulationTime time, boolean render) throws InterruptedException {
+        final ObservationSnapshot snapshot;
+
+        synchronized (this.recordLock) {
+            // Skip the ticks in which there is nothing to observe
+            if (!render && this.movedTrainSystems.isEmpty() && this.pulledOutTrainSystems.isEmpty()
+                    && this.despawnedPassengers.isEmpty() && this.trainDepartures.isEmpty()
+                    && this.stationObservations.isEmpty()) {
+                return;
+            }
+
+            snapshot = new ObservationSnapshot(
+                    time.snapshot(),
+                    render,
+                    new ArrayList<>(this.movedTrainSystems),
+                    new ArrayList<>(this.pulledOutTrainSystems),
+                    this.despawnedPassengers,
+                    this.trainDepartures,
+                    this.stationObservations
+            );
+
+            clearRecords();
+        }
+
+        if (this.snapshots == null) {
+            observe(snapshot);
+
+            return;
+        }
+
+        synchronized (this) {
+            this.publishedSnapshots++;
+        }
+
+        this.snapshots.put(snapshot);
+    }
+
+    // Wait until every snapshot handed over so far has been observed (e.g., before the logs are saved)
+    public void drain() {
+        synchronized (this) {
+            while (this.observedSnapshots < this.publishedSnapshots && !this.shutdown) {
+                try {
+                    this.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+
+                    return;
+                }
+            }
+        }
+    }
+
+    // Stop observing, leaving whatever has not been observed yet as it is
+    public void shutdown() {
+        this.shutdown = true;
+
+        if (this.observationThread != null) {
+            this.observationThread.interrupt();
+        }
+
+        synchronized (this) {
+            this.notifyAll();
+        }
+    }
+
+    private void clearRecords() {
+        this.movedTrainSystems = new LinkedHashSet<>();
+        this.pulledOutTrainSystems = new LinkedHashSet<>();
+        this.despawnedPassengers = new ArrayList<>();
+        this.trainDepartures = new ArrayList<>();
+        this.stationObservations = new ArrayList<>();
+    }
+
+    // Keep observing the snapshots handed over, one at a time, in the order they were taken
+    private void observeSnapshots() {
+        while (!this.shutdown) {
+            ObservationSnapshot snapshot;
+
+            try {
+                snapshot = this.snapshots.take();
+            } catch (InterruptedException ex) {
+                break;
+            }
+
+            try {
+                observe(snapshot);
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+            }
+
+            synchronized (this) {
+                this.observedSnapshots++;
+                this.notifyAll();
+            }
+        }
+    }
+
+    // Log what has happened in the given snapshot, then tell the observer of the simulation, if any
+    private void observe(ObservationSnapshot snapshot) {
+        for (Passenger passenger : snapshot.getDespawnedPassengers()) {
+            logPassenger(passenger);
+        }
+
+        for (ObservationSnapshot.StationObservation stationObservation : snapshot.getStationObservations()) {
+            logStation(stationObservation);
+        }
+
+        for (ObservationSnapshot.TrainDeparture trainDeparture : snapshot.getTrainDepartures()) {
+            logTrain(trainDeparture);
+        }
+
+        SimulationObserver simulationObserver = this.simulator.getSimulationObserver();
+
+        if (simulationObserver == null) {
+            return;
+        }
+
+        for (TrainSystem trainSystem : snapshot.getMovedTrainSystems()) {
+            simulationObserver.onTrainMoved(trainSystem);
+        }
+
+        for (TrainSystem trainSystem : snapshot.getPulledOutTrainSystems()) {
+            simulationObserver.onTrainPulledOut(trainSystem);
+        }
+
+        if (snapshot.isRender()) {
+            simulationObserver.onTick(snapshot.getTime());
+        }
+    }
+
+    // Update passenger logs
+    private static void logPassenger(Passenger passengerToDespawn) {
+        // Add the passenger's information into the list of logs
+        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ISO_LOCAL_TIME;
+
+        String identifier = passengerToDespawn.getPassengerInformation().getIdentifier();
+        String gender = passengerToDespawn.getGender().toString();
+
+        String hasChosenFemaleOnlyCarriage = String.valueOf(
+                passengerToDespawn.getPassengerInformation().hasChosenFemaleOnlyCarriage()
+        );
+
+        String actualEntryTime
+                = passengerToDespawn.getPassengerTime().getTimeSpawned().format(dateTimeFormatter);
+        String entryStation = passengerToDespawn.getPassengerMovement().getRoutePlan().getOriginStation().getName();
+        String exitStation = passengerToDespawn.getPassengerMovement().getRoutePlan().getDestinationStation().getName();
+
+        String travelTime = String.valueOf(passengerToDespawn.getPassengerTime().getTravelTime());
+
+        String entranceTime = String.valueOf(passengerToDespawn.getPassengerTime().getPassedEntrance().getSeconds());
+        String securityTime = String.valueOf(passengerToDespawn.getPassengerTime().getPassedSecurity().getSeconds());
+        String tapInTime = String.valueOf(passengerToDespawn.getPassengerTime().getTappedInTurnstile().getSeconds());
+        String enterTrainTime = String.valueOf(passengerToDespawn.getPassengerTime().getEnteredTrain().getSeconds());
+        String exitTrainTime = String.valueOf(passengerToDespawn.getPassengerTime().getExitedTrain().getSeconds());
+        String tapOutTime = String.valueOf(passengerToDespawn.getPassengerTime().getTappedOutTurnstile().getSeconds());
+        String exitStationTime = String.valueOf(passengerToDespawn.getPassengerTime().getExitedStation().getSeconds());
+        String totalTicksAlive = String.valueOf(passengerToDespawn.getPassengerTime().getTicksAlive().getSeconds());
+
+        String logString
+                = identifier + "," + gender + "," + hasChosenFemaleOnlyCarriage + "," + actualEntryTime + ","
+                + entryStation + "," + exitStation + "," + travelTime + "," + entranceTime + "," + securityTime + ","
+                + tapInTime + "," + enterTrainTime + "," + exitTrainTime + "," + tapOutTime + "," + exitStationTime
+                + "," + totalTicksAlive;
+
+        // Log the trip in the train system where the passenger came from
+        List<String> passengerLogs = passengerToDespawn.getPassengerMovement().getRoutePlan().getOriginStation()
+                .getStation().getTrainSystem().getPassengerLogs();
+
+        synchronized (passengerLogs) {
+            passengerLogs.add(logString);
+        }
+    }
+
+    // Update station logs
+    private static void logStation(ObservationSnapshot.StationObservation stationObservation) {
+        String logString
+                = stationObservation.getStationName() + "," + new SimulationTime(stationObservation.getTick()) + ","
+                + stationObservation.getPassengersInStation() + ","
+                + stationObservation.getNorthOrWestBoundPassengers() + ","
+                + stationObservation.getSouthOrEastBoundPassengers() + ","
+                + stationObservation.getPassengersQueueingToEnter();
+
+        List<String> stationLogs = stationObservation.getTrainSystem().getStationLogs();
+
+        synchronized (stationLogs) {
+            stationLogs.add(logString);
+        }
+    }
+
+    // Update train logs
+    private static void logTrain(ObservationSnapshot.TrainDeparture trainDeparture) {
+        String logString
+                = new SimulationTime(trainDeparture.getTickDeparted()) + "," + trainDeparture.getTrainIdentifier()
+                + "," + trainDeparture.getStationRecentlyDeparted() + "," + trainDeparture.getTrainDirection() + ","
+                + trainDeparture.getLoadFactor().substring(0, 5);
+
+        List<String> trainLogs = trainDeparture.getTrainSystem().getTrainLogs();
+
+        synchronized (trainLogs) {
+            trainLogs.add(logString);
+        }
+    }
+}
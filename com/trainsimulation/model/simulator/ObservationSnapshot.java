@@ -0,0 +1,166 @@
+package com.trainsimulation.model.simulator;
+
+import com.crowdsimulation.model.core.agent.passenger.Passenger;
+import com.trainsimulation.model.core.environment.TrainSystem;
+
+import java.util.List;
+
+// Contains what there is to be observed of the simulation at the end of a tick (what is to be logged, and what is to be
+// drawn), so it may be logged and drawn while the next tick is already running
+// A snapshot only takes what is cheap to take (counts, names, and references to passengers who have left the
+// simulation and no longer change), and leaves the rest of the work (e.g., formatting the logs) to whoever consumes it
+public class ObservationSnapshot {
+    // Denotes the time of the tick this snapshot was taken at
+    private final SimulationTime time;
+
+    // Denotes whether the tick is to be drawn
+    private final boolean render;
+
+    // Contains the train systems where a train has moved, or has been pulled out, during the tick
+    private final List<TrainSystem> movedTrainSystems;
+    private final List<TrainSystem> pulledOutTrainSystems;
+
+    // Contains the passengers which have completed their trips during the tick
+    private final List<Passenger> despawnedPassengers;
+
+    // Contains the trains which have departed a station during the tick
+    private final List<TrainDeparture> trainDepartures;
+
+    // Contains the stations due to be logged at the tick
+    private final List<StationObservation> stationObservations;
+
+    public ObservationSnapshot(SimulationTime time, boolean render, List<TrainSystem> movedTrainSystems,
+                               List<TrainSystem> pulledOutTrainSystems, List<Passenger> despawnedPassengers,
+                               List<TrainDeparture> trainDepartures, List<StationObservation> stationObservations) {
+        this.time = time;
+        this.render = render;
+        this.movedTrainSystems = movedTrainSystems;
+        this.pulledOutTrainSystems = pulledOutTrainSystems;
+        this.despawnedPassengers = despawnedPassengers;
+        this.trainDepartures = trainDepartures;
+        this.stationObservations = stationObservations;
+    }
+
+    public SimulationTime getTime() {
+        return time;
+    }
+
+    public boolean isRender() {
+        return render;
+    }
+
+    public List<TrainSystem> getMovedTrainSystems() {
+        return movedTrainSystems;
+    }
+
+    public List<TrainSystem> getPulledOutTrainSystems() {
+        return pulledOutTrainSystems;
+    }
+
+    public List<Passenger> getDespawnedPassengers() {
+        return despawnedPassengers;
+    }
+
+    public List<TrainDeparture> getTrainDepartures() {
+        return trainDepartures;
+    }
+
+    public List<StationObservation> getStationObservations() {
+        return stationObservations;
+    }
+
+    // Represents a train departing a station, as it was when it departed
+    public static class TrainDeparture {
+        private final TrainSystem trainSystem;
+        private final long tickDeparted;
+        private final short trainIdentifier;
+        private final String stationRecentlyDeparted;
+        private final String trainDirection;
+        private final String loadFactor;
+
+        public TrainDeparture(TrainSystem trainSystem, long tickDeparted, short trainIdentifier,
+                              String stationRecentlyDeparted, String trainDirection, String loadFactor) {
+            this.trainSystem = trainSystem;
+            this.tickDeparted = tickDeparted;
+            this.trainIdentifier = trainIdentifier;
+            this.stationRecentlyDeparted = stationRecentlyDeparted;
+            this.trainDirection = trainDirection;
+            this.loadFactor = loadFactor;
+        }
+
+        public TrainSystem getTrainSystem() {
+            return trainSystem;
+        }
+
+        public long getTickDeparted() {
+            return tickDeparted;
+        }
+
+        public short getTrainIdentifier() {
+            return trainIdentifier;
+        }
+
+        public String getStationRecentlyDeparted() {
+            return stationRecentlyDeparted;
+        }
+
+        public String getTrainDirection() {
+            return trainDirection;
+        }
+
+        public String getLoadFactor() {
+            return loadFactor;
+        }
+    }
+
+    // Represents a station as it was when it was due to be logged
+    public static class StationObservation {
+        private final TrainSystem trainSystem;
+        private final String stationName;
+        private final long tick;
+        private final int passengersInStation;
+        private final int northOrWestBoundPassengers;
+        private final int southOrEastBoundPassengers;
+        private final int passengersQueueingToEnter;
+
+        public StationObservation(TrainSystem trainSystem, String stationName, long tick,
+                                  int passengersInStation, int northOrWestBoundPassengers,
+                                  int southOrEastBoundPassengers, int passengersQueueingToEnter) {
+            this.trainSystem = trainSystem;
+            this.stationName = stationName;
+            this.tick = tick;
+            this.passengersInStation = passengersInStation;
+            this.northOrWestBoundPassengers = northOrWestBoundPassengers;
+            this.southOrEastBoundPassengers = southOrEastBoundPassengers;
+            this.passengersQueueingToEnter = passengersQueueingToEnter;
+        }
+
+        public TrainSystem getTrainSystem() {
+            return trainSystem;
+        }
+
+        public String getStationName() {
+            return stationName;
+        }
+
+        public long getTick() {
+            return tick;
+        }
+
+        public int getPassengersInStation() {
+            return passengersInStation;
+        }
+
+        public int getNorthOrWestBoundPassengers() {
+            return northOrWestBoundPassengers;
+        }
+
+        public int getSouthOrEastBoundPassengers() {
+            return southOrEastBoundPassengers;
+        }
+
+        public int getPassengersQueueingToEnter() {
+            return passengersQueueingToEnter;
+        }
+    }
+}
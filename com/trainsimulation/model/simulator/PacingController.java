@@ -0,0 +1,189 @@
+package com.trainsimulation.model.simulator;
+
+// Paces the simulation so it runs at a requested number of simulated seconds per second of wall time (the real-time
+// factor), e.g., 1x, 10x, 60x, or as fast as possible
+// Every tick is given a deadline on a fixed schedule, and only the time left until that deadline is slept, so the cost
+// of the ticks themselves (and any oversleeping) does not make the pace drift
+// When the ticks cost more than the requested pace allows, the simulation is never skipped; instead, the simulation is
+// only drawn every now and then, and the schedule is restarted so the simulation does not rush to catch up afterwards
+public class PacingController {
+    // Denotes the real-time factor meaning that the simulation is to run as fast as possible
+    public static final double MAXIMUM_REAL_TIME_FACTOR = Double.POSITIVE_INFINITY;
+
+    // Denotes the number of nanoseconds in a second
+    private static final long NANOSECONDS_PER_SECOND = 1_000_000_000L;
+
+    // Denotes how long the simulation may fall behind its schedule before the schedule is restarted (ns)
+    private static final long MAXIMUM_LAG_NANOSECONDS = NANOSECONDS_PER_SECOND;
+
+    // Denotes how often the simulation is drawn while it is behind its schedule (ns)
+    private static final long BEHIND_RENDER_INTERVAL_NANOSECONDS = 100_000_000L;
+
+    // Denotes how long the achieved real-time factor is measured over before it is updated (ns)
+    private static final long MEASUREMENT_WINDOW_NANOSECONDS = NANOSECONDS_PER_SECOND;
+
+    // Denotes the requested real-time factor
+    private volatile double targetRealTimeFactor;
+
+    // Denotes the real-time factor the schedule was made for
+    private double scheduleRealTimeFactor;
+
+    // Denotes the time when the schedule started (ns)
+    private long scheduleStartNanoseconds;
+
+    // Denotes the number of ticks run since the schedule started
+    private long scheduleTicks;
+
+    // Denotes whether the last tick ended after its deadline
+    private boolean behindSchedule;
+
+    // Denotes the last time the simulation was drawn (ns)
+    private long lastRenderNanoseconds;
+
+    // Denotes the time when the current measurement window started (ns), and the number of ticks run since
+    private long windowStartNanoseconds;
+    private long windowTicks;
+
+    // Denotes the time when the last tick ended (or when the simulation was played) (ns)
+    private long lastTickNanoseconds;
+
+    // Denotes the number of ticks run and the wall time they took (ns), over all plays
+    private long runTicks;
+    private long runNanoseconds;
+
+    // Denotes the real-time factor achieved over the last measurement window
+    private volatile double achievedRealTimeFactor;
+
+    public PacingController(double targetRealTimeFactor) {
+        this.targetRealTimeFactor = targetRealTimeFactor;
+        this.achievedRealTimeFactor = 0.0;
+        this.runTicks = 0;
+        this.runNanoseconds = 0;
+    }
+
+    public double getTargetRealTimeFactor() {
+        return targetRealTimeFactor;
+    }
+
+    // The requested real-time factor may be changed while the simulation is running (e.g., through the speed slider)
+    public void setTargetRealTimeFactor(double targetRealTimeFactor) {
+        this.targetRealTimeFactor = targetRealTimeFactor;
+    }
+
+    // Get the wall time each tick is meant to take at the requested pace (ms), which is zero when running as fast as
+    // possible
+    public double getTargetTickMilliseconds() {
+        return 1000.0 / this.targetRealTimeFactor;
+    }
+
+    public double getAchievedRealTimeFactor() {
+        return achievedRealTimeFactor;
+    }
+
+    // Get the real-time factor achieved over the whole run so far, not counting the time the simulation was paused
+    public double getAverageRealTimeFactor() {
+        return this.runNanoseconds > 0 ? (double) this.runTicks * NANOSECONDS_PER_SECOND / this.runNanoseconds : 0.0;
+    }
+
+    // Start a new schedule, as when the simulation is played (or played again after being paused)
+    public void start() {
+        final long nowNanoseconds = System.nanoTime();
+
+        restartSchedule(this.targetRealTimeFactor, nowNanoseconds);
+
+        this.behindSchedule = false;
+        this.lastRenderNanoseconds = nowNanoseconds;
+
+        this.windowStartNanoseconds = nowNanoseconds;
+        this.windowTicks = 0;
+
+        this.lastTickNanoseconds = nowNanoseconds;
+    }
+
+    // Return true if the tick which has just been run should be drawn
+    // Every tick is drawn while the simulation keeps up with its schedule; otherwise, it is only drawn every now and
+    // then, so drawing does not slow it down even further
+    public boolean shouldRender() {
+        final long nowNanoseconds = System.nanoTime();
+
+        if (!this.behindSchedule || nowNanoseconds - this.lastRenderNanoseconds >= BEHIND_RENDER_INTERVAL_NANOSECONDS) {
+            this.lastRenderNanoseconds = nowNanoseconds;
+
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    // Wait until the deadline of the tick which has just been run
+    public void pace() throws InterruptedException {
+        final long nowNanoseconds = System.nanoTime();
+
+        measure(nowNanoseconds);
+
+        final double targetRealTimeFactor = this.targetRealTimeFactor;
+
+        if (targetRealTimeFactor == MAXIMUM_REAL_TIME_FACTOR) {
+            this.behindSchedule = false;
+
+            return;
+        }
+
+        // Start a new schedule whenever the requested pace changes
+        if (targetRealTimeFactor != this.scheduleRealTimeFactor) {
+            restartSchedule(targetRealTimeFactor, nowNanoseconds);
+        }
+
+        this.scheduleTicks++;
+
+        final long deadlineNanoseconds = this.scheduleStartNanoseconds
+                + (long) (this.scheduleTicks * NANOSECONDS_PER_SECOND / targetRealTimeFactor);
+
+        final long remainingNanoseconds = deadlineNanoseconds - nowNanoseconds;
+
+        if (remainingNanoseconds > 0) {
+            this.behindSchedule = false;
+
+            Thread.sleep(remainingNanoseconds / 1_000_000L, (int) (remainingNanoseconds % 1_000_000L));
+        } else {
+            this.behindSchedule = true;
+
+            // If the simulation has fallen too far behind, give up on catching up
+            if (-remainingNanoseconds > MAXIMUM_LAG_NANOSECONDS) {
+                restartSchedule(targetRealTimeFactor, nowNanoseconds);
+            }
+        }
+    }
+
+    // Count ticks which have been skipped over (as nothing could have happened in them) as if they have been run, so
+    // they are paced and measured like the rest
+    public void skip(long ticks) {
+        this.windowTicks += ticks;
+        this.runTicks += ticks;
+        this.scheduleTicks += ticks;
+    }
+
+    // Count the tick which has just been run towards the achieved real-time factor
+    private void measure(long nowNanoseconds) {
+        this.windowTicks++;
+        this.runTicks++;
+
+        this.runNanoseconds += nowNanoseconds - this.lastTickNanoseconds;
+        this.lastTickNanoseconds = nowNanoseconds;
+
+        final long windowNanoseconds = nowNanoseconds - this.windowStartNanoseconds;
+
+        if (windowNanoseconds >= MEASUREMENT_WINDOW_NANOSECONDS) {
+            this.achievedRealTimeFactor = (double) this.windowTicks * NANOSECONDS_PER_SECOND / windowNanoseconds;
+
+            this.windowStartNanoseconds = nowNanoseconds;
+            this.windowTicks = 0;
+        }
+    }
+
+    private void restartSchedule(double realTimeFactor, long nowNanoseconds) {
+        this.scheduleRealTimeFactor = realTimeFactor;
+        this.scheduleStartNanoseconds = nowNanoseconds;
+        this.scheduleTicks = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.trainsimulation.model.simulator;
+
+import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs a list of scenarios with differing parameters, with a bounded number of simulators running at the same time
+public class ParameterSweep {
+    // Denotes the time when each scenario starts
+    private final SimulationTime startTime;
+
+    // Denotes the time when each scenario ends
+    private final SimulationTime endTime;
+
+    // Contains the scenarios to be run
+    private final List<Scenario> scenarios;
+
+    // Denotes the number of scenarios to be run at the same time
+    private final int parallelism;
+
+    // Denotes the directory where the outputs of the scenarios are saved
+    private final String outputDirectory;
+
+    public ParameterSweep(SimulationTime startTime, SimulationTime endTime, List<Scenario> scenarios, int parallelism,
+                          String outputDirectory) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.scenarios = scenarios;
+        this.parallelism = parallelism;
+        this.outputDirectory = outputDirectory;
+    }
+
+    // Create a scenario for every combination of the given parameter values, with the rest of the parameters taken from
+    // the given scenario
+    public static List<Scenario> grid(
+            Scenario baseScenario,
+            List<Integer> headwayDistances,
+            List<Integer> numbersOfTrains,
+            List<Double> dwellTimeSlopes,
+            List<Double> dwellTimeIntercepts,
+            List<Integer> endWaitingTimes
+    ) {
+        List<Scenario> scenarios = new ArrayList<>();
+
+        for (int headwayDistance : headwayDistances) {
+            for (int numberOfTrains : numbersOfTrains) {
+                for (double dwellTimeSlope : dwellTimeSlopes) {
+                    for (double dwellTimeIntercept : dwellTimeIntercepts) {
+                        for (int endWaitingTime : endWaitingTimes) {
+                            Scenario scenario = new Scenario(baseScenario);
+
+                            scenario.setHeadwayDistance(headwayDistance);
+                            scenario.setNumberOfTrains(numberOfTrains);
+                            scenario.setDwellTimeSlope(dwellTimeSlope);
+                            scenario.setDwellTimeIntercept(dwellTimeIntercept);
+                            scenario.setEndWaitingTime(endWaitingTime);
+
+                            scenarios.add(scenario);
+                        }
+                    }
+                }
+            }
+        }
+
+        return scenarios;
+    }
+
+    // Run all scenarios, then save the results of all scenarios into a single table, in which a failed scenario is
+    // kept as a failed row with its parameters
+    public List<BatchRunner.RunResult> run() throws Throwable {
+        // Connect to the database once for all scenarios
+        final BatchRunner batchRunner = new BatchRunner(
+                new DatabaseInterface(),
+                this.parallelism,
+                this.outputDirectory,
+                "scenario"
+        );
+
+        // Each scenario ticks its own copy of the starting time
+        List<BatchRunner.RunResult> sweepResults = batchRunner.run(
+                this.scenarios,
+                (simulator, index, scenario) -> simulator.setup(
+                        new SimulationTime(this.startTime),
+                        new SimulationTime(this.endTime),
+                        scenario
+                )
+        );
+
+        batchRunner.saveResults(
+                sweepResults,
+                "sweep_results.csv",
+                new String[]{
+                        "SCENARIO",
+                        "HEADWAY_DISTANCE",
+                        "NUMBER_OF_TRAINS",
+                        "DWELL_TIME_SLOPE",
+                        "DWELL_TIME_INTERCEPT",
+                        "END_WAITING_TIME",
+                        "SEED"
+                },
+                sweepResult -> new Object[]{
+                        sweepResult.getIndex(),
+                        sweepResult.getScenario().getHeadwayDistance(),
+                        sweepResult.getScenario().getNumberOfTrains(),
+                        sweepResult.getScenario().getDwellTimeSlope(),
+                        sweepResult.getScenario().getDwellTimeIntercept(),
+                        sweepResult.getScenario().getEndWaitingTime(),
+                        sweepResult.getScenario().getSeed()
+                }
+        );
+
+        return sweepResults;
+    }
+}
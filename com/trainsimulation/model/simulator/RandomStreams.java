@@ -0,0 +1,65 @@
+package com.trainsimulation.model.simulator;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hands out a random number generator of its own to each train of the simulation (for its dwell times), and to the
+// trips generated for each train system, so trains updated in parallel never draw from the same generator, and the
+// numbers drawn by one never depend on what the others have drawn
+// Whatever the crowd simulation draws within the stations is left to its own generators, which are out of reach
+// The seed of each stream is split off the master seed by hashing it together with the kind of entity, the train system
+// it belongs to, and its identifier, so the same entity always gets the same stream under the same master seed,
+// however many other entities there are and in whatever order they ask for their streams
+public class RandomStreams implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Denotes the seed all streams are split off from
+    private final long masterSeed;
+
+    // Contains the stream of each entity which has asked for one, by the seed it was split off with
+    private final Map<Long, Random> streams;
+
+    public RandomStreams(long masterSeed) {
+        this.masterSeed = masterSeed;
+        this.streams = new ConcurrentHashMap<>();
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    // Get the stream of the given entity, which is created the first time it is asked for
+    // Each stream should only ever be drawn from by its own entity
+    public Random getStream(EntityKind entityKind, String trainSystemName, long identifier) {
+        return this.streams.computeIfAbsent(
+                splitSeed(entityKind, trainSystemName, identifier),
+                Random::new
+        );
+    }
+
+    // Get the seed of the stream of the given entity
+    private long splitSeed(EntityKind entityKind, String trainSystemName, long identifier) {
+        long seed = mix(this.masterSeed + 0x9e3779b97f4a7c15L * (entityKind.ordinal() + 1));
+
+        seed = mix(seed ^ trainSystemName.hashCode());
+
+        return mix(seed ^ identifier);
+    }
+
+    // Scramble the bits of the given value (the finalizer of SplitMix64), so nearby values give unrelated seeds
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+
+        return value ^ (value >>> 31);
+    }
+
+    // The kinds of entities which may have streams of their own
+    public enum EntityKind {
+        TRAIN,
+        // The trips generated for a train system, rather than any entity of it
+        DEMAND
+    }
+}
@@ -0,0 +1,174 @@
+package com.trainsimulation.model.simulator;
+
+import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs several independent replications of the same scenario concurrently, each with its own seed
+// A failing replication is saved as a failed row of the results, and is left out of the summary
+public class ReplicationRunner {
+    // Denotes the z-score used for the 95% confidence intervals of the summary
+    private static final double Z_95 = 1.96;
+
+    // Denotes the time when each replication starts
+    private final SimulationTime startTime;
+
+    // Denotes the time when each replication ends
+    private final SimulationTime endTime;
+
+    // Denotes the scenario to be replicated
+    private final Scenario scenario;
+
+    // Denotes the number of replications to be run
+    private final int replications;
+
+    // Denotes the seed of the first replication (each succeeding replication uses the next seed)
+    private final long baseSeed;
+
+    // Denotes the number of replications to be run at the same time
+    private final int parallelism;
+
+    // Denotes the directory where the outputs of the replications are saved
+    private final String outputDirectory;
+
+    public ReplicationRunner(SimulationTime startTime, SimulationTime endTime, Scenario scenario, int replications,
+                             long baseSeed, int parallelism, String outputDirectory) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.scenario = scenario;
+        this.replications = replications;
+        this.baseSeed = baseSeed;
+        this.parallelism = parallelism;
+        this.outputDirectory = outputDirectory;
+    }
+
+    // Run all replications, then save the results of each replication and the summary of all replications
+    public List<BatchRunner.RunResult> run() throws Throwable {
+        // Connect to the database once for all replications
+        final BatchRunner batchRunner = new BatchRunner(
+                new DatabaseInterface(),
+                this.parallelism,
+                this.outputDirectory,
+                "replication"
+        );
+
+        List<Scenario> scenarios = new ArrayList<>();
+
+        for (int replication = 0; replication < this.replications; replication++) {
+            // Give each replication its own seed
+            Scenario replicationScenario = new Scenario(this.scenario);
+
+            replicationScenario.setSeed(this.baseSeed + replication);
+
+            scenarios.add(replicationScenario);
+        }
+
+        // Each replication ticks its own copy of the starting time
+        List<BatchRunner.RunResult> replicationResults = batchRunner.run(
+                scenarios,
+                (simulator, replication, replicationScenario) -> simulator.setup(
+                        new SimulationTime(this.startTime),
+                        new SimulationTime(this.endTime),
+                        replicationScenario
+                )
+        );
+
+        batchRunner.saveResults(
+                replicationResults,
+                "replication_results.csv",
+                new String[]{"REPLICATION", "SEED"},
+                replicationResult -> new Object[]{
+                        replicationResult.getIndex(),
+                        replicationResult.getScenario().getSeed()
+                }
+        );
+
+        saveSummary(replicationResults);
+
+        return replicationResults;
+    }
+
+    // Save the summary of each metric across all replications which are done into a file
+    private void saveSummary(List<BatchRunner.RunResult> replicationResults) {
+        final String fileName = this.outputDirectory + File.separator + "replication_summary.csv";
+
+        // Collect the values of each metric of each train system across all replications
+        Map<String, List<double[]>> metricsPerTrainSystem = new LinkedHashMap<>();
+
+        for (BatchRunner.RunResult replicationResult : replicationResults) {
+            if (replicationResult.isFailed()) {
+                continue;
+            }
+
+            for (Map.Entry<String, double[]> entry : replicationResult.getMetrics().entrySet()) {
+                metricsPerTrainSystem.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+
+        try (PrintWriter printWriter = new PrintWriter(fileName)) {
+            StringBuilder stringBuilder = new StringBuilder();
+
+            stringBuilder.append(
+                    "TRAIN_SYSTEM," +
+                            "METRIC," +
+                            "REPLICATIONS," +
+                            "MEAN," +
+                            "STANDARD_DEVIATION," +
+                            "MINIMUM," +
+                            "MAXIMUM," +
+                            "CI_95_HALF_WIDTH"
+            );
+
+            stringBuilder.append("\n");
+
+            for (Map.Entry<String, List<double[]>> entry : metricsPerTrainSystem.entrySet()) {
+                List<double[]> values = entry.getValue();
+                int count = values.size();
+
+                for (int metricIndex = 0; metricIndex < BatchRunner.METRICS.length; metricIndex++) {
+                    double sum = 0.0;
+                    double minimum = Double.MAX_VALUE;
+                    double maximum = -Double.MAX_VALUE;
+
+                    for (double[] value : values) {
+                        sum += value[metricIndex];
+                        minimum = Math.min(minimum, value[metricIndex]);
+                        maximum = Math.max(maximum, value[metricIndex]);
+                    }
+
+                    double mean = sum / count;
+
+                    double squaredDeviations = 0.0;
+
+                    for (double[] value : values) {
+                        squaredDeviations += (value[metricIndex] - mean) * (value[metricIndex] - mean);
+                    }
+
+                    double standardDeviation = count > 1 ? Math.sqrt(squaredDeviations / (count - 1)) : 0.0;
+                    double halfWidth = Z_95 * standardDeviation / Math.sqrt(count);
+
+                    stringBuilder.append(entry.getKey()).append(",");
+                    stringBuilder.append(BatchRunner.METRICS[metricIndex]).append(",");
+                    stringBuilder.append(count).append(",");
+                    stringBuilder.append(mean).append(",");
+                    stringBuilder.append(standardDeviation).append(",");
+                    stringBuilder.append(minimum).append(",");
+                    stringBuilder.append(maximum).append(",");
+                    stringBuilder.append(halfWidth);
+                    stringBuilder.append("\n");
+                }
+            }
+
+            printWriter.write(stringBuilder.toString());
+        } catch (FileNotFoundException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.trainsimulation.model.simulator;
+
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
+import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.simulator.setup.Scenario;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Forks a simulation at its current tick into independent branches, each of which continues the simulation until the
+// ending time with a different intervention applied
+// The state of the simulation at the time of the fork is taken once, and each branch starts from its own copy of it;
+// the passenger lists (as read from their files) and the database interface are shared by all branches
+public class ScenarioFork {
+    // Denotes the database interface shared by all branches
+    private final DatabaseInterface databaseInterface;
+
+    // Denotes the simulator the branches were forked from, whose passenger lists are shared by all branches
+    private final Simulator simulator;
+
+    // Denotes the parameters of the simulation which was forked
+    private final Scenario scenario;
+
+    // Denotes the time when the simulation was forked
+    private final SimulationTime forkTime;
+
+    // Contains the state of the simulation at the time of the fork
+    private final byte[] checkpoint;
+
+    // Take the state of the given simulator at its current tick
+    // If the simulator is running, the state is taken in between two ticks
+    public ScenarioFork(Simulator simulator) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        simulator.saveCheckpoint(byteArrayOutputStream);
+
+        this.databaseInterface = simulator.getDatabaseInterface();
+        this.simulator = simulator;
+        this.scenario = new Scenario(simulator.getScenario());
+        this.forkTime = new SimulationTime(simulator.getTime());
+        this.checkpoint = byteArrayOutputStream.toByteArray();
+    }
+
+    public SimulationTime getForkTime() {
+        return forkTime;
+    }
+
+    // Create a simulator which continues from the fork until the given ending time, with the given intervention (if
+    // any) applied
+    // The simulator is set up, but not yet running
+    public Simulator branch(SimulationTime endTime, Intervention intervention, String logDirectory)
+            throws IOException {
+        Scenario branchScenario = new Scenario(this.scenario);
+
+        branchScenario.setLogDirectory(logDirectory);
+
+        Simulator branchSimulator = new Simulator(this.databaseInterface);
+
+        setUpBranch(branchSimulator, endTime, intervention, branchScenario);
+
+        return branchSimulator;
+    }
+
+    // Set the given simulator up to continue from the fork until the given ending time, with the given intervention
+    // (if any) applied
+    private void setUpBranch(
+            Simulator branchSimulator,
+            SimulationTime endTime,
+            Intervention intervention,
+            Scenario branchScenario
+    ) throws IOException {
+        // Use the passenger lists already read by the original simulator
+        branchSimulator.shareTripRecords(this.simulator);
+
+        branchSimulator.setup(new SimulationTime(this.forkTime), endTime, branchScenario);
+        branchSimulator.restoreCheckpoint(new ByteArrayInputStream(this.checkpoint));
+
+        if (intervention != null) {
+            intervention.apply(branchSimulator);
+        }
+    }
+
+    // Run each of the given interventions in its own branch until the given ending time, with a bounded number of
+    // branches running at the same time, then save the results of all branches into a single table, in which a failed
+    // branch is kept as a failed row with its intervention
+    // A null intervention runs the branch as it is
+    public List<BatchRunner.RunResult> run(SimulationTime endTime, List<Intervention> interventions, int parallelism,
+                                           String outputDirectory) throws Throwable {
+        final BatchRunner batchRunner = new BatchRunner(this.databaseInterface, parallelism, outputDirectory, "branch");
+
+        List<Scenario> scenarios = new ArrayList<>();
+
+        for (int index = 0; index < interventions.size(); index++) {
+            scenarios.add(this.scenario);
+        }
+
+        // Each branch ticks its own copy of the ending time
+        List<BatchRunner.RunResult> branchResults = batchRunner.run(
+                scenarios,
+                (branchSimulator, index, branchScenario) -> setUpBranch(
+                        branchSimulator,
+                        new SimulationTime(endTime),
+                        interventions.get(index),
+                        branchScenario
+                )
+        );
+
+        batchRunner.saveResults(
+                branchResults,
+                "fork_results.csv",
+                new String[]{"BRANCH", "FORK_TIME", "INTERVENTION"},
+                branchResult -> new Object[]{
+                        branchResult.getIndex(),
+                        this.forkTime,
+                        interventions.get(branchResult.getIndex()) != null
+                                ? interventions.get(branchResult.getIndex())
+                                : "none"
+                }
+        );
+
+        return branchResults;
+    }
+
+    // Find a train system of the given simulator by its name
+    private static TrainSystem findTrainSystem(Simulator simulator, String trainSystemName) {
+        for (TrainSystem trainSystem : simulator.getTrainSystems()) {
+            if (trainSystem.getTrainSystemInformation().getName().equals(trainSystemName)) {
+                return trainSystem;
+            }
+        }
+
+        throw new IllegalArgumentException("There is no train system named " + trainSystemName);
+    }
+
+    // Represents a change to a simulation, made to a branch right before it continues from the fork
+    public interface Intervention {
+        void apply(Simulator simulator);
+    }
+
+    // Changes the distance to be maintained between each train, as done with the headway slider
+    public static class ChangeHeadway implements Intervention {
+        private final int headwayDistance;
+
+        public ChangeHeadway(int headwayDistance) {
+            this.headwayDistance = headwayDistance;
+        }
+
+        @Override
+        public void apply(Simulator simulator) {
+            simulator.getHeadwayDistance().set(this.headwayDistance);
+        }
+
+        @Override
+        public String toString() {
+            return "headway=" + this.headwayDistance;
+        }
+    }
+
+    // Removes an active train from service, as done with the remove button of the train editing screen
+    // The train stops at its next station so its passengers may disembark, then returns to its depot
+    public static class PullOutTrain implements Intervention {
+        private final String trainSystemName;
+        private final short trainIdentifier;
+
+        public PullOutTrain(String trainSystemName, short trainIdentifier) {
+            this.trainSystemName = trainSystemName;
+            this.trainIdentifier = trainIdentifier;
+        }
+
+        @Override
+        public void apply(Simulator simulator) {
+            TrainSystem trainSystem = findTrainSystem(simulator, this.trainSystemName);
+
+            synchronized (trainSystem.getActiveTrains()) {
+                for (Train train : trainSystem.getActiveTrains()) {
+                    if (train.getIdentifier() == this.trainIdentifier) {
+                        train.getTrainMovement().setActive(false);
+
+                        return;
+                    }
+                }
+            }
+
+            throw new IllegalArgumentException("There is no active train " + this.trainIdentifier + " in "
+                    + this.trainSystemName);
+        }
+
+        @Override
+        public String toString() {
+            return "pull=" + this.trainSystemName + ":" + this.trainIdentifier;
+        }
+    }
+}
@@ -0,0 +1,874 @@
+package com.trainsimulation.model.simulator;
+
+import com.crowdsimulation.model.core.agent.passenger.Passenger;
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerMovement;
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.core.environment.infrastructure.track.Junction;
+import com.trainsimulation.model.core.environment.infrastructure.track.Segment;
+import com.trainsimulation.model.core.environment.infrastructure.track.Track;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Platform;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.TrainCarriage;
+import com.trainsimulation.model.simulator.setup.EnvironmentSetup;
+import com.trainsimulation.model.utility.TrainCarriageLocation;
+import com.trainsimulation.model.utility.TrainMovement;
+import com.trainsimulation.model.utility.TrainQueue;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.*;
+
+// Saves the state of a simulation at a given tick into a compact binary file, and restores it into a freshly set up
+// simulator
+// The topology, the station layouts, and the trains themselves are not saved, as these are rebuilt the same way by
+// setting the simulator up with the same scenario; only the state which changes from tick to tick is saved
+// Segments and junctions are saved as their indices in a traversal of the tracks, which is the same for every
+// simulator set up from the same database
+// The passengers already in the system are owned by the crowd simulation, whose internal state (e.g., their positions
+// within a station) is out of reach, so they are saved as trips, and are readmitted at the station where they were
+// once the simulation resumes
+public class SimulationCheckpoint {
+    // Denotes the marker at the start of every checkpoint file
+    private static final int MAGIC_NUMBER = 0x54524E43;
+
+    // Denotes the version of the format of the checkpoint file
+    private static final int VERSION = 6;
+
+    // Denotes the size of the buffer used when reading or writing a checkpoint file (in bytes)
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Denotes the kinds of trips of the passengers to be readmitted
+    private static final byte TRIP_FROM_PASSENGER_LIST = 0;
+    private static final byte TRIP_FROM_PASSENGER = 1;
+
+    // Denotes the value saved in place of a missing station, segment, or direction
+    private static final int NONE = -1;
+
+    // Save the state of the given simulator into the given file
+    public static void save(Simulator simulator, File file) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+            save(simulator, outputStream);
+        }
+    }
+
+    // Save the state of the given simulator into the given stream
+    public static void save(Simulator simulator, OutputStream outputStream) throws IOException {
+        // The passengers still to be spawned and already in the system are saved as positions in the complete passenger
+        // lists, which are never kept whole when they are streamed
+        for (TrainSystem trainSystem : simulator.getTrainSystems()) {
+            if (trainSystem.isStreamingTrips()) {
+                throw new IOException(
+                        "The passenger list of " + trainSystem.getTrainSystemInformation().getName()
+                                + " is being streamed, so it cannot be saved in a checkpoint"
+                );
+            }
+        }
+
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+        dataOutputStream.writeInt(MAGIC_NUMBER);
+        dataOutputStream.writeInt(VERSION);
+
+        // Save the time and the time it was started from (the ending time is left to the simulator resuming from this
+        // checkpoint)
+        dataOutputStream.writeLong(simulator.getTime().getTick());
+        dataOutputStream.writeLong(simulator.getTime().getStartTick());
+
+        // Save the parameters which may be changed while the simulation is running
+        dataOutputStream.writeInt(simulator.getHeadwayDistance().get());
+
+        // Save the random number generators of the entities as they are, so the same numbers will be drawn once the
+        // simulation resumes
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(simulator.getRandomStreams());
+        }
+
+        byte[] randomStreams = byteArrayOutputStream.toByteArray();
+
+        dataOutputStream.writeInt(randomStreams.length);
+        dataOutputStream.write(randomStreams);
+
+        // Save each train system
+        dataOutputStream.writeInt(simulator.getTrainSystems().size());
+
+        for (TrainSystem trainSystem : simulator.getTrainSystems()) {
+            saveTrainSystem(trainSystem, dataOutputStream);
+        }
+
+        dataOutputStream.flush();
+    }
+
+    // Restore the state saved in the given file into the given simulator, which should have been set up with the same
+    // scenario as the simulator the state was saved from
+    public static void restore(Simulator simulator, File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            restore(simulator, inputStream);
+        }
+    }
+
+    // Restore the state saved in the given stream into the given simulator
+    public static void restore(Simulator simulator, InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+
+        if (dataInputStream.readInt() != MAGIC_NUMBER) {
+            throw new IOException("The given data is not a checkpoint");
+        }
+
+        final int version = dataInputStream.readInt();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version: " + version);
+        }
+
+        // Restore the time, keeping the time it was started from
+        final long tick = dataInputStream.readLong();
+        final long startTick = dataInputStream.readLong();
+
+        simulator.setTime(new SimulationTime(tick, startTick));
+
+        // Restore the parameters which may be changed while the simulation is running
+        simulator.getHeadwayDistance().set(dataInputStream.readInt());
+
+        // Restore the random number generators of the entities
+        byte[] randomStreams = new byte[dataInputStream.readInt()];
+
+        dataInputStream.readFully(randomStreams);
+
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(randomStreams))) {
+            simulator.setRandomStreams((RandomStreams) objectInputStream.readObject());
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+
+        // Restore each train system
+        final int trainSystemCount = dataInputStream.readInt();
+
+        if (trainSystemCount != simulator.getTrainSystems().size()) {
+            throw new IOException("The checkpoint has " + trainSystemCount + " train systems, but the simulator"
+                    + " has " + simulator.getTrainSystems().size());
+        }
+
+        for (TrainSystem trainSystem : simulator.getTrainSystems()) {
+            restoreTrainSystem(trainSystem, dataInputStream);
+        }
+    }
+
+    // Save the state of a train system
+    private static void saveTrainSystem(TrainSystem trainSystem, DataOutputStream dataOutputStream)
+            throws IOException {
+        dataOutputStream.writeUTF(trainSystem.getTrainSystemInformation().getName());
+
+        List<Segment> segments = collectSegments(trainSystem);
+        List<Junction> junctions = collectJunctions(segments);
+
+        Map<Segment, Integer> segmentIndices = new IdentityHashMap<>();
+
+        for (int index = 0; index < segments.size(); index++) {
+            segmentIndices.put(segments.get(index), index);
+        }
+
+        dataOutputStream.writeInt(segments.size());
+        dataOutputStream.writeInt(junctions.size());
+
+        // Save the counters of the train system
+        dataOutputStream.writeInt(trainSystem.getDispatchedTrainCount());
+        dataOutputStream.writeInt(trainSystem.getTrainDeploymentSemaphore().availablePermits());
+
+        // Save the logs so far
+        saveLogs(trainSystem.getPassengerLogs(), dataOutputStream);
+        saveLogs(trainSystem.getStationLogs(), dataOutputStream);
+        saveLogs(trainSystem.getTrainLogs(), dataOutputStream);
+
+        // Save the trains, the active ones first, each in the order they are in their lists
+        List<Train> activeTrains;
+        List<Train> inactiveTrains;
+
+        synchronized (trainSystem.getActiveTrains()) {
+            activeTrains = new ArrayList<>(trainSystem.getActiveTrains());
+        }
+
+        synchronized (trainSystem.getInactiveTrains()) {
+            inactiveTrains = new ArrayList<>(trainSystem.getInactiveTrains());
+        }
+
+        dataOutputStream.writeInt(activeTrains.size());
+
+        for (Train train : activeTrains) {
+            saveTrain(trainSystem, train, segmentIndices, dataOutputStream);
+        }
+
+        dataOutputStream.writeInt(inactiveTrains.size());
+
+        for (Train train : inactiveTrains) {
+            saveTrain(trainSystem, train, segmentIndices, dataOutputStream);
+        }
+
+        // Save the carriages on each segment, from the front of the segment to the back
+        List<Segment> occupiedSegments = new ArrayList<>();
+
+        for (Segment segment : segments) {
+            if (!segment.getTrainQueue().isTrainQueueEmpty()) {
+                occupiedSegments.add(segment);
+            }
+        }
+
+        dataOutputStream.writeInt(occupiedSegments.size());
+
+        for (Segment segment : occupiedSegments) {
+            TrainQueue trainQueue = segment.getTrainQueue();
+
+            synchronized (trainQueue) {
+                dataOutputStream.writeInt(segmentIndices.get(segment));
+                dataOutputStream.writeInt(trainQueue.getTrainQueueSize());
+
+                for (int index = 0; index < trainQueue.getTrainQueueSize(); index++) {
+                    TrainCarriage trainCarriage = trainQueue.getTrainCarriage(index);
+
+                    dataOutputStream.writeShort(trainCarriage.getParentTrain().getIdentifier());
+                    dataOutputStream.writeInt(
+                            trainCarriage.getParentTrain().getTrainCarriages().indexOf(trainCarriage)
+                    );
+                }
+            }
+        }
+
+        // Save the signals
+        for (Junction junction : junctions) {
+            dataOutputStream.writeInt(junction.getSignal().availablePermits());
+        }
+
+        // Save the remaining passenger list, which is always the tail end of the complete passenger list of the day
+        // being spawned
+        dataOutputStream.writeInt(trainSystem.getSpawnDay());
+        dataOutputStream.writeInt(trainSystem.getRemainingTripCount());
+
+        // Save the passengers already in the system
+        List<PassengerTrip> passengerTrips = new ArrayList<>();
+        List<Integer> passengerListIndices = new ArrayList<>();
+
+        final int passengersLeftOut = collectPassengers(
+                trainSystem,
+                activeTrains,
+                passengerTrips,
+                passengerListIndices
+        );
+
+        // The passengers left out will never complete their trips nor be in the system once the simulation resumes, so
+        // they are not counted as spawned either
+        dataOutputStream.writeInt(trainSystem.getSpawnedPassengerCount() - passengersLeftOut);
+        dataOutputStream.writeInt(passengerListIndices.size() + passengerTrips.size());
+
+        for (int passengerListIndex : passengerListIndices) {
+            dataOutputStream.writeByte(TRIP_FROM_PASSENGER_LIST);
+            dataOutputStream.writeInt(passengerListIndex);
+        }
+
+        for (PassengerTrip passengerTrip : passengerTrips) {
+            dataOutputStream.writeByte(TRIP_FROM_PASSENGER);
+            dataOutputStream.writeUTF(passengerTrip.getIdentifier());
+            dataOutputStream.writeInt(stationIndex(trainSystem, passengerTrip.getEntryStation()));
+            dataOutputStream.writeInt(stationIndex(trainSystem, passengerTrip.getExitStation()));
+            dataOutputStream.writeBoolean(passengerTrip.isStoredValue());
+            dataOutputStream.writeLong(passengerTrip.getTravelTime().getSeconds());
+        }
+    }
+
+    // Restore the state of a train system
+    private static void restoreTrainSystem(TrainSystem trainSystem, DataInputStream dataInputStream)
+            throws IOException {
+        final String name = dataInputStream.readUTF();
+
+        if (!name.equals(trainSystem.getTrainSystemInformation().getName())) {
+            throw new IOException("Expected train system " + trainSystem.getTrainSystemInformation().getName()
+                    + " in the checkpoint, but found " + name);
+        }
+
+        List<Segment> segments = collectSegments(trainSystem);
+        List<Junction> junctions = collectJunctions(segments);
+
+        if (dataInputStream.readInt() != segments.size() || dataInputStream.readInt() != junctions.size()) {
+            throw new IOException("The checkpoint does not match the tracks of " + name);
+        }
+
+        // Restore the counters of the train system
+        trainSystem.setDispatchedTrainCount(dataInputStream.readInt());
+
+        trainSystem.getTrainDeploymentSemaphore().drainPermits();
+        trainSystem.getTrainDeploymentSemaphore().release(dataInputStream.readInt());
+
+        // Restore the logs so far
+        restoreLogs(trainSystem.getPassengerLogs(), dataInputStream);
+        restoreLogs(trainSystem.getStationLogs(), dataInputStream);
+        restoreLogs(trainSystem.getTrainLogs(), dataInputStream);
+
+        // Restore the trains, taking them from the trains which were loaded when the simulator was set up
+        Map<Short, Train> trains = new HashMap<>();
+
+        synchronized (trainSystem.getInactiveTrains()) {
+            for (Train train : trainSystem.getInactiveTrains()) {
+                trains.put(train.getIdentifier(), train);
+            }
+        }
+
+        synchronized (trainSystem.getActiveTrains()) {
+            for (Train train : trainSystem.getActiveTrains()) {
+                trains.put(train.getIdentifier(), train);
+            }
+        }
+
+        // Clear the tracks before putting the trains back on them
+        for (Segment segment : segments) {
+            segment.getTrainQueue().clearTrainQueue();
+        }
+
+        List<Train> activeTrains = new ArrayList<>();
+        List<Train> inactiveTrains = new ArrayList<>();
+
+        final int activeTrainCount = dataInputStream.readInt();
+
+        for (int index = 0; index < activeTrainCount; index++) {
+            activeTrains.add(restoreTrain(trainSystem, trains, segments, dataInputStream));
+        }
+
+        final int inactiveTrainCount = dataInputStream.readInt();
+
+        for (int index = 0; index < inactiveTrainCount; index++) {
+            inactiveTrains.add(restoreTrain(trainSystem, trains, segments, dataInputStream));
+        }
+
+        trainSystem.getActiveTrains().clear();
+        trainSystem.getActiveTrains().addAll(activeTrains);
+
+        trainSystem.getInactiveTrains().clear();
+        trainSystem.getInactiveTrains().addAll(inactiveTrains);
+
+        // Restore the carriages on each segment
+        final int occupiedSegmentCount = dataInputStream.readInt();
+
+        for (int segmentCount = 0; segmentCount < occupiedSegmentCount; segmentCount++) {
+            Segment segment = segments.get(dataInputStream.readInt());
+
+            final int trainCarriageCount = dataInputStream.readInt();
+
+            for (int index = 0; index < trainCarriageCount; index++) {
+                Train train = trains.get(dataInputStream.readShort());
+
+                segment.getTrainQueue().insertTrainCarriage(train.getTrainCarriages().get(dataInputStream.readInt()));
+            }
+        }
+
+        // Restore the signals
+        for (Junction junction : junctions) {
+            junction.getSignal().drainPermits();
+            junction.getSignal().release(dataInputStream.readInt());
+        }
+
+        // Restore the remaining passenger list
+        final int spawnDay = dataInputStream.readInt();
+        final int remainingTrips = dataInputStream.readInt();
+        final List<PassengerTripInformation> passengerList = trainSystem.getPassengerList();
+
+        if (remainingTrips > passengerList.size()) {
+            throw new IOException("The checkpoint does not match the passenger list of " + name);
+        }
+
+        trainSystem.setSpawnDay(spawnDay);
+        trainSystem.setRemainingTripCount(remainingTrips);
+
+        // Restore the passengers already in the system, which will be spawned again in the next tick
+        final int spawnedPassengerCount = dataInputStream.readInt();
+        final int passengersToReadmit = dataInputStream.readInt();
+
+        LocalTime time = trainSystem.getSimulator().getTime().getTime();
+
+        trainSystem.getPassengersToReadmit().clear();
+
+        for (int index = 0; index < passengersToReadmit; index++) {
+            if (dataInputStream.readByte() == TRIP_FROM_PASSENGER_LIST) {
+                trainSystem.getPassengersToReadmit().add(passengerList.get(dataInputStream.readInt()));
+            } else {
+                String cardNumber = dataInputStream.readUTF();
+
+                Station entryStation = trainSystem.getStations().get(dataInputStream.readInt());
+                Station exitStation = trainSystem.getStations().get(dataInputStream.readInt());
+
+                final boolean storedValue = dataInputStream.readBoolean();
+                final Duration travelTime = Duration.ofSeconds(dataInputStream.readLong());
+
+                trainSystem.getPassengersToReadmit().add(
+                        new PassengerTripInformation(
+                                time,
+                                cardNumber,
+                                storedValue,
+                                entryStation,
+                                exitStation,
+                                EnvironmentSetup.getTravelDirection(trainSystem, entryStation, exitStation),
+                                travelTime
+                        )
+                );
+            }
+        }
+
+        // The readmitted passengers will be counted again once they are spawned
+        trainSystem.setSpawnedPassengerCount(spawnedPassengerCount - passengersToReadmit);
+    }
+
+    // Save the state of a train
+    private static void saveTrain(TrainSystem trainSystem, Train train, Map<Segment, Integer> segmentIndices,
+                                  DataOutputStream dataOutputStream) throws IOException {
+        TrainMovement trainMovement = train.getTrainMovement();
+
+        dataOutputStream.writeShort(train.getIdentifier());
+        dataOutputStream.writeInt(train.getTrainState() != null ? train.getTrainState().ordinal() : NONE);
+
+        dataOutputStream.writeInt(trainMovement.getWaitingTime());
+
+        // The tick a waiting train is due to leave is saved as the number of ticks it still has to wait
+        dataOutputStream.writeLong(
+                train.isWaiting()
+                        ? trainMovement.getWakeTick() - trainSystem.getSimulator().getTime().getTick()
+                        : 0L
+        );
+
+        dataOutputStream.writeDouble(trainMovement.getVelocity());
+
+        dataOutputStream.writeInt(stationIndex(trainSystem, trainMovement.getCurrentStation()));
+        dataOutputStream.writeInt(stationIndex(trainSystem, trainMovement.getPreviousStoppedStation()));
+        dataOutputStream.writeInt(stationIndex(trainSystem, trainMovement.getPreviousPassedStation()));
+
+        dataOutputStream.writeBoolean(trainMovement.isWaitedAtEnd());
+        dataOutputStream.writeBoolean(trainMovement.isTowardsNearEnd());
+        dataOutputStream.writeBoolean(trainMovement.isDisembarkedWhenRemoved());
+        dataOutputStream.writeBoolean(trainMovement.hasStopped());
+        dataOutputStream.writeBoolean(trainMovement.isActive());
+        dataOutputStream.writeBoolean(trainMovement.isEditable());
+        dataOutputStream.writeBoolean(trainMovement.isStationListEdited());
+
+        dataOutputStream.writeInt(directionIndex(trainMovement.getDesiredDirection()));
+        dataOutputStream.writeInt(directionIndex(trainMovement.getActualDirection()));
+
+        dataOutputStream.writeInt(trainMovement.getDirections().size());
+
+        for (Track.Direction direction : trainMovement.getDirections()) {
+            dataOutputStream.writeInt(directionIndex(direction));
+        }
+
+        saveStations(trainSystem, trainMovement.getStationQueue().getOriginalStationList(), dataOutputStream);
+        saveStations(trainSystem, trainMovement.getStationQueue().getStations(), dataOutputStream);
+
+        // Take note of whether this train has arrived at its current station, and has not left it yet
+        dataOutputStream.writeBoolean(isAtStation(train));
+
+        // Save the location of each carriage
+        dataOutputStream.writeInt(train.getTrainCarriages().size());
+
+        for (TrainCarriage trainCarriage : train.getTrainCarriages()) {
+            TrainCarriageLocation trainCarriageLocation = trainCarriage.getTrainCarriageLocation();
+
+            Segment segmentLocation = trainCarriageLocation.getSegmentLocation();
+
+            dataOutputStream.writeInt(segmentLocation != null ? segmentIndices.get(segmentLocation) : NONE);
+            dataOutputStream.writeDouble(trainCarriageLocation.getSegmentClearance());
+            dataOutputStream.writeInt(trainCarriageLocation.getDirectionIndex());
+        }
+    }
+
+    // Restore the state of a train
+    private static Train restoreTrain(TrainSystem trainSystem, Map<Short, Train> trains, List<Segment> segments,
+                                      DataInputStream dataInputStream) throws IOException {
+        final short identifier = dataInputStream.readShort();
+
+        Train train = trains.get(identifier);
+
+        if (train == null) {
+            throw new IOException("There is no train " + identifier + " in "
+                    + trainSystem.getTrainSystemInformation().getName());
+        }
+
+        TrainMovement trainMovement = train.getTrainMovement();
+
+        final int trainState = dataInputStream.readInt();
+
+        train.setTrainState(trainState != NONE ? Train.TrainState.values()[trainState] : null);
+
+        trainMovement.setWaitingTime(dataInputStream.readInt());
+        trainMovement.setWakeTick(trainSystem.getSimulator().getTime().getTick() + dataInputStream.readLong());
+        trainMovement.setVelocity(dataInputStream.readDouble());
+
+        trainMovement.setCurrentStation(station(trainSystem, dataInputStream.readInt()));
+        trainMovement.setPreviousStoppedStation(station(trainSystem, dataInputStream.readInt()));
+        trainMovement.setPreviousPassedStation(station(trainSystem, dataInputStream.readInt()));
+
+        trainMovement.setWaitedAtEnd(dataInputStream.readBoolean());
+        trainMovement.setTowardsNearEnd(dataInputStream.readBoolean());
+        trainMovement.setDisembarkedWhenRemoved(dataInputStream.readBoolean());
+        trainMovement.setHasStopped(dataInputStream.readBoolean());
+        trainMovement.setActive(dataInputStream.readBoolean());
+        trainMovement.setEditable(dataInputStream.readBoolean());
+        trainMovement.setStationListEdited(dataInputStream.readBoolean());
+
+        trainMovement.setDesiredDirection(direction(dataInputStream.readInt()));
+        trainMovement.setActualDirection(direction(dataInputStream.readInt()));
+
+        final int directionCount = dataInputStream.readInt();
+
+        List<Track.Direction> directions = new ArrayList<>(directionCount);
+
+        for (int index = 0; index < directionCount; index++) {
+            directions.add(direction(dataInputStream.readInt()));
+        }
+
+        trainMovement.setDirections(directions);
+
+        List<Station> originalStationList = restoreStations(trainSystem, dataInputStream);
+        List<Station> stations = restoreStations(trainSystem, dataInputStream);
+
+        trainMovement.getStationQueue().restoreStations(originalStationList, stations);
+
+        final boolean isAtStation = dataInputStream.readBoolean();
+
+        // Restore the location of each carriage
+        final int trainCarriageCount = dataInputStream.readInt();
+
+        if (trainCarriageCount != train.getTrainCarriages().size()) {
+            throw new IOException("The checkpoint does not match the carriages of train " + identifier);
+        }
+
+        for (TrainCarriage trainCarriage : train.getTrainCarriages()) {
+            TrainCarriageLocation trainCarriageLocation = trainCarriage.getTrainCarriageLocation();
+
+            final int segmentIndex = dataInputStream.readInt();
+
+            trainCarriageLocation.setSegmentLocation(segmentIndex != NONE ? segments.get(segmentIndex) : null);
+            trainCarriageLocation.setSegmentClearance(dataInputStream.readDouble());
+            trainCarriageLocation.setDirectionIndex(dataInputStream.readInt());
+            trainCarriageLocation.resetVirtualDirectionIndex();
+        }
+
+        // Have the train arrive at its station again, so its doors are opened for the passengers there
+        // Arriving recomputes the waiting time of the train, so set it back afterwards
+        if (isAtStation) {
+            final int waitingTime = trainMovement.getWaitingTime();
+
+            train.arriveAt(trainMovement.getCurrentStation());
+
+            trainMovement.setWaitingTime(waitingTime);
+        }
+
+        return train;
+    }
+
+    // Collect the passengers in a train system as the trips to be readmitted once the simulation resumes
+    // Passengers still queueing outside a station have yet to be given their route, so they are taken as the trips
+    // most recently spawned in that station; the rest are rebuilt from their routes, starting from the station where
+    // they are (or, for passengers riding a train, the station where the train last stopped)
+    // Return the number of passengers who could not be collected, and so are left out of the checkpoint
+    private static int collectPassengers(
+            TrainSystem trainSystem,
+            List<Train> activeTrains,
+            List<PassengerTrip> passengerTrips,
+            List<Integer> passengerListIndices
+    ) {
+        Map<Station, Integer> passengersQueueing = new HashMap<>();
+
+        int passengersLeftOut = 0;
+
+        for (Station station : trainSystem.getStations()) {
+            int passengersQueueingInStation = 0;
+
+            synchronized (station.getPassengerBacklogs()) {
+                for (List<Passenger> passengerBacklog : station.getPassengerBacklogs().values()) {
+                    passengersQueueingInStation += passengerBacklog.size();
+                }
+            }
+
+            if (passengersQueueingInStation > 0) {
+                passengersQueueing.put(station, passengersQueueingInStation);
+            }
+
+            synchronized (station.getStationLayout().getPassengersInStation()) {
+                for (Passenger passenger : station.getStationLayout().getPassengersInStation()) {
+                    if (!collectPassenger(passenger, station, passengerTrips)) {
+                        passengersLeftOut++;
+                    }
+                }
+            }
+        }
+
+        for (Train train : activeTrains) {
+            Station previousStoppedStation = train.getTrainMovement().getPreviousStoppedStation();
+
+            for (TrainCarriage trainCarriage : train.getTrainCarriages()) {
+                for (List<Passenger> passengers : trainCarriage.getPassengers().values()) {
+                    for (Passenger passenger : passengers) {
+                        if (!collectPassenger(passenger, previousStoppedStation, passengerTrips)) {
+                            passengersLeftOut++;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Walk the passenger list back from the trips spawned most recently
+        final List<PassengerTripInformation> passengerList = trainSystem.getPassengerList();
+
+        for (
+                int index = passengerList.size() - trainSystem.getRemainingTripCount() - 1;
+                index >= 0 && !passengersQueueing.isEmpty();
+                index--
+        ) {
+            Station entryStation = passengerList.get(index).getEntryStation();
+            Integer passengersQueueingInStation = passengersQueueing.get(entryStation);
+
+            if (passengersQueueingInStation != null) {
+                passengerListIndices.add(index);
+
+                if (passengersQueueingInStation == 1) {
+                    passengersQueueing.remove(entryStation);
+                } else {
+                    passengersQueueing.put(entryStation, passengersQueueingInStation - 1);
+                }
+            }
+        }
+
+        // The passengers still queueing whose trips are no longer in the passenger list are left out as well
+        for (int passengersQueueingInStation : passengersQueueing.values()) {
+            passengersLeftOut += passengersQueueingInStation;
+        }
+
+        // Keep the readmitted passengers in the order they were spawned
+        Collections.reverse(passengerListIndices);
+
+        return passengersLeftOut;
+    }
+
+    // Collect a passenger who has already been given a route as a trip starting from the given station
+    // Return whether the passenger has been collected
+    private static boolean collectPassenger(
+            Passenger passenger,
+            Station station,
+            List<PassengerTrip> passengerTrips
+    ) {
+        PassengerMovement passengerMovement = passenger.getPassengerMovement();
+
+        if (passengerMovement == null || station == null) {
+            return false;
+        }
+
+        Station exitStation = passengerMovement.getRoutePlan().getDestinationStation().getStation();
+
+        // A passenger already at the destination is about to leave the system
+        if (exitStation == station) {
+            return false;
+        }
+
+        passengerTrips.add(
+                new PassengerTrip(
+                        passenger.getPassengerInformation().getIdentifier(),
+                        station,
+                        exitStation,
+                        passenger.getPassengerInformation().isStoredValue(),
+                        passenger.getPassengerTime().getTravelTime()
+                )
+        );
+
+        return true;
+    }
+
+    // Collect all segments of a train system, in the order they are reached by following the tracks from the depot and
+    // from each station
+    static List<Segment> collectSegments(TrainSystem trainSystem) {
+        List<Segment> segments = new ArrayList<>();
+        Set<Segment> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Segment> segmentsToVisit = new ArrayDeque<>();
+
+        List<Segment> startingSegments = new ArrayList<>();
+
+        if (trainSystem.getDepot() != null) {
+            startingSegments.add(platformSegment(trainSystem.getDepot().getPlatforms(), Track.Direction.NORTHBOUND));
+            startingSegments.add(platformSegment(trainSystem.getDepot().getPlatforms(), Track.Direction.SOUTHBOUND));
+        }
+
+        for (Station station : trainSystem.getStations()) {
+            startingSegments.add(platformSegment(station.getPlatforms(), Track.Direction.NORTHBOUND));
+            startingSegments.add(platformSegment(station.getPlatforms(), Track.Direction.SOUTHBOUND));
+        }
+
+        for (Segment startingSegment : startingSegments) {
+            if (startingSegment == null || !visited.add(startingSegment)) {
+                continue;
+            }
+
+            segmentsToVisit.add(startingSegment);
+
+            while (!segmentsToVisit.isEmpty()) {
+                Segment segment = segmentsToVisit.poll();
+
+                segments.add(segment);
+
+                if (segment.getTo() == null) {
+                    continue;
+                }
+
+                // Always follow the segments coming out of a junction in the same order
+                for (Track.Direction direction : Track.Direction.values()) {
+                    Segment nextSegment = segment.getTo().getOutSegment(direction);
+
+                    if (nextSegment != null && visited.add(nextSegment)) {
+                        segmentsToVisit.add(nextSegment);
+                    }
+                }
+            }
+        }
+
+        return segments;
+    }
+
+    // Collect the junctions where each of the given segments start, in the order of the segments
+    static List<Junction> collectJunctions(List<Segment> segments) {
+        List<Junction> junctions = new ArrayList<>();
+        Set<Junction> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Segment segment : segments) {
+            if (segment.getFrom() != null && visited.add(segment.getFrom())) {
+                junctions.add(segment.getFrom());
+            }
+        }
+
+        return junctions;
+    }
+
+    // Get the segment of the platform in the given direction, if any
+    private static Segment platformSegment(Map<Track.Direction, Platform> platforms, Track.Direction direction) {
+        if (platforms.get(direction) == null) {
+            return null;
+        }
+
+        return platforms.get(direction).getPlatformHub().getPlatformSegment();
+    }
+
+    // Check whether the given train has arrived at its current station and has not left it yet
+    private static boolean isAtStation(Train train) {
+        Station currentStation = train.getTrainMovement().getCurrentStation();
+
+        if (currentStation == null || train.getTrainMovement().getActualDirection() == null) {
+            return false;
+        }
+
+        PassengerMovement.TravelDirection travelDirection = PassengerMovement.TravelDirection.convertToTravelDirection(
+                train.getTrainSystem(),
+                train.getTrainMovement().getActualDirection()
+        );
+
+        return currentStation.getTrains().get(travelDirection) == train;
+    }
+
+    private static void saveLogs(List<String> logs, DataOutputStream dataOutputStream) throws IOException {
+        synchronized (logs) {
+            dataOutputStream.writeInt(logs.size());
+
+            for (String log : logs) {
+                dataOutputStream.writeUTF(log);
+            }
+        }
+    }
+
+    private static void restoreLogs(List<String> logs, DataInputStream dataInputStream) throws IOException {
+        final int logCount = dataInputStream.readInt();
+
+        List<String> restoredLogs = new ArrayList<>(logCount);
+
+        for (int index = 0; index < logCount; index++) {
+            restoredLogs.add(dataInputStream.readUTF());
+        }
+
+        logs.clear();
+        logs.addAll(restoredLogs);
+    }
+
+    private static void saveStations(TrainSystem trainSystem, List<Station> stations,
+                                     DataOutputStream dataOutputStream) throws IOException {
+        dataOutputStream.writeInt(stations.size());
+
+        for (Station station : stations) {
+            dataOutputStream.writeInt(stationIndex(trainSystem, station));
+        }
+    }
+
+    private static List<Station> restoreStations(TrainSystem trainSystem, DataInputStream dataInputStream)
+            throws IOException {
+        final int stationCount = dataInputStream.readInt();
+
+        List<Station> stations = new ArrayList<>(stationCount);
+
+        for (int index = 0; index < stationCount; index++) {
+            stations.add(station(trainSystem, dataInputStream.readInt()));
+        }
+
+        return stations;
+    }
+
+    private static int stationIndex(TrainSystem trainSystem, Station station) {
+        return station != null ? trainSystem.getStations().indexOf(station) : NONE;
+    }
+
+    private static Station station(TrainSystem trainSystem, int stationIndex) {
+        return stationIndex != NONE ? trainSystem.getStations().get(stationIndex) : null;
+    }
+
+    private static int directionIndex(Track.Direction direction) {
+        return direction != null ? direction.ordinal() : NONE;
+    }
+
+    private static Track.Direction direction(int directionIndex) {
+        return directionIndex != NONE ? Track.Direction.values()[directionIndex] : null;
+    }
+
+    // Contains the trip of a passenger already in the system, starting from where the passenger is
+    private static class PassengerTrip {
+        private final String identifier;
+        private final Station entryStation;
+        private final Station exitStation;
+        private final boolean storedValue;
+        private final Duration travelTime;
+
+        public PassengerTrip(
+                String identifier,
+                Station entryStation,
+                Station exitStation,
+                boolean storedValue,
+                Duration travelTime
+        ) {
+            this.identifier = identifier;
+            this.entryStation = entryStation;
+            this.exitStation = exitStation;
+            this.storedValue = storedValue;
+            this.travelTime = travelTime;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public Station getEntryStation() {
+            return entryStation;
+        }
+
+        public Station getExitStation() {
+            return exitStation;
+        }
+
+        public boolean isStoredValue() {
+            return storedValue;
+        }
+
+        public Duration getTravelTime() {
+            return travelTime;
+        }
+    }
+}
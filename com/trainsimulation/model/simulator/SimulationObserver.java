@@ -0,0 +1,19 @@
+package com.trainsimulation.model.simulator;
+
+import com.trainsimulation.model.core.environment.TrainSystem;
+
+// Blueprint for an object which is notified of the progress of the simulation (e.g., the user interface)
+// The observer is notified from the thread observing the simulation, which may lag a few ticks behind the simulation
+public interface SimulationObserver {
+    // Called after every tick of the simulation has been processed
+    void onTick(SimulationTime simulationTime);
+
+    // Called once for each tick in which a train in the given train system has moved
+    void onTrainMoved(TrainSystem trainSystem);
+
+    // Called once for each tick in which a train has been pulled out of the given train system
+    void onTrainPulledOut(TrainSystem trainSystem);
+
+    // Called once the simulation has reached its ending time
+    void onSimulationDone();
+}
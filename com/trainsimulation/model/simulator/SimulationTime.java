@@ -1,59 +1,131 @@
 package com.trainsimulation.model.simulator;
 
 import java.time.LocalTime;
-import java.util.concurrent.atomic.AtomicInteger;
 
 // Represents an object signifying the time in the simulation
+// The time is kept as a tick, which is the number of seconds since the midnight starting the first day of the scenario
+// (the scenario epoch), so the time may run past midnight into the following days
+// The time of day is only worked out (as a LocalTime) when it is to be shown
 public class SimulationTime {
-    // The time a thread has to pause (in milliseconds) in order to make the pace of the simulation conducive to
-    // visualization
-    private static final int DEFAULT_SLEEP_TIME_IN_MILLISECONDS = 1000;
-    public static final AtomicInteger SLEEP_TIME_MILLISECONDS = new AtomicInteger(DEFAULT_SLEEP_TIME_IN_MILLISECONDS);
+    // Denotes the number of seconds (ticks) in a day
+    public static final long SECONDS_PER_DAY = 86_400L;
 
-    // Denotes the starting time of the visualization
-    private final LocalTime startTime;
+    // Denotes the starting time of the visualization (as a tick)
+    private final long startTick;
 
-    // Denotes the current time in the simulation
-    private LocalTime time;
+    // Denotes the current time in the simulation (as a tick)
+    private long tick;
 
     public SimulationTime(SimulationTime simulationTime) {
-        this.time = LocalTime.of(simulationTime.getTime().getHour(), simulationTime.getTime().getMinute(),
-                simulationTime.getTime().getSecond());
-
-        this.startTime = this.time;
+        this.tick = simulationTime.getTick();
+        this.startTick = this.tick;
     }
 
     public SimulationTime(LocalTime time) {
-        this.time = time;
-        this.startTime = this.time;
+        this(0, time);
     }
 
     public SimulationTime(int hour, int minute, int second) {
-        this.time = LocalTime.of(hour, minute, second);
-        this.startTime = this.time;
+        this(LocalTime.of(hour, minute, second));
+    }
+
+    // The given time of day is on the given day of the scenario (starting from day 0)
+    public SimulationTime(int day, LocalTime time) {
+        this(day * SECONDS_PER_DAY + time.toSecondOfDay());
+    }
+
+    public SimulationTime(long tick) {
+        this.tick = tick;
+        this.startTick = this.tick;
+    }
+
+    SimulationTime(long tick, long startTick) {
+        this.tick = tick;
+        this.startTick = startTick;
+    }
+
+    // Get a copy of this time as it is now, which keeps the same starting time (unlike the copy constructor, which
+    // starts the copy from the current time)
+    public SimulationTime snapshot() {
+        return new SimulationTime(this.tick, this.startTick);
+    }
+
+    // Read a time written as "HH:mm[:ss]" (on the first day), or as "<day>+HH:mm[:ss]" (on the given day, starting
+    // from day 0)
+    public static SimulationTime parse(String text) {
+        final int separatorIndex = text.indexOf('+');
+
+        if (separatorIndex < 0) {
+            return new SimulationTime(LocalTime.parse(text));
+        }
+
+        final int day = Integer.parseInt(text.substring(0, separatorIndex));
+
+        if (day < 0) {
+            throw new NumberFormatException("The day may not be negative: " + day);
+        }
+
+        return new SimulationTime(day, LocalTime.parse(text.substring(separatorIndex + 1)));
     }
 
     // Return true unless the given time is ahead of the given ending time
     public boolean isTimeBeforeOrDuring(SimulationTime endingTime) {
-        return this.time.compareTo(endingTime.getTime()) <= 0;
+        return this.tick <= endingTime.getTick();
     }
 
     // Increment the time by one second
     public void tick() {
-        final long INCREMENT_COUNT = 1L;
+        this.tick++;
+    }
+
+    // Increment the time by the given number of seconds at once
+    public void skip(long seconds) {
+        this.tick += seconds;
+    }
+
+    // Get the current time as a tick (the number of seconds since the scenario epoch)
+    public long getTick() {
+        return tick;
+    }
+
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
 
-        this.setTime(this.time.plusSeconds(INCREMENT_COUNT));
+    public long getStartTick() {
+        return startTick;
     }
 
+    // Get the number of ticks since the starting time
+    public long getElapsedTicks() {
+        return this.tick - this.startTick;
+    }
+
+    // Get the day of the scenario the current time is on (starting from day 0)
+    public int getDay() {
+        return (int) (this.tick / SECONDS_PER_DAY);
+    }
+
+    // Get the current time of day
     public LocalTime getTime() {
-        return time;
+        return LocalTime.ofSecondOfDay(this.tick % SECONDS_PER_DAY);
     }
 
+    // Set the current time to the given time of day, on the current day
     public void setTime(LocalTime time) {
-        this.time = time;
+        this.tick = getDay() * SECONDS_PER_DAY + time.toSecondOfDay();
     }
 
+    // Get the starting time of day
     public LocalTime getStartTime() {
-        return startTime;
+        return LocalTime.ofSecondOfDay(this.startTick % SECONDS_PER_DAY);
+    }
+
+    // Write the current time the way it is read, with the day only written after the first day
+    @Override
+    public String toString() {
+        final int day = getDay();
+
+        return day > 0 ? day + "+" + getTime() : getTime().toString();
     }
 }
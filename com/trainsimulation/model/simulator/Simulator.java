@@ -6,41 +6,49 @@ import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInfo
 import com.crowdsimulation.model.core.environment.station.Floor;
 import com.crowdsimulation.model.core.environment.station.Station;
 import com.crowdsimulation.model.core.environment.station.patch.patchobject.passable.gate.StationGate;
-import com.trainsimulation.controller.Main;
-import com.trainsimulation.controller.graphics.GraphicsController;
-import com.trainsimulation.controller.screen.MainScreenController;
 import com.trainsimulation.model.core.environment.TrainSystem;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
 import com.trainsimulation.model.db.DatabaseInterface;
+import com.trainsimulation.model.db.DatabaseQueries;
 import com.trainsimulation.model.simulator.setup.EnvironmentSetup;
+import com.trainsimulation.model.simulator.setup.Scenario;
+import com.trainsimulation.model.simulator.setup.TripTable;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 // The simulator has total control over the aspects of the train simulation
-public class Simulator {
-    public static final String TRAIN_SYSTEM_TO_SIMULATE = "LRT-2";
-
+// A simulator owns every thread it starts (the simulation thread, the worker threads, the threads of the train systems
+// and of their trains, and the helper threads), so it may be set up and run any number of times, then closed to stop
+// all of them and let go of everything it holds
+public class Simulator implements AutoCloseable {
     // Denotes whether the simulation has started yet or not
     private final AtomicBoolean running = new AtomicBoolean(false);
 
-    // The lock which manages each simulation tick
-    public static final Object tickLock = new Object();
-
     // Denotes whether the simulation is done or not
     private final AtomicBoolean done = new AtomicBoolean(false);
 
+    // Denotes whether this simulator has been closed, after which it may no longer be set up or run
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
     // Contains the database interfacing methods of the simulator
     private final DatabaseInterface databaseInterface;
 
@@ -56,27 +64,81 @@ public class Simulator {
     // Used to manage when the simulation is paused/played
     private final Semaphore playSemaphore;
 
-    // Use the number of CPUs as the basis for the number of thread pools
-    public static final int NUM_CPUS = Runtime.getRuntime().availableProcessors();
+    // Denotes the parameters of the current simulation run
+    private Scenario scenario;
+
+    // Denotes the observer of the simulation (null if the simulation is running headless)
+    private volatile SimulationObserver simulationObserver;
+
+    // The thread which runs the simulation proper
+    private Thread simulationThread;
+
+    // Runs the train systems in parallel (each train system then updates its own stations and trains in the worker
+    // threads)
+    private ExecutorService trainSystemExecutorService;
+
+    // Runs the stations, floors, passengers, and trains of all train systems in a single pool of worker threads
+    private TickScheduler tickScheduler;
+
+    // Paces the ticks of the simulation
+    private final PacingController pacingController;
+
+    // Records the time taken by each phase of each tick (null if the ticks are not being profiled)
+    private volatile TickProfiler tickProfiler;
 
-    // Variables for logs
-    // Logs completed passenger trips and their attributes (updated every time a passenger completes a trip)
-    public static final List<String> PASSENGER_LOGS = Collections.synchronizedList(new ArrayList<>());
+    // Denotes the rolling hash of the state of the simulation at each tick (null if the state is not being digested)
+    private volatile StateDigest stateDigest;
 
-    // Logs station information (updated every minute)
-    public static final List<String> STATION_LOGS = Collections.synchronizedList(new ArrayList<>());
+    // Denotes the pipeline which logs and draws each tick while the next ticks are being run
+    private volatile ObservationPipeline observationPipeline;
 
-    // Logs train information (updated every time a train departs a station)
-    public static final List<String> TRAIN_LOGS = Collections.synchronizedList(new ArrayList<>());
+    // Denotes the distance to be maintained between each train (m)
+    private final AtomicInteger headwayDistance;
+
+    // Hands out the random number generators of the trains of this simulation, and of the trips generated for it
+    private RandomStreams randomStreams;
+
+    // Contains the trips of the passenger list of each train system (by name) as they were read, packed into tables,
+    // which may be shared with other simulators
+    private final Map<String, TripTable> tripRecords;
+
+    // Held by the simulation thread throughout each tick, so the state of the simulation may only be saved or restored
+    // in between ticks
+    private final Object tickLock;
+
+    // Contains the helper threads started on behalf of the simulation which may still be running
+    private final List<Thread> helperThreads;
+
+    // Use the number of CPUs as the basis for the number of thread pools
+    public static final int NUM_CPUS = Runtime.getRuntime().availableProcessors();
 
 //    public static final List<Passenger> PASSENGERS_SPAWN = Collections.synchronizedList(new ArrayList<>());
 
     public Simulator() throws Throwable {
-        this.databaseInterface = new DatabaseInterface();
+        this(new DatabaseInterface());
+    }
+
+    // The database interface may be shared by multiple simulators, as each query opens its own session
+    public Simulator(DatabaseInterface databaseInterface) {
+        this.databaseInterface = databaseInterface;
         this.trainSystems = new ArrayList<>();
 
         this.playSemaphore = new Semaphore(0);
 
+        this.scenario = new Scenario();
+        this.simulationObserver = null;
+
+        this.headwayDistance = new AtomicInteger(Scenario.DEFAULT_HEADWAY_DISTANCE);
+        this.randomStreams = new RandomStreams(new Random().nextLong());
+
+        this.tripRecords = new HashMap<>();
+
+        this.tickLock = new Object();
+
+        this.helperThreads = Collections.synchronizedList(new ArrayList<>());
+
+        this.pacingController = new PacingController(this.scenario.getRealTimeFactor());
+
         // Start the simulation thread, but in reality it would be activated much later
         this.start();
     }
@@ -89,6 +151,10 @@ public class Simulator {
         return this.done;
     }
 
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
     public DatabaseInterface getDatabaseInterface() {
         return databaseInterface;
     }
@@ -117,32 +183,348 @@ public class Simulator {
         return playSemaphore;
     }
 
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    public SimulationObserver getSimulationObserver() {
+        return simulationObserver;
+    }
+
+    public void setSimulationObserver(SimulationObserver simulationObserver) {
+        this.simulationObserver = simulationObserver;
+    }
+
+    public AtomicInteger getHeadwayDistance() {
+        return headwayDistance;
+    }
+
+    public RandomStreams getRandomStreams() {
+        return randomStreams;
+    }
+
+    void setRandomStreams(RandomStreams randomStreams) {
+        this.randomStreams = randomStreams;
+    }
+
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+
+    public PacingController getPacingController() {
+        return pacingController;
+    }
+
+    public ObservationPipeline getObservationPipeline() {
+        return observationPipeline;
+    }
+
+    // The profiler may be read while the simulation is running
+    public TickProfiler getTickProfiler() {
+        return tickProfiler;
+    }
+
+    public StateDigest getStateDigest() {
+        return stateDigest;
+    }
+
+    // Replace the digest set up from the scenario (e.g., with one limited to the trains and the tracks)
+    // This should be called before the simulation is started
+    public void setStateDigest(StateDigest stateDigest) {
+        this.stateDigest = stateDigest;
+    }
+
+    public Map<String, TripTable> getTripRecords() {
+        return tripRecords;
+    }
+
+    // Use the trips already read by the given simulator, so the passenger lists do not have to be read again when this
+    // simulator is set up
+    public void shareTripRecords(Simulator simulator) {
+        synchronized (simulator.getTripRecords()) {
+            synchronized (this.tripRecords) {
+                this.tripRecords.putAll(simulator.getTripRecords());
+            }
+        }
+    }
+
+    // Return true if there is nothing observing the simulation (i.e., there is no user interface)
+    public boolean isHeadless() {
+        return this.simulationObserver == null;
+    }
+
     // Set the simulation up with all its environments, agents, and attributes
     public void setup(SimulationTime startTime, SimulationTime endTime) {
+        setup(startTime, endTime, new Scenario());
+    }
+
+    // Set the simulation up with all its environments, agents, and attributes, given the parameters of the scenario
+    public void setup(SimulationTime startTime, SimulationTime endTime, Scenario scenario) {
+        if (this.closed.get()) {
+            throw new IllegalStateException("The simulator has been closed");
+        }
+
         // Prepare the time at the start of the simulation
         this.time = startTime;
         this.endTime = endTime;
 
+        // Take note of the scenario to be simulated
+        this.scenario = scenario;
+
+        this.headwayDistance.set(scenario.getHeadwayDistance());
+
+        // Run at the pace requested by the scenario
+        this.pacingController.setTargetRealTimeFactor(scenario.getRealTimeFactor());
+
+        // Start profiling the ticks from scratch, if asked to
+        this.tickProfiler = scenario.isTickProfiling() ? new TickProfiler() : null;
+
+        // Start digesting the state of the simulation from scratch, if asked to
+        this.stateDigest = scenario.isStateDigesting() ? new StateDigest() : null;
+
+        // Observe the simulation through a pipeline of its own, letting go of whatever the previous run left in it
+        ObservationPipeline previousObservationPipeline = this.observationPipeline;
+
+        if (previousObservationPipeline != null) {
+            previousObservationPipeline.shutdown();
+        }
+
+        this.observationPipeline = new ObservationPipeline(this, scenario.getObservationLag());
+
+        // Split the random number generators of the entities off the seed of the scenario (or off a random seed, if the
+        // scenario is not meant to be reproducible)
+        this.randomStreams = new RandomStreams(
+                scenario.getSeed() != null ? scenario.getSeed() : new Random().nextLong()
+        );
+
+        // Prepare the worker threads, which also load the station layouts of the train systems
+        TickScheduler previousTickScheduler = this.tickScheduler;
+
+        this.tickScheduler = new TickScheduler(
+                this.scenario.getWorkerThreads() > 0 ? this.scenario.getWorkerThreads() : Simulator.NUM_CPUS,
+                this.scenario.isDeterministic()
+        );
+
+        if (previousTickScheduler != null) {
+            previousTickScheduler.shutdown();
+        }
+
         // Prepare the train systems
-        List<TrainSystem> trainSystems = EnvironmentSetup.setup(databaseInterface);
+        List<TrainSystem> trainSystems = EnvironmentSetup.setup(this);
+
+        // Load the trains belonging to each train system
+        for (TrainSystem trainSystem : trainSystems) {
+            trainSystem.getInactiveTrains().addAll(DatabaseQueries.getTrains(this.databaseInterface, trainSystem));
+        }
 
         // Then have the simulation take note of them
         // But not before clearing the current array of train systems, so the setup could be run indefinitely
         this.trainSystems.clear();
         this.trainSystems.addAll(trainSystems);
+
+        // Start keeping track of when the trains and events of each train system are due
+        for (TrainSystem trainSystem : this.trainSystems) {
+            trainSystem.resetWakeUps(this.time.getTick());
+        }
+
+        // Run the train systems in parallel, each in a platform thread of its own
+        if (this.trainSystemExecutorService != null) {
+            this.trainSystemExecutorService.shutdown();
+        }
+
+        this.trainSystemExecutorService = Executors.newCachedThreadPool();
+
+        // The simulation thread ends once a run is done, so start a new one for this run if needed
+        if (this.done.getAndSet(false)) {
+            try {
+                this.simulationThread.join();
+            } catch (InterruptedException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        if (!this.simulationThread.isAlive()) {
+            this.start();
+        }
     }
 
-    // Start the simulation and keep it running until the given ending time
-    public void start() {
-        new Thread(() -> {
-            // Initialize a thread pool to run stations in parallel
-            final ExecutorService stationExecutorService = Executors.newFixedThreadPool(Simulator.NUM_CPUS);
+    // Start a thread which runs the given task on behalf of the simulation (e.g., waiting on a semaphore of a train
+    // system), which is a virtual thread in the virtual thread mode
+    // Only these threads are ever virtual, as they spend their lives blocked; the trains and the train systems are
+    // updated by the tick loop and the worker threads, which never block within a tick
+    public Thread startHelperThread(Runnable runnable) {
+        Thread thread;
+
+        if (this.scenario.isVirtualThreads()) {
+            thread = VirtualThreads.start(runnable);
+        } else {
+            thread = new Thread(runnable);
+            thread.start();
+        }
+
+        // Keep track of the helper thread, so it may be stopped once this simulator is closed
+        synchronized (this.helperThreads) {
+            this.helperThreads.removeIf(helperThread -> !helperThread.isAlive());
+            this.helperThreads.add(thread);
+        }
+
+        return thread;
+    }
 
-            // TODO: Implement simultaneous train systems
+    // Stop every thread this simulator has started, then let go of the train systems and the trips it holds
+    // Nothing will be saved from a run which has not been completed
+    // Closing a simulator which has already been closed does nothing
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.running.set(false);
+
+        // Stop the simulation thread, whether it is waiting to be played or in the middle of a run
+        this.simulationThread.interrupt();
+
+        try {
+            this.simulationThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
 
+        // Stop the helper threads, which are only ever waiting for something in the simulation to happen
+        synchronized (this.helperThreads) {
+            for (Thread helperThread : this.helperThreads) {
+                helperThread.interrupt();
+            }
+
+            this.helperThreads.clear();
+        }
+
+        shutdownExecutors();
+
+        ObservationPipeline observationPipeline = this.observationPipeline;
+
+        if (observationPipeline != null) {
+            observationPipeline.shutdown();
+        }
+
+        synchronized (this.tickLock) {
+            for (TrainSystem trainSystem : this.trainSystems) {
+                trainSystem.closeTripSource();
+            }
+
+            this.trainSystems.clear();
+        }
+
+        synchronized (this.tripRecords) {
+            this.tripRecords.clear();
+        }
+    }
+
+    // Stop the worker threads and the threads of the train systems and of their trains once they are done
+    private void shutdownExecutors() {
+        if (this.trainSystemExecutorService != null) {
+            this.trainSystemExecutorService.shutdown();
+        }
+
+        if (this.tickScheduler != null) {
+            this.tickScheduler.shutdown();
+        }
+    }
+
+    // Wait until the simulation thread has finished
+    public void awaitCompletion() throws InterruptedException {
+        this.simulationThread.join();
+    }
+
+    // Run the simulation until its ending time without any user interaction (the trains of the scenario are deployed
+    // by the simulation itself)
+    public void runToCompletion() throws InterruptedException {
+        this.running.set(true);
+        this.playSemaphore.release();
+
+        awaitCompletion();
+    }
+
+    // Save the state of the simulation into the given file
+    // If the simulation is running, the state is saved in between two ticks
+    public void saveCheckpoint(File file) throws IOException {
+        synchronized (this.tickLock) {
+            drainObservations();
+
+            SimulationCheckpoint.save(this, file);
+        }
+    }
+
+    public void saveCheckpoint(OutputStream outputStream) throws IOException {
+        synchronized (this.tickLock) {
+            drainObservations();
+
+            SimulationCheckpoint.save(this, outputStream);
+        }
+    }
+
+    // Restore the state of the simulation from the given file
+    // This simulator should have been set up with the same scenario as the simulator the state was saved from
+    public void restoreCheckpoint(File file) throws IOException {
+        synchronized (this.tickLock) {
+            drainObservations();
+
+            SimulationCheckpoint.restore(this, file);
+
+            for (TrainSystem trainSystem : this.trainSystems) {
+                trainSystem.resetWakeUps(this.time.getTick());
+            }
+        }
+    }
+
+    public void restoreCheckpoint(InputStream inputStream) throws IOException {
+        synchronized (this.tickLock) {
+            drainObservations();
+
+            SimulationCheckpoint.restore(this, inputStream);
+
+            for (TrainSystem trainSystem : this.trainSystems) {
+                trainSystem.resetWakeUps(this.time.getTick());
+            }
+        }
+    }
+
+    // Notify the observer of the simulation, if any, that a train in the given train system has moved
+    // The observer is notified once the tick has been observed
+    public void notifyTrainMoved(TrainSystem trainSystem) {
+        ObservationPipeline observationPipeline = this.observationPipeline;
+
+        if (this.simulationObserver != null && observationPipeline != null) {
+            observationPipeline.recordTrainMoved(trainSystem);
+        }
+    }
+
+    // Notify the observer of the simulation, if any, that a train has been pulled out of the given train system
+    // The observer is notified once the tick has been observed
+    public void notifyTrainPulledOut(TrainSystem trainSystem) {
+        ObservationPipeline observationPipeline = this.observationPipeline;
+
+        if (this.simulationObserver != null && observationPipeline != null) {
+            observationPipeline.recordTrainPulledOut(trainSystem);
+        }
+    }
+
+    // Wait until every tick run so far has been logged and drawn
+    private void drainObservations() {
+        ObservationPipeline observationPipeline = this.observationPipeline;
+
+        if (observationPipeline != null) {
+            observationPipeline.drain();
+        }
+    }
+
+    // Start the simulation and keep it running until the given ending time
+    public void start() {
+        this.simulationThread = new Thread(() -> {
             // TODO: List all floors to update in parallel
 
-            while (true) {
+            while (!this.closed.get()) {
                 try {
                     // Wait until the play button has been pressed
                     playSemaphore.acquire();
@@ -150,142 +532,164 @@ public class Simulator {
                     // Update the pertinent variables when ticking
                     boolean isTimeBeforeOrDuring = this.time.isTimeBeforeOrDuring(this.endTime);
 
+                    // Pace the ticks from this point on
+                    this.pacingController.start();
+
                     // Keep looping until paused
                     while (this.running.get() && isTimeBeforeOrDuring) {
-                        // Redraw the updated time
-                        Main.mainScreenController.requestUpdateSimulationTime(this.time);
-
-                        // Manage all passenger-related updates
-                        updateTrainSystems(stationExecutorService);
-
-                        // Update the view of the current station only
-                        GraphicsController.requestDrawStationView(
-                                MainScreenController.getActiveSimulationContext().getStationViewCanvases(),
-                                MainScreenController.getActiveSimulationContext().getCurrentStation(),
-                                MainScreenController.getActiveSimulationContext().getStationScaleDownFactor(),
-                                false
-                        );
+                        SimulationObserver simulationObserver = this.simulationObserver;
 
-                        // Increment (tick) the clock
-                        this.time.tick();
+                        synchronized (this.tickLock) {
+                            final long tickStart = startPhase();
 
-                        // Pause this simulation thread for a brief amount of time so it could be followed at a pace
-                        // conducive to visualization
-                        isTimeBeforeOrDuring = this.time.isTimeBeforeOrDuring(this.endTime);
-                        Thread.sleep(SimulationTime.SLEEP_TIME_MILLISECONDS.get());
+                            // Update all train systems in parallel, and only move on once all of them have been
+                            // updated
+                            updateTrainSystems(this.trainSystemExecutorService);
+
+                            // Hand whatever is to be logged at this tick over to be logged while the next tick is
+                            // run, along with whether the updated time and the view of the current station are to
+                            // be redrawn (if anything is observing, unless the simulation is falling behind its pace)
+                            this.observationPipeline.publish(
+                                    this.time,
+                                    simulationObserver != null && this.pacingController.shouldRender()
+                            );
 
-                        synchronized (Simulator.tickLock) {
-                            Simulator.tickLock.notifyAll();
+                            // Take the state of the simulation at the end of this tick into the digest, if any
+                            StateDigest stateDigest = this.stateDigest;
+
+                            if (stateDigest != null) {
+                                stateDigest.update(this.time.getTick(), this.trainSystems);
+                            }
+
+                            // Increment (tick) the clock
+                            this.time.tick();
+
+                            endPhase(TickProfiler.Phase.TICK, tickStart);
+
+                            // When headless, skip straight to the next tick in which anything could happen
+                            if (simulationObserver == null && this.scenario.isTimeSkipping()) {
+                                skipIdleTicks();
+                            }
                         }
+
+                        isTimeBeforeOrDuring = this.time.isTimeBeforeOrDuring(this.endTime);
+
+                        // Pause this simulation thread for whatever is left of the time this tick is meant to take, so
+                        // it could be followed at a pace conducive to visualization
+                        this.pacingController.pace();
                     }
 
                     if (!isTimeBeforeOrDuring) {
                         // Once the simulation time stops, stop all the threads
-                        Main.simulator.getDone().set(true);
+                        this.done.set(true);
+
+                        // Wait until the last ticks have been logged and drawn
+                        drainObservations();
+
+                        // Then tell the observer, if any, that the simulation is done
+                        SimulationObserver simulationObserver = this.simulationObserver;
 
-                        // Then tell the UI thread to disable all buttons
-                        Main.mainScreenController.requestDisableButtons();
+                        if (simulationObserver != null) {
+                            simulationObserver.onSimulationDone();
+                        }
 
                         // Save all logs into CSV files
                         for (TrainSystem trainSystem : this.trainSystems) {
-                            if (trainSystem.getTrainSystemInformation().getName().equals(TRAIN_SYSTEM_TO_SIMULATE)) {
-                                savePassengerLogs(trainSystem);
+                            savePassengerLogs(trainSystem);
+
+                            saveStationLogs(trainSystem);
+
+                            saveTrainLogs(trainSystem);
+
+                            // Calculate breakdown of passengers still in system
+                            int passengersOutsideStation = 0;
+                            int passengersInStation = 0;
+                            int passengersInTrain = 0;
+
+                            for (Passenger passenger : trainSystem.getPassengers()) {
+                                if (passenger.getPassengerMovement() == null) {
+                                    passengersOutsideStation++;
+                                } else if (
+                                        passenger.getPassengerMovement().getDisposition()
+                                                == PassengerMovement.Disposition.RIDING_TRAIN
+                                ) {
+                                    passengersInTrain++;
+                                } else {
+                                    passengersInStation++;
+                                }
+                            }
 
-                                saveStationLogs(trainSystem);
+                            // Display total passengers
+                            System.out.println(trainSystem.getTrainSystemInformation().getName());
 
-                                for (Train train : trainSystem.getActiveTrains()) {
-                                    saveTrainLogs(train);
-                                }
+                            System.out.println("Total spawned: " + trainSystem.getSpawnedPassengerCount());
+                            System.out.println("Total completed: " + trainSystem.getPassengerLogs().size());
 
-                                // Calculate breakdown of passengers still in system
-                                int passengersOutsideStation = 0;
-                                int passengersInStation = 0;
-                                int passengersInTrain = 0;
-
-                                for (Passenger passenger : trainSystem.getPassengers()) {
-                                    if (passenger.getPassengerMovement() == null) {
-                                        passengersOutsideStation++;
-                                    } else if (
-                                            passenger.getPassengerMovement().getDisposition()
-                                                    == PassengerMovement.Disposition.RIDING_TRAIN
-                                    ) {
-                                        passengersInTrain++;
-                                    } else {
-                                        passengersInStation++;
-                                    }
-                                }
+                            System.out.println("Total still in system: " + trainSystem.getPassengers().size());
 
-                                // Display total passengers
-                                System.out.println("Total spawned: " + Passenger.passengerCount.get());
-                                System.out.println("Total completed: " + Simulator.PASSENGER_LOGS.size());
+                            System.out.println("\tTotal waiting outside: " + passengersOutsideStation);
+                            System.out.println("\tTotal inside a station: " + passengersInStation);
+                            System.out.println("\tTotal riding a train: " + passengersInTrain);
+                        }
 
-                                System.out.println("Total still in system: " + trainSystem.getPassengers().size());
+                        System.out.println(
+                                "Average real-time factor: "
+                                        + String.format("%.2f", this.pacingController.getAverageRealTimeFactor())
+                        );
+
+                        // Save the digest of the state at each tick, if digested
+                        saveStateDigest();
+
+                        // Display the time taken by each phase of the ticks, if profiled
+                        TickProfiler tickProfiler = this.tickProfiler;
 
-                                System.out.println("\tTotal waiting outside: " + passengersOutsideStation);
-                                System.out.println("\tTotal inside a station: " + passengersInStation);
-                                System.out.println("\tTotal riding a train: " + passengersInTrain);
+                        if (tickProfiler != null) {
+                            System.out.println("Tick profile");
+                            System.out.print(tickProfiler.getReport());
+
+                            // Along with the load balance achieved over the stations of each train system
+                            for (TrainSystem trainSystem : this.trainSystems) {
+                                System.out.println(
+                                        "Station load balance: " + trainSystem.getTrainSystemInformation().getName()
+                                );
+                                System.out.print(
+                                        trainSystem.getStationLoadBalancer().getReport(trainSystem.getStations())
+                                );
                             }
                         }
 
+                        // Stop the threads of the train systems
+                        shutdownExecutors();
+
                         break;
                     }
                 } catch (InterruptedException ex) {
+                    // Being interrupted is how the simulation thread is told that the simulator has been closed
+                    if (this.closed.get()) {
+                        break;
+                    }
+
                     ex.printStackTrace();
                 }
             }
-        }).start();
+        });
+
+        this.simulationThread.start();
     }
 
     // Update passenger logs
+    // The trip is only recorded here, and is logged once the tick has been observed
     public static void logPassenger(Passenger passengerToDespawn) {
-        // Do not log untracked passengers
-//        if (passengerToDespawn.getPassengerTime().getTravelTime() > 0) {
-        // Add the passenger's information into the list of logs
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ISO_LOCAL_TIME;
-
-        String identifier = passengerToDespawn.getPassengerInformation().getIdentifier();
-        String gender = passengerToDespawn.getGender().toString();
-
-        String hasChosenFemaleOnlyCarriage = String.valueOf(
-                passengerToDespawn.getPassengerInformation().hasChosenFemaleOnlyCarriage()
-        );
-
-        String actualEntryTime
-                = passengerToDespawn.getPassengerTime().getTimeSpawned().format(dateTimeFormatter);
-        String entryStation = passengerToDespawn.getPassengerMovement().getRoutePlan().getOriginStation().getName();
-        String exitStation = passengerToDespawn.getPassengerMovement().getRoutePlan().getDestinationStation().getName();
-
-        String travelTime = String.valueOf(passengerToDespawn.getPassengerTime().getTravelTime());
-
-        String entranceTime = String.valueOf(passengerToDespawn.getPassengerTime().getPassedEntrance().getSeconds());
-        String securityTime = String.valueOf(passengerToDespawn.getPassengerTime().getPassedSecurity().getSeconds());
-        String tapInTime = String.valueOf(passengerToDespawn.getPassengerTime().getTappedInTurnstile().getSeconds());
-        String enterTrainTime = String.valueOf(passengerToDespawn.getPassengerTime().getEnteredTrain().getSeconds());
-        String exitTrainTime = String.valueOf(passengerToDespawn.getPassengerTime().getExitedTrain().getSeconds());
-        String tapOutTime = String.valueOf(passengerToDespawn.getPassengerTime().getTappedOutTurnstile().getSeconds());
-        String exitStationTime = String.valueOf(passengerToDespawn.getPassengerTime().getExitedStation().getSeconds());
-        String totalTicksAlive = String.valueOf(passengerToDespawn.getPassengerTime().getTicksAlive().getSeconds());
-
-        String logString
-                = identifier + "," + gender + "," + hasChosenFemaleOnlyCarriage + "," + actualEntryTime + ","
-                + entryStation + "," + exitStation + "," + travelTime + "," + entranceTime + "," + securityTime + ","
-                + tapInTime + "," + enterTrainTime + "," + exitTrainTime + "," + tapOutTime + "," + exitStationTime
-                + "," + totalTicksAlive;
+        // Log the trip in the train system where the passenger came from
+        ObservationPipeline observationPipeline = passengerToDespawn.getPassengerMovement().getRoutePlan()
+                .getOriginStation().getStation().getTrainSystem().getSimulator().getObservationPipeline();
 
-        synchronized (com.trainsimulation.model.simulator.Simulator.PASSENGER_LOGS) {
-            com.trainsimulation.model.simulator.Simulator.PASSENGER_LOGS.add(logString);
-        }
-//        }
+        observationPipeline.recordDespawnedPassenger(passengerToDespawn);
     }
 
     // Update station logs
-    private static synchronized void logStation(Station station, LocalTime currentTime) {
-        // Add the passenger's information into the list of logs
-        String stationName = station.getName();
-        String timePeriod = currentTime.toString();
-
-        int allPassengersInStation = station.getPassengersInStation().size();
-
+    // The state of the station is only counted here, and is logged once the tick has been observed
+    private static void logStation(Station station, SimulationTime currentTime) {
         int northOrWestBoundPassengerCount = 0;
         int southOrEastBoundPassengerCount = 0;
 
@@ -301,11 +705,6 @@ public class Simulator {
             }
         }
 
-        String passengersInStation = String.valueOf(allPassengersInStation);
-
-        String northOrWestBoundPassengers = String.valueOf(northOrWestBoundPassengerCount);
-        String southOrEastBoundPassengers = String.valueOf(southOrEastBoundPassengerCount);
-
         // Count passengers queueing at the station's station gates
         int passengersQueueingToEnter = 0;
 
@@ -319,120 +718,399 @@ public class Simulator {
             }
         }
 
-        String logString
-                = stationName + "," + timePeriod + "," + passengersInStation + "," + northOrWestBoundPassengers
-                + "," + southOrEastBoundPassengers + "," + passengersQueueingToEnter;
-
-        synchronized (com.trainsimulation.model.simulator.Simulator.STATION_LOGS) {
-            com.trainsimulation.model.simulator.Simulator.STATION_LOGS.add(logString);
-        }
+        TrainSystem trainSystem = station.getStation().getTrainSystem();
+
+        trainSystem.getSimulator().getObservationPipeline().recordStationObservation(
+                new ObservationSnapshot.StationObservation(
+                        trainSystem,
+                        station.getName(),
+                        currentTime.getTick(),
+                        station.getPassengersInStation().size(),
+                        northOrWestBoundPassengerCount,
+                        southOrEastBoundPassengerCount,
+                        passengersQueueingToEnter
+                )
+        );
     }
 
     // Update train logs
-    public static void logTrain(Train train, LocalTime currentTime) {
-        String trainIdentifier = String.valueOf(train.getIdentifier());
-
-        String stationRecentlyDeparted = train.getTrainMovement().getPreviousStoppedStation().getName();
-
+    // The departure is only recorded here, and is logged once the tick has been observed
+    public static void logTrain(Train train, SimulationTime currentTime) {
         String trainDirection
                 = PassengerMovement.TravelDirection.convertToTravelDirection(
                 train.getTrainSystem(), train.getTrainMovement().getActualDirection()
         ).toString();
 
-        String timeDeparted = currentTime.toString();
-        String newLoadFactor = train.getTrainProperty().getLoadFactor();
+        train.getTrainSystem().getSimulator().getObservationPipeline().recordTrainDeparture(
+                new ObservationSnapshot.TrainDeparture(
+                        train.getTrainSystem(),
+                        currentTime.getTick(),
+                        train.getIdentifier(),
+                        train.getTrainMovement().getPreviousStoppedStation().getName(),
+                        trainDirection,
+                        train.getTrainProperty().getLoadFactor()
+                )
+        );
+    }
+
+//    public static AtomicBoolean isCrowdControlImplemented = new AtomicBoolean(true);
+//    public static AtomicBoolean willBlock = new AtomicBoolean(false);
 
-        String logString
-                = timeDeparted + "," + trainIdentifier + "," + stationRecentlyDeparted + "," + trainDirection + ","
-                + newLoadFactor.substring(0, 5);
+    // Update all train systems in parallel
+    // In the deterministic mode, the train systems are updated one at a time, in order, as they share the state of the
+    // crowd simulation (such as its passenger counter and its random number generator)
+    private void updateTrainSystems(ExecutorService trainSystemExecutorService) throws InterruptedException {
+        List<TrainSystemUpdateTask> trainSystemUpdateTasks = new ArrayList<>();
 
-        synchronized (com.trainsimulation.model.simulator.Simulator.TRAIN_LOGS) {
-            com.trainsimulation.model.simulator.Simulator.TRAIN_LOGS.add(logString);
+        for (TrainSystem trainSystem : this.trainSystems) {
+            trainSystemUpdateTasks.add(new TrainSystemUpdateTask(trainSystem));
+        }
+
+        if (this.tickScheduler.isDeterministic()) {
+            for (TrainSystemUpdateTask trainSystemUpdateTask : trainSystemUpdateTasks) {
+                trainSystemUpdateTask.call();
+            }
+        } else {
+            trainSystemExecutorService.invokeAll(trainSystemUpdateTasks);
         }
     }
 
-//    public static AtomicBoolean isCrowdControlImplemented = new AtomicBoolean(true);
-//    public static AtomicBoolean willBlock = new AtomicBoolean(false);
+    // Update a train system by one tick
+    // The tick is processed in phases, where each phase only begins once the previous phase has been completed by all
+    // stations and trains of this train system
+    private void updateTrainSystem(TrainSystem trainSystem) throws InterruptedException {
+        long phaseStart = startPhase();
+
+        // Take whatever is due at this tick out of the timing wheels
+        final long tick = this.time.getTick();
+
+        final List<TrainSystem.Event> events = trainSystem.getEventWakeUps().advance(tick);
+        final List<Train> wokenTrains = trainSystem.getTrainWakeUps().advance(tick);
+
+        // Deploy the next train of the scenario, if it is time to do so
+        dispatchTrain(trainSystem);
+        endPhase(TickProfiler.Phase.DISPATCH, phaseStart);
+
+        // Spawn the passengers due at this tick, then update all stations and passengers
+        updateStations(trainSystem, events.contains(TrainSystem.Event.SPAWN));
+
+        phaseStart = startPhase();
+
+        // Have all trains decide what to do at this tick, then have them carry it out
+        List<Train> trains = collectActiveTrains(trainSystem, wokenTrains);
+
+        decideTrains(trains);
+        phaseStart = endPhase(TickProfiler.Phase.TRAIN_DECIDE, phaseStart);
+
+        moveTrains(trains);
+        phaseStart = endPhase(TickProfiler.Phase.TRAIN_MOVE, phaseStart);
+
+        // Log whatever needs to be logged at this tick
+        if (events.contains(TrainSystem.Event.LOG)) {
+            logTrainSystem(trainSystem);
+        }
 
-    // Update all train systems
-    private void updateTrainSystems(ExecutorService stationExecutorService) throws InterruptedException {
-        List<StationUpdateTask> stationUpdateTasks = new ArrayList<>();
-        List<PassengerTickTask> passengerTickTasks = new ArrayList<>();
+        endPhase(TickProfiler.Phase.LOG, phaseStart);
+    }
+
+    // Get the time (ns) when a phase of the tick starts, if the ticks are being profiled
+    private long startPhase() {
+        return this.tickProfiler != null ? System.nanoTime() : 0L;
+    }
+
+    // Record that the given phase of the tick has ended, if the ticks are being profiled, then return the time (ns)
+    // when the next phase starts
+    private long endPhase(TickProfiler.Phase phase, long phaseStart) {
+        TickProfiler tickProfiler = this.tickProfiler;
+
+        return tickProfiler != null ? tickProfiler.record(phase, phaseStart) : 0L;
+    }
+
+    // Skip over the coming ticks in which nothing in the simulation could change, as if each of them had been run
+    // This is the case when there are no passengers anywhere, no train is due to be deployed, and every train is simply
+    // waiting at a station or at the end of the line; the ticks are then skipped until the next tick anything in the
+    // timing wheels of the train systems is due (the next trip, the next train to leave, or the next station logging)
+    private void skipIdleTicks() {
+        final long currentTick = this.time.getTick();
+
+        // Never skip past the ending time, so the last tick is always run
+        long nextTick = this.endTime.getTick();
 
-        // Update each train system
         for (TrainSystem trainSystem : this.trainSystems) {
-            // Every second ending in "00", have the stations log
-            if (this.time.getTime().getSecond() == 0) {
-                for (com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station : trainSystem.getStations()) {
-                    Simulator.logStation(station.getStationLayout(), this.time.getTime());
-                }
+            if (!trainSystem.isEmptyOfPassengers() || canDispatchTrain(trainSystem)) {
+                return;
             }
 
-            // TODO: Consider all train systems
-            if (trainSystem.getTrainSystemInformation().getName().equals(TRAIN_SYSTEM_TO_SIMULATE)) {
-                // Remove trips that happen before the simulation start time
-                trainSystem.removeTripsBeforeStartTime(this.time);
-
-//                if (this.time.getTime().isAfter(LocalTime.of(7, 0)) && this.time.getTime().isBefore(LocalTime.of(8, 0))) {
-//                    isCrowdControlImplemented.set(true);
-//
-//                    if (this.time.getTime().getSecond() == 0) {
-//                        counter.incrementAndGet();
-//                    }
-//
-//                    if (counter.get() % 5 == 0) {
-//                        willBlock.set(!willBlock.get());
-//                    }
-//                } else {
-//                    isCrowdControlImplemented.set(false);
-//                }
-
-                // Collect all stations in the train system
-                List<com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station> stationsInTrainSystem = trainSystem.getStations();
-
-                // Collect all passengers to be spawned at this tick
-                HashMap<com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station, List<PassengerTripInformation>> passengersToSpawn
-                        = trainSystem.getPassengersToSpawn(this.time);
-
-                // Update each station in parallel
-                for (com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station : stationsInTrainSystem) {
-                    // Collect all passengers to be spawned in this station
-                    List<PassengerTripInformation> passengersToSpawnInStation
-                            = passengersToSpawn.get(station);
-
-                    // If, in this station, there are passengers to be spawned, spawn them
-                    stationUpdateTasks.add(new StationUpdateTask(station, passengersToSpawnInStation));
+            synchronized (trainSystem.getActiveTrains()) {
+                for (Train train : trainSystem.getActiveTrains()) {
+                    if (!train.isWaiting()) {
+                        return;
+                    }
                 }
+            }
 
-                // Update each station
-                stationExecutorService.invokeAll(stationUpdateTasks);
+            nextTick = Math.min(nextTick, trainSystem.getEventWakeUps().getNextTick());
+            nextTick = Math.min(nextTick, trainSystem.getTrainWakeUps().getNextTick());
+        }
 
-                // Clear the list of stations to update
-                stationUpdateTasks.clear();
+        if (nextTick <= currentTick) {
+            return;
+        }
 
-                // Tick all passengers
-                synchronized (trainSystem.getPassengers()) {
-                    for (Passenger passenger : trainSystem.getPassengers()) {
-                        passengerTickTasks.add(new PassengerTickTask(passenger));
-                    }
+        final long idleTicks = nextTick - currentTick;
+
+        this.time.skip(idleTicks);
+        this.pacingController.skip(idleTicks);
+    }
+
+    // Return true if a train may be deployed into the given train system at the coming tick
+    private boolean canDispatchTrain(TrainSystem trainSystem) {
+        if (
+                trainSystem.getDispatchedTrainCount() >= this.scenario.getNumberOfTrains()
+                        || trainSystem.getInactiveTrains().isEmpty()
+        ) {
+            return false;
+        }
+
+        return trainSystem.getDispatchedTrainCount() == 0
+                || trainSystem.getTrainDeploymentSemaphore().availablePermits() > 0;
+    }
+
+    // Deploy the next train of the scenario into the given train system, where each train is only deployed once the
+    // train deployed before it has left the depot and entered a station
+    private void dispatchTrain(TrainSystem trainSystem) {
+        if (
+                trainSystem.getDispatchedTrainCount() >= this.scenario.getNumberOfTrains()
+                        || trainSystem.getInactiveTrains().isEmpty()
+        ) {
+            return;
+        }
+
+        // The first train may be deployed right away
+        if (
+                trainSystem.getDispatchedTrainCount() > 0
+                        && !trainSystem.getTrainDeploymentSemaphore().tryAcquire()
+        ) {
+            return;
+        }
+
+        Train train = trainSystem.getInactiveTrains().get(0);
+
+        // Have the train service all the stations of its train system
+        train.getTrainMovement().getStationQueue().setNewStations(
+                trainSystem.getStations(),
+                train.getTrainMovement().isTowardsNearEnd()
+        );
+
+        train.deploy(trainSystem.getActiveTrains(), trainSystem.getInactiveTrains());
+
+        trainSystem.setDispatchedTrainCount(trainSystem.getDispatchedTrainCount() + 1);
+    }
+
+    // Update all stations and passengers of a train system
+    // Each station is a task of the worker threads, which in turn runs each of its floors as a task; only once all
+    // stations are done are the passengers ticked, in chunks
+    // The trips are only looked into when some are due at this tick (or some passengers are to be readmitted)
+    private void updateStations(TrainSystem trainSystem, boolean spawnDue) {
+        long phaseStart = startPhase();
+
+        final HashMap<com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station, List<PassengerTripInformation>> passengersToSpawn;
+
+        if (spawnDue || !trainSystem.getPassengersToReadmit().isEmpty()) {
+            // Remove trips that happen before the simulation start time
+            trainSystem.removeTripsBeforeStartTime(this.time);
+
+            // Collect all passengers to be spawned at this tick
+            passengersToSpawn = trainSystem.getPassengersToSpawn(this.time);
+        } else {
+            passengersToSpawn = new HashMap<>();
+        }
+
+        // Have the train system spawn again once the next trip is due
+        if (spawnDue) {
+            final long nextSpawnTick = trainSystem.getNextSpawnTick(this.time);
+
+            if (nextSpawnTick != Long.MAX_VALUE) {
+                trainSystem.getEventWakeUps().schedule(nextSpawnTick, TrainSystem.Event.SPAWN);
+            }
+        }
+
+        for (List<PassengerTripInformation> passengersToSpawnInStation : passengersToSpawn.values()) {
+            trainSystem.addSpawnedPassengers(passengersToSpawnInStation.size());
+        }
+
+        phaseStart = endPhase(TickProfiler.Phase.SPAWN, phaseStart);
+
+        // Update each station in parallel, spawning the passengers due in it, if any
+        // In the deterministic mode, the stations are updated one at a time, in order, as the passengers moving between
+        // the stations and the trains would otherwise be added to the shared lists in whatever order the threads run
+        if (this.tickScheduler.isDeterministic()) {
+            for (com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station : trainSystem.getStations()) {
+                updateStation(station, passengersToSpawn.get(station));
+            }
+        } else {
+            updateStationGroups(trainSystem, passengersToSpawn);
+        }
+
+        phaseStart = endPhase(TickProfiler.Phase.STATION_UPDATE, phaseStart);
+
+        // Tick all passengers
+        List<Passenger> passengers;
+
+        synchronized (trainSystem.getPassengers()) {
+            passengers = new ArrayList<>(trainSystem.getPassengers());
+        }
+
+        this.tickScheduler.forEach(
+                passengers,
+                this.scenario.getPassengerChunkSize(),
+                passenger -> passenger.getPassengerTime().tick()
+        );
+
+        endPhase(TickProfiler.Phase.PASSENGER_TICK, phaseStart);
+    }
+
+    // Update the stations of a train system in parallel, grouped into tasks of about the same predicted cost
+    private void updateStationGroups(
+            TrainSystem trainSystem,
+            Map<com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station, List<PassengerTripInformation>> passengersToSpawn
+    ) {
+        StationLoadBalancer stationLoadBalancer = trainSystem.getStationLoadBalancer();
+
+        List<StationGroupUpdateTask> stationGroupUpdateTasks = new ArrayList<>();
+
+        for (StationLoadBalancer.StationGroup stationGroup : stationLoadBalancer.plan(
+                trainSystem.getStations(),
+                passengersToSpawn,
+                this.tickScheduler.getParallelism()
+        )) {
+            stationGroupUpdateTasks.add(new StationGroupUpdateTask(trainSystem, stationGroup, passengersToSpawn));
+        }
+
+        this.tickScheduler.invokeAll(stationGroupUpdateTasks);
+
+        stationLoadBalancer.endTick();
+    }
+
+    // Update a station and the passengers inside it, spawning the given passengers (if any)
+    private static void updateStation(
+            com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station,
+            List<PassengerTripInformation> passengersToSpawn
+    ) {
+        updateStation(station, passengersToSpawn, station.getFloorExecutorService());
+    }
+
+    // Update a station and the passengers inside it, spawning the given passengers (if any), with its floors updated
+    // by the given executor
+    private static void updateStation(
+            com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station,
+            List<PassengerTripInformation> passengersToSpawn,
+            ExecutorService floorExecutorService
+    ) {
+        try {
+            com.crowdsimulation.model.simulator.Simulator.updatePassengersInStation(
+                    floorExecutorService,
+                    station.getStationLayout(),
+                    passengersToSpawn,
+                    true
+            );
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // Collect the trains of a train system which are to be moved at this tick, in the order they were deployed
+    // A train waiting at a station or at the end of the line is left alone, unless it has just been woken up to leave
+    private List<Train> collectActiveTrains(TrainSystem trainSystem, List<Train> wokenTrains) {
+        Set<Train> wokenTrainSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        wokenTrainSet.addAll(wokenTrains);
+
+        List<Train> trains = new ArrayList<>();
+
+        synchronized (trainSystem.getActiveTrains()) {
+            for (Train train : trainSystem.getActiveTrains()) {
+                if (!train.isWaiting() || wokenTrainSet.contains(train)) {
+                    trains.add(train);
                 }
+            }
+        }
+
+        return trains;
+    }
+
+    // Have each train decide what to do at this tick in parallel
+    private void decideTrains(List<Train> trains) {
+        this.tickScheduler.forEach(trains, this.scenario.getTrainChunkSize(), Train::decide);
+    }
+
+    // Have each train carry out what it has decided, one train at a time, always in the same order
+    private void moveTrains(List<Train> trains) {
+        for (Train train : trains) {
+            train.run();
+        }
+    }
+
+    // Update the logs of a train system, which is due every second ending in "00"
+    private void logTrainSystem(TrainSystem trainSystem) {
+        for (com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station : trainSystem.getStations()) {
+            Simulator.logStation(station.getStationLayout(), this.time);
+        }
+
+        // Have the stations log again at the start of the next minute
+        trainSystem.getEventWakeUps().schedule(this.time.getTick() + 60, TrainSystem.Event.LOG);
+    }
+
+    // Get the directory where the logs of the given train system are to be saved
+    private String getLogDirectory(TrainSystem trainSystem) {
+        // Save the logs in the log directory of the scenario, if one has been given
+        if (this.scenario.getLogDirectory() != null) {
+            File logDirectory = new File(
+                    this.scenario.getLogDirectory(),
+                    trainSystem.getTrainSystemInformation().getName()
+            );
+
+            // Create the directory first if it doesn't exist yet
+            logDirectory.mkdirs();
 
-                stationExecutorService.invokeAll(passengerTickTasks);
+            return logDirectory.getPath() + File.separator;
+        } else {
+            return trainSystem.getTrainSystemInformation().getTrainSystemPath() + File.separator + "logs"
+                    + File.separator;
+        }
+    }
+
+    // Save the digest of the state at each tick into the log directory of the scenario (if one has been given), and
+    // display the final digest
+    private void saveStateDigest() {
+        StateDigest stateDigest = this.stateDigest;
+
+        if (stateDigest == null) {
+            return;
+        }
+
+        System.out.println("Final state digest: " + Long.toHexString(stateDigest.getDigest()));
 
-                // Clear the list of passengers to tick
-                passengerTickTasks.clear();
+        if (this.scenario.getLogDirectory() != null) {
+            File logDirectory = new File(this.scenario.getLogDirectory());
+
+            logDirectory.mkdirs();
+
+            try {
+                stateDigest.save(new File(logDirectory, "state_digest.csv"));
+            } catch (FileNotFoundException ex) {
+                ex.printStackTrace();
             }
         }
     }
 
     // Save the logs into files
     private void savePassengerLogs(TrainSystem trainSystem) {
-        final String workingDirectory = trainSystem.getTrainSystemInformation().getTrainSystemPath() + "\\logs\\";
+        final String workingDirectory = getLogDirectory(trainSystem);
 
         final String fileName = workingDirectory + "passenger_logs.csv";
 
-        synchronized (Simulator.PASSENGER_LOGS) {
-            Collections.sort(Simulator.PASSENGER_LOGS);
+        synchronized (trainSystem.getPassengerLogs()) {
+            Collections.sort(trainSystem.getPassengerLogs());
         }
 
         try (PrintWriter printWriter = new PrintWriter(fileName)) {
@@ -458,8 +1136,8 @@ public class Simulator {
 
             stringBuilder.append("\n");
 
-            synchronized (Simulator.PASSENGER_LOGS) {
-                for (String log : Simulator.PASSENGER_LOGS) {
+            synchronized (trainSystem.getPassengerLogs()) {
+                for (String log : trainSystem.getPassengerLogs()) {
                     stringBuilder.append(log);
                     stringBuilder.append("\n");
                 }
@@ -472,8 +1150,7 @@ public class Simulator {
     }
 
     private void saveStationLogs(TrainSystem trainSystem) {
-        final String workingDirectory
-                = trainSystem.getTrainSystemInformation().getTrainSystemPath() + "\\logs\\";
+        final String workingDirectory = getLogDirectory(trainSystem);
 
         final String fileName = workingDirectory + "station_logs.csv";
 
@@ -491,8 +1168,8 @@ public class Simulator {
 
             stringBuilder.append("\n");
 
-            synchronized (Simulator.STATION_LOGS) {
-                for (String log : Simulator.STATION_LOGS) {
+            synchronized (trainSystem.getStationLogs()) {
+                for (String log : trainSystem.getStationLogs()) {
                     stringBuilder.append(log);
                     stringBuilder.append("\n");
                 }
@@ -504,14 +1181,13 @@ public class Simulator {
         }
     }
 
-    private void saveTrainLogs(Train train) {
-        final String workingDirectory
-                = train.getTrainSystem().getTrainSystemInformation().getTrainSystemPath() + "\\logs\\";
+    private void saveTrainLogs(TrainSystem trainSystem) {
+        final String workingDirectory = getLogDirectory(trainSystem);
 
         final String fileName = workingDirectory + "train_logs.csv";
 
-        synchronized (Simulator.TRAIN_LOGS) {
-            Collections.sort(Simulator.TRAIN_LOGS);
+        synchronized (trainSystem.getTrainLogs()) {
+            Collections.sort(trainSystem.getTrainLogs());
         }
 
         try (PrintWriter printWriter = new PrintWriter(fileName)) {
@@ -527,8 +1203,8 @@ public class Simulator {
 
             stringBuilder.append("\n");
 
-            synchronized (Simulator.TRAIN_LOGS) {
-                for (String log : Simulator.TRAIN_LOGS) {
+            synchronized (trainSystem.getTrainLogs()) {
+                for (String log : trainSystem.getTrainLogs()) {
                     stringBuilder.append(log);
                     stringBuilder.append("\n");
                 }
@@ -540,25 +1216,18 @@ public class Simulator {
         }
     }
 
-    // Contains the necessary operations to update stations in parallel
-    public static class StationUpdateTask implements Callable<Void> {
-        private final com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station;
-        private final List<PassengerTripInformation> passengersToSpawn;
+    // Updates train systems in parallel
+    private class TrainSystemUpdateTask implements Callable<Void> {
+        private final TrainSystem trainSystem;
 
-        public StationUpdateTask(com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station, List<PassengerTripInformation> passengersToSpawn) {
-            this.station = station;
-            this.passengersToSpawn = passengersToSpawn;
+        public TrainSystemUpdateTask(TrainSystem trainSystem) {
+            this.trainSystem = trainSystem;
         }
 
         @Override
-        public Void call() throws Exception {
+        public Void call() {
             try {
-                com.crowdsimulation.model.simulator.Simulator.updatePassengersInStation(
-                        this.station.getFloorExecutorService(),
-                        station.getStationLayout(),
-                        this.passengersToSpawn,
-                        true
-                );
+                updateTrainSystem(this.trainSystem);
             } catch (Exception ex) {
                 ex.printStackTrace();
             }
@@ -567,20 +1236,39 @@ public class Simulator {
         }
     }
 
-    // Ticks passengers in parallel
-    public static class PassengerTickTask implements Callable<Void> {
-        private final Passenger passenger;
-
-        public PassengerTickTask(Passenger passenger) {
-            this.passenger = passenger;
+    // Updates a group of stations of a train system, one after the other, measuring the cost of each
+    private class StationGroupUpdateTask implements Callable<Void> {
+        private final TrainSystem trainSystem;
+        private final StationLoadBalancer.StationGroup stationGroup;
+        private final Map<com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station, List<PassengerTripInformation>> passengersToSpawn;
+
+        public StationGroupUpdateTask(
+                TrainSystem trainSystem,
+                StationLoadBalancer.StationGroup stationGroup,
+                Map<com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station, List<PassengerTripInformation>> passengersToSpawn
+        ) {
+            this.trainSystem = trainSystem;
+            this.stationGroup = stationGroup;
+            this.passengersToSpawn = passengersToSpawn;
         }
 
         @Override
         public Void call() throws Exception {
-            try {
-                passenger.getPassengerTime().tick();
-            } catch (Exception ex) {
-                ex.printStackTrace();
+            for (int index : this.stationGroup.getStationIndices()) {
+                com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station station
+                        = this.trainSystem.getStations().get(index);
+
+                // Split the floors of a costly station off into tasks of their own, and update the floors of the
+                // rest one after the other
+                ExecutorService floorExecutorService = this.stationGroup.isSplit()
+                        ? station.getFloorExecutorService()
+                        : tickScheduler.getInlineExecutorService();
+
+                final long start = System.nanoTime();
+
+                updateStation(station, this.passengersToSpawn.get(station), floorExecutorService);
+
+                this.trainSystem.getStationLoadBalancer().recordCost(index, System.nanoTime() - start);
             }
 
             return null;
@@ -0,0 +1,188 @@
+package com.trainsimulation.model.simulator;
+
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Files the trips of a passenger list by the second of the day they are due, then by their entry station, so the trips
+// due at any second may be taken without going through the trips due at the other seconds
+// The calendar is built once, when the passenger list is loaded, and is never changed afterwards, so it may be read
+// without locking; keeping track of which trips have already been spawned is left to whoever reads it
+public class SpawnCalendar implements TripSource {
+    // Denotes the number of seconds in a day, which is the number of slots of the calendar
+    private static final int SECONDS_PER_DAY = (int) SimulationTime.SECONDS_PER_DAY;
+
+    // Contains the trips, in order of the second they are due, then grouped by entry station (the trips of a station
+    // due at the same second are kept in the order of the passenger list)
+    private final PassengerTripInformation[] trips;
+
+    // Denotes where each run of trips of the same station due at the same second starts in the trips (with an extra
+    // entry for where the last run ends), and the station of each run
+    private final int[] runStarts;
+    private final Station[] runStations;
+
+    // Denotes where the runs of each second start in the runs (with an extra entry for where the last second ends)
+    private final int[] secondRunStarts;
+
+    // Denotes the earliest second at or after each second with any trips due (-1 if there is none)
+    private final int[] nextSeconds;
+
+    // The stations are those of the train system the passenger list belongs to, which fix the order of the runs due at
+    // the same second
+    public SpawnCalendar(List<PassengerTripInformation> passengerList, List<Station> stations) {
+        final int tripCount = passengerList.size();
+
+        Map<Station, Integer> stationIndices = new IdentityHashMap<>();
+
+        for (int index = 0; index < stations.size(); index++) {
+            stationIndices.put(stations.get(index), index);
+        }
+
+        // Work out the second and the station of each trip once
+        final int[] tripSeconds = new int[tripCount];
+        final int[] tripStations = new int[tripCount];
+
+        for (int index = 0; index < tripCount; index++) {
+            PassengerTripInformation passengerTripInformation = passengerList.get(index);
+
+            // A station outside the given stations is ordered after them
+            tripSeconds[index] = passengerTripInformation.getApproximateStationEntryTime().toSecondOfDay();
+            tripStations[index] = stationIndices.computeIfAbsent(
+                    passengerTripInformation.getEntryStation(),
+                    station -> stationIndices.size()
+            );
+        }
+
+        // Order the trips by second, then by station, keeping the order of the passenger list otherwise
+        List<Integer> order = new ArrayList<>(tripCount);
+
+        for (int index = 0; index < tripCount; index++) {
+            order.add(index);
+        }
+
+        order.sort((first, second) -> tripSeconds[first] != tripSeconds[second]
+                ? Integer.compare(tripSeconds[first], tripSeconds[second])
+                : Integer.compare(tripStations[first], tripStations[second]));
+
+        this.trips = new PassengerTripInformation[tripCount];
+
+        List<Integer> runStarts = new ArrayList<>();
+        List<Station> runStations = new ArrayList<>();
+
+        this.secondRunStarts = new int[SECONDS_PER_DAY + 1];
+
+        int second = 0;
+
+        for (int position = 0; position < tripCount; position++) {
+            final int index = order.get(position);
+
+            this.trips[position] = passengerList.get(index);
+
+            // Close off the seconds before the second of this trip
+            while (second < tripSeconds[index]) {
+                second++;
+                this.secondRunStarts[second] = runStarts.size();
+            }
+
+            // Start a new run whenever the second or the station changes
+            if (position == 0 || tripSeconds[order.get(position - 1)] != tripSeconds[index]
+                    || tripStations[order.get(position - 1)] != tripStations[index]) {
+                runStarts.add(position);
+                runStations.add(this.trips[position].getEntryStation());
+            }
+        }
+
+        while (second < SECONDS_PER_DAY) {
+            second++;
+            this.secondRunStarts[second] = runStarts.size();
+        }
+
+        this.runStarts = new int[runStarts.size() + 1];
+
+        for (int run = 0; run < runStarts.size(); run++) {
+            this.runStarts[run] = runStarts.get(run);
+        }
+
+        this.runStarts[runStarts.size()] = tripCount;
+        this.runStations = runStations.toArray(new Station[0]);
+
+        // Link each second to the next second with any trips due, starting from the end of the day
+        this.nextSeconds = new int[SECONDS_PER_DAY];
+
+        int nextSecond = -1;
+
+        for (second = SECONDS_PER_DAY - 1; second >= 0; second--) {
+            if (this.secondRunStarts[second] != this.secondRunStarts[second + 1]) {
+                nextSecond = second;
+            }
+
+            this.nextSeconds[second] = nextSecond;
+        }
+    }
+
+    public int size() {
+        return this.trips.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.trips.length == 0;
+    }
+
+    // Add the trips due at the given second of the day to the trips to be spawned in each station
+    @Override
+    public void collect(int second, Map<Station, List<PassengerTripInformation>> passengersToSpawn) {
+        final List<PassengerTripInformation> trips = Arrays.asList(this.trips);
+
+        for (int run = this.secondRunStarts[second]; run < this.secondRunStarts[second + 1]; run++) {
+            Station station = this.runStations[run];
+
+            List<PassengerTripInformation> passengersToSpawnInStation = passengersToSpawn.get(station);
+
+            if (passengersToSpawnInStation == null) {
+                passengersToSpawnInStation = Collections.synchronizedList(
+                        new ArrayList<>(this.runStarts[run + 1] - this.runStarts[run])
+                );
+
+                passengersToSpawn.put(station, passengersToSpawnInStation);
+            }
+
+            passengersToSpawnInStation.addAll(trips.subList(this.runStarts[run], this.runStarts[run + 1]));
+        }
+    }
+
+    // Get the earliest second of the day at or after the given second with any trips due (-1 if there is none)
+    @Override
+    public int getNextSecond(int second) {
+        if (second >= SECONDS_PER_DAY) {
+            return -1;
+        }
+
+        return this.nextSeconds[Math.max(0, second)];
+    }
+
+    @Override
+    public int getFirstSecond() {
+        return this.nextSeconds[0];
+    }
+
+    // The calendar keeps all trips of the day, so there is nothing to start over
+    @Override
+    public void rewind() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    // Get the number of trips due before the given second of the day
+    public int countBefore(int second) {
+        return this.runStarts[this.secondRunStarts[Math.max(0, Math.min(second, SECONDS_PER_DAY))]];
+    }
+}
@@ -0,0 +1,270 @@
+package com.trainsimulation.model.simulator;
+
+import com.crowdsimulation.model.core.agent.passenger.Passenger;
+import com.crowdsimulation.model.core.environment.station.Floor;
+import com.crowdsimulation.model.core.environment.station.patch.patchobject.passable.gate.StationGate;
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.core.environment.infrastructure.track.Junction;
+import com.trainsimulation.model.core.environment.infrastructure.track.Segment;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.TrainCarriage;
+import com.trainsimulation.model.utility.TrainCarriageLocation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Keeps a rolling hash of the state of the simulation, taken at the end of each tick, so two runs which should have
+// been identical may be compared tick by tick to find the exact tick where they started to differ
+// The state taken in is the position and state of every train, the number of passengers riding each train and inside
+// each station, the passengers queueing at each station gate, and the passengers spawned and still in the system
+// (the logs are left out, as they are written by the observation of the simulation, which may lag behind it)
+// Each digest depends on every digest before it, so two runs only have the same digest at a tick if they have been the
+// same up to that tick
+// A digest may also be limited to the trains and the tracks (the position and state of every train, and the signal of
+// every junction), and started from a given tick, so a run resumed from a checkpoint (which cannot restore the
+// passengers as they were) may be compared with an uninterrupted run from the tick of the checkpoint onwards
+public class StateDigest {
+    // Denotes the initial number of ticks the digests are kept for, which grows as needed
+    private static final int INITIAL_CAPACITY = 4096;
+
+    // Denotes the tick of each digest kept, and the digest itself
+    private long[] ticks;
+    private long[] digests;
+
+    // Denotes the number of digests kept
+    private int size;
+
+    // Denotes the latest digest
+    private long digest;
+
+    // Denotes the first tick taken into the digest (the ticks before it are left out)
+    private final long fromTick;
+
+    // Denotes whether only the trains and the tracks are taken into the digest
+    private final boolean trainsAndTracksOnly;
+
+    // Contains the junctions of each train system, in the order their signals are taken into the digest
+    private final Map<TrainSystem, List<Junction>> junctions;
+
+    public StateDigest() {
+        this(Long.MIN_VALUE, false);
+    }
+
+    public StateDigest(long fromTick, boolean trainsAndTracksOnly) {
+        this.ticks = new long[INITIAL_CAPACITY];
+        this.digests = new long[INITIAL_CAPACITY];
+        this.size = 0;
+        this.digest = 0L;
+        this.fromTick = fromTick;
+        this.trainsAndTracksOnly = trainsAndTracksOnly;
+        this.junctions = new IdentityHashMap<>();
+    }
+
+    public long getDigest() {
+        return digest;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTick(int index) {
+        return this.ticks[index];
+    }
+
+    public long getDigest(int index) {
+        return this.digests[index];
+    }
+
+    // Take the state of the given train systems at the given tick into the digest
+    // This should only be called in between the phases of a tick, when nothing in the simulation is changing
+    public void update(long tick, List<TrainSystem> trainSystems) {
+        if (tick < this.fromTick) {
+            return;
+        }
+
+        long hash = mix(this.digest ^ tick);
+
+        for (TrainSystem trainSystem : trainSystems) {
+            if (this.trainsAndTracksOnly) {
+                synchronized (trainSystem.getActiveTrains()) {
+                    for (Train train : trainSystem.getActiveTrains()) {
+                        hash = combine(hash, hashOf(train, false));
+                    }
+                }
+
+                for (Junction junction : this.junctions.computeIfAbsent(trainSystem, StateDigest::collectJunctions)) {
+                    hash = combine(hash, junction.getSignal().availablePermits());
+                }
+
+                continue;
+            }
+
+            hash = combine(hash, trainSystem.getSpawnedPassengerCount());
+            hash = combine(hash, trainSystem.getPassengers().size());
+
+            synchronized (trainSystem.getActiveTrains()) {
+                for (Train train : trainSystem.getActiveTrains()) {
+                    hash = combine(hash, hashOf(train, true));
+                }
+            }
+
+            for (Station station : trainSystem.getStations()) {
+                hash = combine(hash, hashOf(station));
+            }
+        }
+
+        this.digest = hash;
+
+        if (this.size == this.ticks.length) {
+            this.ticks = Arrays.copyOf(this.ticks, this.size * 2);
+            this.digests = Arrays.copyOf(this.digests, this.size * 2);
+        }
+
+        this.ticks[this.size] = tick;
+        this.digests[this.size] = hash;
+
+        this.size++;
+    }
+
+    // Save the digest of each tick into the given file
+    public void save(File file) throws FileNotFoundException {
+        try (PrintWriter printWriter = new PrintWriter(file)) {
+            printWriter.println("TICK,DIGEST");
+
+            for (int index = 0; index < this.size; index++) {
+                printWriter.println(this.ticks[index] + "," + Long.toHexString(this.digests[index]));
+            }
+        }
+    }
+
+    // Compare two files of digests, then return the first tick where they differ (or where one of them ends before the
+    // other), or -1 if they are the same throughout
+    public static long findFirstDivergence(File file, File otherFile) throws IOException {
+        try (
+                BufferedReader bufferedReader = new BufferedReader(new FileReader(file));
+                BufferedReader otherBufferedReader = new BufferedReader(new FileReader(otherFile))
+        ) {
+            // Skip the headers
+            bufferedReader.readLine();
+            otherBufferedReader.readLine();
+
+            String line;
+            String otherLine;
+
+            while (true) {
+                line = bufferedReader.readLine();
+                otherLine = otherBufferedReader.readLine();
+
+                if (line == null && otherLine == null) {
+                    return -1;
+                }
+
+                if (!Objects.equals(line, otherLine)) {
+                    String divergentLine = line != null ? line : otherLine;
+
+                    return Long.parseLong(divergentLine.substring(0, divergentLine.indexOf(',')));
+                }
+            }
+        }
+    }
+
+    // Collect the junctions of a train system in the order they are saved in checkpoints, which is the same for every
+    // simulator set up from the same database
+    private static List<Junction> collectJunctions(TrainSystem trainSystem) {
+        return SimulationCheckpoint.collectJunctions(SimulationCheckpoint.collectSegments(trainSystem));
+    }
+
+    // Hash the position and state of a train, and the number of passengers riding it (if asked for)
+    private static long hashOf(Train train, boolean withPassengers) {
+        long hash = train.getIdentifier();
+
+        hash = combine(hash, train.getTrainState() != null ? train.getTrainState().ordinal() + 1 : 0);
+        hash = combine(hash, Double.doubleToLongBits(train.getTrainMovement().getVelocity()));
+
+        for (TrainCarriage trainCarriage : train.getTrainCarriages()) {
+            TrainCarriageLocation trainCarriageLocation = trainCarriage.getTrainCarriageLocation();
+
+            hash = combine(hash, hashOf(trainCarriageLocation.getSegmentLocation()));
+            hash = combine(hash, Double.doubleToLongBits(trainCarriageLocation.getSegmentClearance()));
+
+            if (!withPassengers) {
+                continue;
+            }
+
+            int passengersInCarriage = 0;
+
+            for (List<Passenger> passengers : trainCarriage.getPassengers().values()) {
+                passengersInCarriage += passengers.size();
+            }
+
+            hash = combine(hash, passengersInCarriage);
+        }
+
+        return hash;
+    }
+
+    // Hash a segment by what it is, rather than by where it happens to be in memory, so the hash is the same across
+    // runs
+    private static long hashOf(Segment segment) {
+        if (segment == null) {
+            return 0L;
+        }
+
+        long hash = Objects.hashCode(segment.getName());
+
+        hash = combine(hash, segment.getLength());
+        hash = combine(hash, segment.getDirection() != null ? segment.getDirection().ordinal() + 1 : 0);
+
+        return hash;
+    }
+
+    // Hash the number of passengers inside a station, and the number of passengers queueing at each of its gates
+    private static long hashOf(Station station) {
+        com.crowdsimulation.model.core.environment.station.Station stationLayout = station.getStationLayout();
+
+        long hash = Objects.hashCode(station.getName());
+
+        if (stationLayout == null) {
+            return hash;
+        }
+
+        hash = combine(hash, stationLayout.getPassengersInStation().size());
+
+        synchronized (stationLayout.getFloors()) {
+            for (Floor floor : stationLayout.getFloors()) {
+                synchronized (floor.getStationGates()) {
+                    for (StationGate stationGate : floor.getStationGates()) {
+                        List<Passenger> passengerBacklog = station.getPassengerBacklogs().get(stationGate);
+
+                        hash = combine(hash, passengerBacklog != null ? passengerBacklog.size() : 0);
+                    }
+                }
+            }
+        }
+
+        return hash;
+    }
+
+    private static long combine(long hash, long value) {
+        return mix(hash * 31 + value);
+    }
+
+    // Scramble the bits of the given value (the finalizer of SplitMix64), so nearby values give unrelated hashes
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+
+        return value ^ (value >>> 31);
+    }
+}
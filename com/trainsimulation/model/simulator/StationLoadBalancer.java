@@ -0,0 +1,285 @@
+package com.trainsimulation.model.simulator;
+
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Groups the stations of a train system into tasks of about the same cost before they are updated at each tick, so the
+// few stations crowded at the peak do not keep the worker threads waiting on them while the rest are long done
+// The cost of updating a station is predicted from the number of passengers inside it (and about to be spawned in it),
+// times the cost per passenger last measured for that station
+// A station predicted to cost more than the share of a single worker thread is updated as a task of its own, with its
+// floors split off into tasks of their own; the rest of the stations are packed together into tasks of about the cost
+// of that share, with their floors updated one after the other
+// The imbalance achieved at each tick (the cost of the most costly task over the mean cost of the tasks) is recorded,
+// so it may be reported at the end of the run
+public class StationLoadBalancer {
+    // Denotes the weight of the latest measurement in the cost per passenger of a station
+    private static final double SMOOTHING = 0.2;
+
+    // Denotes the cost per passenger of each station (ns), or NaN if it has not been measured yet
+    private double[] costsPerPassenger;
+
+    // Denotes the number of passengers each station was predicted to be updated for at the current tick
+    private int[] workloads;
+
+    // Denotes the measured cost of each station at the current tick (ns)
+    private long[] costs;
+
+    // Denotes whether each station has its floors split off at the current tick
+    private boolean[] splits;
+
+    // Contains the tasks the stations have been grouped into at the current tick
+    private List<StationGroup> stationGroups;
+
+    // Denotes the totals the report is made of
+    private long balancedTicks;
+    private long totalTasks;
+    private long totalSplitStations;
+    private double totalImbalance;
+    private double maxImbalance;
+    private long[] totalCosts;
+    private long[] splitTicks;
+
+    public StationLoadBalancer() {
+        this.costsPerPassenger = new double[0];
+        this.workloads = new int[0];
+        this.costs = new long[0];
+        this.splits = new boolean[0];
+        this.stationGroups = new ArrayList<>();
+
+        this.balancedTicks = 0;
+        this.totalTasks = 0;
+        this.totalSplitStations = 0;
+        this.totalImbalance = 0.0;
+        this.maxImbalance = 0.0;
+        this.totalCosts = new long[0];
+        this.splitTicks = new long[0];
+    }
+
+    // Group the given stations into tasks for the given number of worker threads, given the passengers about to be
+    // spawned in each of them
+    public List<StationGroup> plan(
+            List<Station> stations,
+            Map<Station, List<PassengerTripInformation>> passengersToSpawn,
+            int parallelism
+    ) {
+        final int stationCount = stations.size();
+
+        if (this.costsPerPassenger.length != stationCount) {
+            resize(stationCount);
+        }
+
+        // Predict the cost of each station from the passengers it is to be updated for
+        final double[] predictedCosts = new double[stationCount];
+        double totalPredictedCost = 0.0;
+
+        for (int index = 0; index < stationCount; index++) {
+            Station station = stations.get(index);
+            List<PassengerTripInformation> passengersToSpawnInStation = passengersToSpawn.get(station);
+
+            int workload = 1;
+
+            if (station.getStationLayout() != null) {
+                workload += station.getStationLayout().getPassengersInStation().size();
+            }
+
+            if (passengersToSpawnInStation != null) {
+                workload += passengersToSpawnInStation.size();
+            }
+
+            this.workloads[index] = workload;
+            this.costs[index] = 0L;
+            this.splits[index] = false;
+
+            if (!Double.isNaN(this.costsPerPassenger[index])) {
+                predictedCosts[index] = this.costsPerPassenger[index] * workload;
+                totalPredictedCost += predictedCosts[index];
+            }
+        }
+
+        final double share = totalPredictedCost / Math.max(1, parallelism);
+
+        List<StationGroup> stationGroups = new ArrayList<>();
+        List<Integer> lightStations = new ArrayList<>();
+
+        for (int index = 0; index < stationCount; index++) {
+            if (Double.isNaN(this.costsPerPassenger[index])) {
+                // Measure a station which has never been measured on its own, with its floors updated one after the
+                // other, so its cost per passenger may be taken
+                stationGroups.add(new StationGroup(new int[]{index}, false));
+            } else if (parallelism > 1 && predictedCosts[index] > share) {
+                this.splits[index] = true;
+
+                stationGroups.add(new StationGroup(new int[]{index}, true));
+            } else {
+                lightStations.add(index);
+            }
+        }
+
+        // Pack the rest of the stations together, the most costly first, each into the first task it fits in
+        lightStations.sort(Comparator.comparingDouble((Integer index) -> predictedCosts[index]).reversed());
+
+        List<List<Integer>> bins = new ArrayList<>();
+        List<Double> binCosts = new ArrayList<>();
+
+        for (int index : lightStations) {
+            int bin = 0;
+
+            while (bin < bins.size() && binCosts.get(bin) + predictedCosts[index] > share) {
+                bin++;
+            }
+
+            if (bin == bins.size()) {
+                bins.add(new ArrayList<>());
+                binCosts.add(0.0);
+            }
+
+            bins.get(bin).add(index);
+            binCosts.set(bin, binCosts.get(bin) + predictedCosts[index]);
+        }
+
+        for (List<Integer> bin : bins) {
+            int[] stationIndices = new int[bin.size()];
+
+            for (int position = 0; position < stationIndices.length; position++) {
+                stationIndices[position] = bin.get(position);
+            }
+
+            stationGroups.add(new StationGroup(stationIndices, false));
+        }
+
+        this.stationGroups = stationGroups;
+
+        return stationGroups;
+    }
+
+    // Record the measured cost of updating the station at the given index at the current tick (ns)
+    // Each station is only ever recorded by the task it has been grouped into
+    public void recordCost(int index, long cost) {
+        this.costs[index] = cost;
+    }
+
+    // Learn from the costs measured at the current tick, and take the imbalance achieved into the report
+    // This should only be called once all tasks of the current tick are done
+    public void endTick() {
+        final List<StationGroup> stationGroups = this.stationGroups;
+
+        if (stationGroups.isEmpty()) {
+            return;
+        }
+
+        long totalCost = 0L;
+        long maxCost = 0L;
+
+        for (StationGroup stationGroup : stationGroups) {
+            long groupCost = 0L;
+
+            for (int index : stationGroup.getStationIndices()) {
+                groupCost += this.costs[index];
+
+                this.totalCosts[index] += this.costs[index];
+
+                if (this.splits[index]) {
+                    this.splitTicks[index]++;
+                    this.totalSplitStations++;
+                } else {
+                    // Only a station whose floors have been updated one after the other shows its whole cost, so only
+                    // those are learned from
+                    final double costPerPassenger = (double) this.costs[index] / this.workloads[index];
+
+                    this.costsPerPassenger[index] = Double.isNaN(this.costsPerPassenger[index])
+                            ? costPerPassenger
+                            : SMOOTHING * costPerPassenger + (1 - SMOOTHING) * this.costsPerPassenger[index];
+                }
+            }
+
+            totalCost += groupCost;
+            maxCost = Math.max(maxCost, groupCost);
+        }
+
+        if (totalCost > 0) {
+            final double imbalance = maxCost / ((double) totalCost / stationGroups.size());
+
+            this.totalImbalance += imbalance;
+            this.maxImbalance = Math.max(this.maxImbalance, imbalance);
+        }
+
+        this.balancedTicks++;
+        this.totalTasks += stationGroups.size();
+    }
+
+    // Summarize the load balance achieved so far as a table, given the stations it was achieved over
+    public String getReport(List<Station> stations) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        final double ticks = Math.max(1, this.balancedTicks);
+
+        stringBuilder.append(String.format(
+                "%-15s %10s %10s %14s %14s%n",
+                "TICKS", "TASKS", "SPLITS", "MEAN_IMBALANCE", "MAX_IMBALANCE"
+        ));
+
+        stringBuilder.append(String.format(
+                "%-15d %10.2f %10.2f %14.3f %14.3f%n",
+                this.balancedTicks,
+                this.totalTasks / ticks,
+                this.totalSplitStations / ticks,
+                this.totalImbalance / ticks,
+                this.maxImbalance
+        ));
+
+        stringBuilder.append(String.format("%-30s %12s %10s%n", "STATION", "MEAN_MS", "SPLIT_%"));
+
+        for (int index = 0; index < Math.min(stations.size(), this.totalCosts.length); index++) {
+            stringBuilder.append(String.format(
+                    "%-30s %12.3f %10.1f%n",
+                    stations.get(index).getName(),
+                    this.totalCosts[index] / ticks / 1e6,
+                    100.0 * this.splitTicks[index] / ticks
+            ));
+        }
+
+        return stringBuilder.toString();
+    }
+
+    // Start keeping track of the given number of stations
+    private void resize(int stationCount) {
+        this.costsPerPassenger = new double[stationCount];
+        Arrays.fill(this.costsPerPassenger, Double.NaN);
+
+        this.workloads = new int[stationCount];
+        this.costs = new long[stationCount];
+        this.splits = new boolean[stationCount];
+
+        this.totalCosts = new long[stationCount];
+        this.splitTicks = new long[stationCount];
+    }
+
+    // Represents stations updated together as a single task of the worker threads
+    public static class StationGroup {
+        // Denotes the indices of the stations in this group, within the stations of the train system
+        private final int[] stationIndices;
+
+        // Denotes whether the floors of the station in this group are split off into tasks of their own
+        private final boolean split;
+
+        public StationGroup(int[] stationIndices, boolean split) {
+            this.stationIndices = stationIndices;
+            this.split = split;
+        }
+
+        public int[] getStationIndices() {
+            return stationIndices;
+        }
+
+        public boolean isSplit() {
+            return split;
+        }
+    }
+}
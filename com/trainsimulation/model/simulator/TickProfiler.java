@@ -0,0 +1,207 @@
+package com.trainsimulation.model.simulator;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Records how long each phase of each tick takes (in wall time), so slow runs may be traced to the phase responsible
+// The phases of the train systems are recorded once per train system per tick, as the train systems are updated in
+// parallel
+// The durations are kept in histograms with a fixed number of buckets, so recording is cheap and takes no memory as
+// the run goes on, and the percentiles may be read at any time, even while the simulation is running
+public class TickProfiler {
+    // Denotes the number of buckets each power of two is divided into, which bounds the error of a percentile to
+    // about 1 / SUB_BUCKETS (6%)
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Denotes the number of buckets of each histogram, enough for durations of up to 2^63 ns
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    // Contains the histogram of each phase
+    private final Map<Phase, Histogram> histograms;
+
+    public TickProfiler() {
+        this.histograms = new EnumMap<>(Phase.class);
+
+        for (Phase phase : Phase.values()) {
+            this.histograms.put(phase, new Histogram());
+        }
+    }
+
+    // Record that the given phase took the time since the given start (ns), then return the current time (ns) so the
+    // next phase may start from it
+    public long record(Phase phase, long startNanoseconds) {
+        final long nowNanoseconds = System.nanoTime();
+
+        this.histograms.get(phase).record(nowNanoseconds - startNanoseconds);
+
+        return nowNanoseconds;
+    }
+
+    // Get the number of times the given phase has been recorded
+    public long getCount(Phase phase) {
+        return this.histograms.get(phase).getCount();
+    }
+
+    // Get the duration (ns) which the given fraction (between 0 and 1) of the recorded durations of the given phase
+    // do not exceed
+    public long getPercentile(Phase phase, double fraction) {
+        return this.histograms.get(phase).getPercentile(fraction);
+    }
+
+    // Get the longest recorded duration of the given phase (ns)
+    public long getMax(Phase phase) {
+        return this.histograms.get(phase).getMax();
+    }
+
+    // Get the total recorded duration of the given phase (ns)
+    public long getTotal(Phase phase) {
+        return this.histograms.get(phase).getTotal();
+    }
+
+    // Summarize the recorded durations of each phase (ms) as a table
+    public String getReport() {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        stringBuilder.append(String.format(
+                "%-15s %10s %10s %10s %10s %12s%n",
+                "PHASE", "COUNT", "P50_MS", "P99_MS", "MAX_MS", "TOTAL_MS"
+        ));
+
+        for (Phase phase : Phase.values()) {
+            stringBuilder.append(String.format(
+                    "%-15s %10d %10.3f %10.3f %10.3f %12.1f%n",
+                    phase,
+                    getCount(phase),
+                    getPercentile(phase, 0.50) / 1e6,
+                    getPercentile(phase, 0.99) / 1e6,
+                    getMax(phase) / 1e6,
+                    getTotal(phase) / 1e6
+            ));
+        }
+
+        return stringBuilder.toString();
+    }
+
+    // Get the index of the bucket the given duration (ns) falls in
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Get the smallest duration (ns) which falls in the given bucket
+    private static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    // The phases of a tick
+    public enum Phase {
+        // Deploying the next train of the scenario, if any (once per train system)
+        DISPATCH,
+
+        // Collecting the passengers due to be spawned (once per train system)
+        SPAWN,
+
+        // Updating all stations and the passengers inside them (once per train system)
+        STATION_UPDATE,
+
+        // Ticking the clocks of all passengers (once per train system)
+        PASSENGER_TICK,
+
+        // Having all trains decide what to do (once per train system)
+        TRAIN_DECIDE,
+
+        // Having all trains carry out what they have decided (once per train system)
+        TRAIN_MOVE,
+
+        // Logging the stations every minute (once per train system)
+        LOG,
+
+        // The whole tick, with all train systems
+        TICK
+    }
+
+    // Counts the durations of a phase, grouped into buckets with logarithmically increasing widths
+    private static class Histogram {
+        private final AtomicLongArray counts;
+        private final AtomicLong count;
+        private final AtomicLong total;
+        private final AtomicLong max;
+
+        public Histogram() {
+            this.counts = new AtomicLongArray(BUCKETS);
+            this.count = new AtomicLong(0);
+            this.total = new AtomicLong(0);
+            this.max = new AtomicLong(0);
+        }
+
+        public void record(long value) {
+            this.counts.incrementAndGet(bucketOf(value));
+            this.count.incrementAndGet();
+            this.total.addAndGet(value);
+
+            long currentMax = this.max.get();
+
+            while (value > currentMax && !this.max.compareAndSet(currentMax, value)) {
+                currentMax = this.max.get();
+            }
+        }
+
+        public long getCount() {
+            return this.count.get();
+        }
+
+        public long getTotal() {
+            return this.total.get();
+        }
+
+        public long getMax() {
+            return this.max.get();
+        }
+
+        // Take the middle of the bucket the percentile falls in, which is never more than the longest duration
+        public long getPercentile(double fraction) {
+            long totalCount = 0;
+
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                totalCount += this.counts.get(bucket);
+            }
+
+            if (totalCount == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(fraction * totalCount));
+
+            long cumulativeCount = 0;
+
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                cumulativeCount += this.counts.get(bucket);
+
+                if (cumulativeCount >= rank) {
+                    final long lowerBound = lowerBoundOf(bucket);
+                    final long upperBound = bucket + 1 < BUCKETS ? lowerBoundOf(bucket + 1) : lowerBound;
+
+                    return Math.min(lowerBound + (upperBound - lowerBound) / 2, getMax());
+                }
+            }
+
+            return getMax();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.trainsimulation.model.simulator;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+// Runs all the parallel work of a simulator (loading the station layouts, then updating the stations, floors,
+// passengers, and trains at each tick) in a single work-stealing pool, so the simulator never uses more worker threads
+// than it has been given
+// Work is split into chunks which are in turn split in halves until small enough, so idle threads may steal the halves
+// of busier threads
+// In the deterministic mode, only work whose order does not matter is run in parallel, and the rest (the stations and
+// their floors) is run one at a time, in a fixed order
+public class TickScheduler {
+    // Denotes the work-stealing pool shared by all train systems of the simulator
+    private final ForkJoinPool forkJoinPool;
+
+    // Denotes the executor given to the crowd simulation, which updates the floors of a station in it
+    private final ExecutorService floorExecutorService;
+
+    // Denotes the executor which has the floors of a station updated one after the other, in the calling thread
+    private final ExecutorService inlineExecutorService;
+
+    // Denotes whether the stations and their floors are updated one at a time
+    private final boolean deterministic;
+
+    public TickScheduler(int parallelism) {
+        this(parallelism, false);
+    }
+
+    public TickScheduler(int parallelism, boolean deterministic) {
+        this.forkJoinPool = new ForkJoinPool(parallelism);
+        this.deterministic = deterministic;
+
+        this.inlineExecutorService = new DirectExecutorService();
+        this.floorExecutorService = deterministic ? this.inlineExecutorService : this.forkJoinPool;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public ExecutorService getFloorExecutorService() {
+        return floorExecutorService;
+    }
+
+    public ExecutorService getInlineExecutorService() {
+        return inlineExecutorService;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public int getParallelism() {
+        return this.forkJoinPool.getParallelism();
+    }
+
+    // Run the given tasks in parallel, and only return once all of them are done
+    public void invokeAll(List<? extends Callable<Void>> tasks) {
+        this.forkJoinPool.invokeAll(tasks);
+    }
+
+    // Apply the given action to each of the given elements in parallel, in chunks of at most the given size, and only
+    // return once all elements are done
+    // A failure of the action on an element does not stop the action from being applied to the rest
+    public <T> void forEach(List<T> elements, int chunkSize, Consumer<T> action) {
+        if (elements.isEmpty()) {
+            return;
+        }
+
+        this.forkJoinPool.invoke(new ChunkAction<>(elements, 0, elements.size(), Math.max(1, chunkSize), action));
+    }
+
+    // Stop the threads of the pool once the work given to them is done
+    public void shutdown() {
+        this.forkJoinPool.shutdown();
+        this.inlineExecutorService.shutdown();
+    }
+
+    // Applies an action to a range of elements, splitting the range in halves until it fits in a single chunk
+    private static class ChunkAction<T> extends RecursiveAction {
+        private final List<T> elements;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final Consumer<T> action;
+
+        public ChunkAction(List<T> elements, int from, int to, int chunkSize, Consumer<T> action) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.chunkSize) {
+                for (int index = this.from; index < this.to; index++) {
+                    try {
+                        this.action.accept(this.elements.get(index));
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+
+                invokeAll(
+                        new ChunkAction<>(this.elements, this.from, middle, this.chunkSize, this.action),
+                        new ChunkAction<>(this.elements, middle, this.to, this.chunkSize, this.action)
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.trainsimulation.model.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps track of the ticks when things in the simulation are due to wake up (e.g., a train due to leave a station), so
+// each tick only has to deal with the things due at that tick instead of checking everything
+// The wheel is made of levels of slots, where each slot of the lowest level holds the things due at a single tick, and
+// each slot of a higher level holds the things due within a whole span of slots of the level below it; once the ticks
+// of a higher slot come up, its contents are spread out into the level below
+// Scheduling and advancing by a tick take constant time, however far ahead things are scheduled
+public class TimingWheel<T> {
+    // Denotes the number of slots in each level
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    // Denotes the number of levels, which cover 2^24 ticks (more than six months) ahead
+    private static final int LEVELS = 4;
+
+    // Contains the things due to wake up in each slot of each level
+    private final List<List<Entry<T>>> slots;
+
+    // Contains the things due to wake up beyond what the levels cover
+    private List<Entry<T>> overflow;
+
+    // Denotes the last tick the wheel has been advanced to
+    private long currentTick;
+
+    // Denotes the number of things scheduled in the wheel
+    private int size;
+
+    // The first tick the wheel will be advanced to is the given tick
+    public TimingWheel(long startTick) {
+        this.slots = new ArrayList<>(LEVELS * SLOTS);
+
+        for (int index = 0; index < LEVELS * SLOTS; index++) {
+            this.slots.add(new ArrayList<>());
+        }
+
+        this.overflow = new ArrayList<>();
+
+        this.currentTick = startTick - 1;
+        this.size = 0;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Have the given thing wake up at the given tick, or at the next tick if the given tick has already passed
+    public void schedule(long tick, T value) {
+        insert(new Entry<>(Math.max(tick, this.currentTick + 1), value));
+
+        this.size++;
+    }
+
+    // Advance the wheel up to the given tick, then return all things due to wake up at or before it, in the order of
+    // their ticks
+    public List<T> advance(long tick) {
+        List<T> dueValues = new ArrayList<>();
+
+        while (this.currentTick < tick) {
+            this.currentTick++;
+
+            // Spread the higher slots starting at this tick out into the levels below
+            cascade();
+
+            List<Entry<T>> slot = this.slots.get((int) (this.currentTick & SLOT_MASK));
+
+            if (!slot.isEmpty()) {
+                for (Entry<T> entry : slot) {
+                    dueValues.add(entry.getValue());
+                }
+
+                this.size -= slot.size();
+
+                slot.clear();
+            }
+        }
+
+        return dueValues;
+    }
+
+    // Get the earliest tick when anything is due to wake up (Long.MAX_VALUE if nothing is)
+    public long getNextTick() {
+        if (this.size == 0) {
+            return Long.MAX_VALUE;
+        }
+
+        // The slots of a level are due in order, starting from the slot after the current one, and every slot of a
+        // level is due before any slot of the levels above it
+        for (int level = 0; level < LEVELS; level++) {
+            final int shift = level * SLOT_BITS;
+            final long currentSlot = (this.currentTick >> shift) & SLOT_MASK;
+
+            for (int offset = 1; offset <= SLOTS; offset++) {
+                List<Entry<T>> slot = this.slots.get(level * SLOTS + (int) ((currentSlot + offset) & SLOT_MASK));
+
+                if (!slot.isEmpty()) {
+                    return earliestTick(slot);
+                }
+            }
+        }
+
+        return earliestTick(this.overflow);
+    }
+
+    // Put an entry into the slot of the lowest level which covers its tick
+    private void insert(Entry<T> entry) {
+        for (int level = 0; level < LEVELS; level++) {
+            final int shift = (level + 1) * SLOT_BITS;
+
+            // The entry belongs to this level if it is due within the same span of slots as the current tick
+            if ((entry.getTick() >> shift) == (this.currentTick >> shift)) {
+                final int slot = (int) ((entry.getTick() >> (level * SLOT_BITS)) & SLOT_MASK);
+
+                this.slots.get(level * SLOTS + slot).add(entry);
+
+                return;
+            }
+        }
+
+        this.overflow.add(entry);
+    }
+
+    // Spread the contents of the higher slots starting at the current tick out into the levels below, starting from
+    // the highest level
+    private void cascade() {
+        if ((this.currentTick & ((1L << (LEVELS * SLOT_BITS)) - 1)) == 0 && !this.overflow.isEmpty()) {
+            List<Entry<T>> entries = this.overflow;
+
+            this.overflow = new ArrayList<>();
+
+            for (Entry<T> entry : entries) {
+                insert(entry);
+            }
+        }
+
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            final int shift = level * SLOT_BITS;
+
+            if ((this.currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+
+            List<Entry<T>> slot = this.slots.get(level * SLOTS + (int) ((this.currentTick >> shift) & SLOT_MASK));
+
+            if (!slot.isEmpty()) {
+                List<Entry<T>> entries = new ArrayList<>(slot);
+
+                slot.clear();
+
+                for (Entry<T> entry : entries) {
+                    insert(entry);
+                }
+            }
+        }
+    }
+
+    private static <T> long earliestTick(List<Entry<T>> entries) {
+        long earliestTick = Long.MAX_VALUE;
+
+        for (Entry<T> entry : entries) {
+            earliestTick = Math.min(earliestTick, entry.getTick());
+        }
+
+        return earliestTick;
+    }
+
+    // Represents a thing due to wake up at a tick
+    private static class Entry<T> {
+        private final long tick;
+        private final T value;
+
+        public Entry(long tick, T value) {
+            this.tick = tick;
+            this.value = value;
+        }
+
+        public long getTick() {
+            return tick;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.trainsimulation.model.simulator;
+
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+
+import java.util.List;
+import java.util.Map;
+
+// Blueprint for where the trips of a train system due at each second of a day are taken from
+// The trips are taken second by second, in order; the trips due before the latest second taken may no longer be there
+public interface TripSource extends AutoCloseable {
+    // Return true if there are no trips at all
+    boolean isEmpty();
+
+    // Add the trips due at the given second of the day to the trips to be spawned in each station
+    void collect(int second, Map<Station, List<PassengerTripInformation>> passengersToSpawn);
+
+    // Get the earliest second of the day at or after the given second with any trips due (-1 if there is none)
+    int getNextSecond(int second);
+
+    // Get the earliest second of the day with any trips due (-1 if there is none)
+    int getFirstSecond();
+
+    // Start the day over, so the trips are taken again from the start of the day
+    void rewind();
+
+    // Let go of whatever is held to take the trips from
+    @Override
+    void close();
+}
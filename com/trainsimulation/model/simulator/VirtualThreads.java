@@ -0,0 +1,56 @@
+package com.trainsimulation.model.simulator;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+// Creates the helper threads of the simulation as virtual threads, which do not hold on to an operating system thread
+// while they are blocked
+// Virtual threads are only available from Java 21 onwards, so they are looked up when the program starts; on older
+// runtimes, platform threads are created instead
+public final class VirtualThreads {
+    // Denotes the method which creates a builder of virtual threads (null if virtual threads are not available)
+    private static final Method OF_VIRTUAL;
+
+    // Denotes the method of the thread builder which starts a thread running the given task
+    private static final Method START;
+
+    static {
+        Method ofVirtual;
+        Method start;
+
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            start = Class.forName("java.lang.Thread$Builder").getMethod("start", Runnable.class);
+        } catch (ReflectiveOperationException ex) {
+            ofVirtual = null;
+            start = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        START = start;
+    }
+
+    private VirtualThreads() {
+    }
+
+    // Return true if the Java runtime supports virtual threads
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    // Start a virtual thread running the given task, or a platform thread if virtual threads are not supported
+    public static Thread start(Runnable runnable) {
+        if (isSupported()) {
+            try {
+                return (Thread) START.invoke(OF_VIRTUAL.invoke(null), runnable);
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        Thread thread = new Thread(runnable);
+        thread.start();
+
+        return thread;
+    }
+}
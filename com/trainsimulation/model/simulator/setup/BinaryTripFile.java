@@ -0,0 +1,220 @@
+package com.trainsimulation.model.simulator.setup;
+
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerMovement;
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Converts the CSV file of a passenger list into a binary trip file, which is then loaded by mapping it into memory
+// instead of reading and parsing it line by line
+// The stations of each trip are resolved once, when the file is converted, and written as their positions in the
+// stations of the train system (the names of which are written at the top of the file, so a file converted for a
+// different set of stations is refused)
+// Each trip is then written as a record of the same width: the tap-in time (as a second of the day), the card number
+// (padded to the width of the longest card number), whether the card is a stored value card, the positions of the
+// entry and exit stations, the direction of travel, and the travel time (s)
+// The file is never written to once converted, so it may be shared by every run, and by every simulator at the same
+// time
+public class BinaryTripFile {
+    // Denotes the number written at the start of every binary trip file
+    private static final int MAGIC_NUMBER = 0x54524950;
+
+    // Denotes the version of the format of binary trip files, which should be changed whenever the format is
+    private static final int VERSION = 1;
+
+    // Denotes the width of a record, apart from the card number (bytes)
+    private static final int RECORD_WIDTH = Integer.BYTES + Byte.BYTES + Short.BYTES + Short.BYTES + Byte.BYTES
+            + Integer.BYTES;
+
+    // Denotes the size of the buffer used when writing the file
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Convert the CSV file of a passenger list of the given train system into a binary trip file, then return the
+    // number of trips written (trips starting and ending at the same station are left out)
+    public static int convert(TrainSystem trainSystem, File passengerListFile, File binaryTripFile) throws IOException {
+        final List<Station> stations = trainSystem.getStations();
+
+        List<TripRecord> tripRecords = new ArrayList<>();
+        List<Station> entryStations = new ArrayList<>();
+        List<Station> exitStations = new ArrayList<>();
+
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(passengerListFile))) {
+            String line;
+
+            // Skip reading the header row
+            bufferedReader.readLine();
+
+            while ((line = bufferedReader.readLine()) != null) {
+                TripRecord tripRecord = EnvironmentSetup.parseTripRecord(line);
+
+                Station entryStation = trainSystem.retrieveStation(tripRecord.getEntryStationName());
+                Station exitStation = trainSystem.retrieveStation(tripRecord.getExitStationName());
+
+                if (entryStation == null || exitStation == null) {
+                    throw new IOException(
+                            "Unknown station in the trip of card number " + tripRecord.getCardNumber()
+                    );
+                }
+
+                if (entryStation.equals(exitStation)) {
+                    System.out.println("Skipped card number " + tripRecord.getCardNumber() + " - same O/D");
+
+                    continue;
+                }
+
+                tripRecords.add(tripRecord);
+                entryStations.add(entryStation);
+                exitStations.add(exitStation);
+            }
+        }
+
+        // Pad each card number to the width of the longest card number
+        int cardNumberWidth = 0;
+
+        for (TripRecord tripRecord : tripRecords) {
+            cardNumberWidth = Math.max(
+                    cardNumberWidth,
+                    tripRecord.getCardNumber().getBytes(StandardCharsets.UTF_8).length
+            );
+        }
+
+        try (DataOutputStream dataOutputStream = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(binaryTripFile), BUFFER_SIZE)
+        )) {
+            dataOutputStream.writeInt(MAGIC_NUMBER);
+            dataOutputStream.writeInt(VERSION);
+
+            // Write the stations the positions in the records refer to
+            dataOutputStream.writeInt(stations.size());
+
+            for (Station station : stations) {
+                byte[] name = station.getName().getBytes(StandardCharsets.UTF_8);
+
+                dataOutputStream.writeShort(name.length);
+                dataOutputStream.write(name);
+            }
+
+            dataOutputStream.writeInt(cardNumberWidth);
+            dataOutputStream.writeInt(tripRecords.size());
+
+            for (int index = 0; index < tripRecords.size(); index++) {
+                TripRecord tripRecord = tripRecords.get(index);
+
+                Station entryStation = entryStations.get(index);
+                Station exitStation = exitStations.get(index);
+
+                PassengerMovement.TravelDirection travelDirection
+                        = EnvironmentSetup.getTravelDirection(trainSystem, entryStation, exitStation);
+
+                byte[] cardNumber = tripRecord.getCardNumber().getBytes(StandardCharsets.UTF_8);
+
+                dataOutputStream.writeInt(tripRecord.getTurnstileTapInTime().toSecondOfDay());
+                dataOutputStream.write(cardNumber);
+                dataOutputStream.write(new byte[cardNumberWidth - cardNumber.length]);
+                dataOutputStream.writeByte(tripRecord.isStoredValue() ? 1 : 0);
+                dataOutputStream.writeShort(stations.indexOf(entryStation));
+                dataOutputStream.writeShort(stations.indexOf(exitStation));
+                dataOutputStream.writeByte(travelDirection != null ? travelDirection.ordinal() : -1);
+                dataOutputStream.writeInt((int) tripRecord.getTravelTime().getSeconds());
+            }
+        }
+
+        return tripRecords.size();
+    }
+
+    // Load the passenger list of the given train system from a binary trip file, in order of station entry time
+    public static List<PassengerTripInformation> load(TrainSystem trainSystem, File binaryTripFile) throws IOException {
+        final List<Station> stations = trainSystem.getStations();
+        final PassengerMovement.TravelDirection[] travelDirections = PassengerMovement.TravelDirection.values();
+
+        try (FileChannel fileChannel = FileChannel.open(binaryTripFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+
+            if (mappedByteBuffer.getInt() != MAGIC_NUMBER) {
+                throw new IOException(binaryTripFile + " is not a binary trip file");
+            }
+
+            final int version = mappedByteBuffer.getInt();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary trip file version: " + version);
+            }
+
+            // Make sure the file has been converted for the same stations
+            final int stationCount = mappedByteBuffer.getInt();
+
+            if (stationCount != stations.size()) {
+                throw new IOException(binaryTripFile + " was converted for a different set of stations");
+            }
+
+            for (Station station : stations) {
+                byte[] name = new byte[mappedByteBuffer.getShort()];
+
+                mappedByteBuffer.get(name);
+
+                if (!station.getName().equals(new String(name, StandardCharsets.UTF_8))) {
+                    throw new IOException(binaryTripFile + " was converted for a different set of stations");
+                }
+            }
+
+            final int cardNumberWidth = mappedByteBuffer.getInt();
+            final int tripCount = mappedByteBuffer.getInt();
+
+            if (mappedByteBuffer.remaining() != (long) tripCount * (RECORD_WIDTH + cardNumberWidth)) {
+                throw new IOException(binaryTripFile + " has been cut short");
+            }
+
+            List<PassengerTripInformation> passengerList = new ArrayList<>(tripCount);
+
+            byte[] cardNumber = new byte[cardNumberWidth];
+
+            for (int index = 0; index < tripCount; index++) {
+                final int tapInSecond = mappedByteBuffer.getInt();
+
+                mappedByteBuffer.get(cardNumber);
+
+                int cardNumberLength = cardNumberWidth;
+
+                while (cardNumberLength > 0 && cardNumber[cardNumberLength - 1] == 0) {
+                    cardNumberLength--;
+                }
+
+                final boolean storedValue = mappedByteBuffer.get() != 0;
+                final Station entryStation = stations.get(mappedByteBuffer.getShort());
+                final Station exitStation = stations.get(mappedByteBuffer.getShort());
+                final byte travelDirection = mappedByteBuffer.get();
+                final int travelTime = mappedByteBuffer.getInt();
+
+                passengerList.add(
+                        new PassengerTripInformation(
+                                TripTimes.getTime(tapInSecond),
+                                new String(cardNumber, 0, cardNumberLength, StandardCharsets.UTF_8),
+                                storedValue,
+                                entryStation,
+                                exitStation,
+                                travelDirection >= 0 ? travelDirections[travelDirection] : null,
+                                TripTimes.getDuration(travelTime)
+                        )
+                );
+            }
+
+            EnvironmentSetup.sortPassengerList(passengerList);
+
+            return passengerList;
+        }
+    }
+}
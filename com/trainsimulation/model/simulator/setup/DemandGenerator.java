@@ -0,0 +1,209 @@
+package com.trainsimulation.model.simulator.setup;
+
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerMovement;
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+import com.trainsimulation.model.simulator.SimulationTime;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Generates the passenger list of a train system from the number of trips made from each station to each station in a
+// day (the origin-destination matrix) and from how the trips are spread over the day (the time-of-day profile), so the
+// simulation may be run with more (or fewer) passengers than any passenger list on file
+// The day is split into intervals of the same length, one for each value of the profile; within each interval, the
+// passengers going from each station to each station arrive at random as a Poisson process, at the rate given by the
+// matrix and the profile, times the ridership multiplier
+// The same matrix, profile, multiplier, and random number generator always give the same passenger list
+public class DemandGenerator {
+    // Denotes the number of seconds in a day
+    private static final int SECONDS_PER_DAY = (int) SimulationTime.SECONDS_PER_DAY;
+
+    // Denotes the default number of intervals of the time-of-day profile taken from a passenger list (15 minutes each)
+    public static final int DEFAULT_PROFILE_INTERVALS = 96;
+
+    // Denotes the train system the passenger list is generated for
+    private final TrainSystem trainSystem;
+
+    // Denotes the number of trips made in a day from each station (row) to each station (column), in the order of the
+    // stations of the train system
+    private final double[][] originDestinationMatrix;
+
+    // Denotes the relative number of trips made in each interval of the day
+    private final double[] timeOfDayProfile;
+
+    // Denotes the travel time of the trips from each station to each station (s)
+    private final int[][] travelTimes;
+
+    // Denotes the share of the trips made with stored value cards
+    private final double storedValueShare;
+
+    public DemandGenerator(
+            TrainSystem trainSystem,
+            double[][] originDestinationMatrix,
+            double[] timeOfDayProfile,
+            int[][] travelTimes,
+            double storedValueShare
+    ) {
+        final int stationCount = trainSystem.getStations().size();
+
+        if (originDestinationMatrix.length != stationCount || travelTimes.length != stationCount) {
+            throw new IllegalArgumentException("The matrices should have a row for each station");
+        }
+
+        for (int origin = 0; origin < stationCount; origin++) {
+            if (originDestinationMatrix[origin].length != stationCount || travelTimes[origin].length != stationCount) {
+                throw new IllegalArgumentException("The matrices should have a column for each station");
+            }
+        }
+
+        if (timeOfDayProfile.length == 0 || timeOfDayProfile.length > SECONDS_PER_DAY) {
+            throw new IllegalArgumentException("The profile should have between 1 and " + SECONDS_PER_DAY + " values");
+        }
+
+        this.trainSystem = trainSystem;
+        this.originDestinationMatrix = originDestinationMatrix;
+        this.timeOfDayProfile = timeOfDayProfile;
+        this.travelTimes = travelTimes;
+        this.storedValueShare = storedValueShare;
+    }
+
+    // Take the origin-destination matrix, the time-of-day profile (over the given number of intervals), the mean
+    // travel times, and the share of stored value cards from the trip records of a day of a train system
+    public static DemandGenerator fromTripRecords(
+            TrainSystem trainSystem,
+            List<TripRecord> tripRecords,
+            int profileIntervals
+    ) {
+        final List<Station> stations = trainSystem.getStations();
+        final int stationCount = stations.size();
+
+        double[][] originDestinationMatrix = new double[stationCount][stationCount];
+        double[] timeOfDayProfile = new double[profileIntervals];
+        long[][] totalTravelTimes = new long[stationCount][stationCount];
+
+        int storedValueTrips = 0;
+        int trips = 0;
+
+        for (TripRecord tripRecord : tripRecords) {
+            final int origin = stations.indexOf(trainSystem.retrieveStation(tripRecord.getEntryStationName()));
+            final int destination = stations.indexOf(trainSystem.retrieveStation(tripRecord.getExitStationName()));
+
+            // Leave out the trips which would be skipped when the passenger list is loaded
+            if (origin < 0 || destination < 0 || origin == destination) {
+                continue;
+            }
+
+            originDestinationMatrix[origin][destination]++;
+            totalTravelTimes[origin][destination] += tripRecord.getTravelTime().getSeconds();
+
+            final int tapInSecond = tripRecord.getTurnstileTapInTime().toSecondOfDay();
+
+            timeOfDayProfile[(int) ((long) tapInSecond * profileIntervals / SECONDS_PER_DAY)]++;
+
+            if (tripRecord.isStoredValue()) {
+                storedValueTrips++;
+            }
+
+            trips++;
+        }
+
+        int[][] travelTimes = new int[stationCount][stationCount];
+
+        for (int origin = 0; origin < stationCount; origin++) {
+            for (int destination = 0; destination < stationCount; destination++) {
+                if (originDestinationMatrix[origin][destination] > 0) {
+                    travelTimes[origin][destination] = (int) Math.round(
+                            totalTravelTimes[origin][destination] / originDestinationMatrix[origin][destination]
+                    );
+                }
+            }
+        }
+
+        return new DemandGenerator(
+                trainSystem,
+                originDestinationMatrix,
+                timeOfDayProfile,
+                travelTimes,
+                trips > 0 ? (double) storedValueTrips / trips : 0.0
+        );
+    }
+
+    // Generate a passenger list with the given multiple of the ridership, drawing from the given random number
+    // generator, sorted according to the approximated station entry time
+    public List<PassengerTripInformation> generate(double ridershipMultiplier, Random random) {
+        final List<Station> stations = this.trainSystem.getStations();
+        final int stationCount = stations.size();
+        final int intervals = this.timeOfDayProfile.length;
+
+        double profileTotal = 0.0;
+
+        for (double intervalDemand : this.timeOfDayProfile) {
+            profileTotal += intervalDemand;
+        }
+
+        List<PassengerTripInformation> passengerList = new ArrayList<>();
+
+        if (profileTotal <= 0.0 || ridershipMultiplier <= 0.0) {
+            return passengerList;
+        }
+
+        int cardNumber = 0;
+
+        for (int origin = 0; origin < stationCount; origin++) {
+            for (int destination = 0; destination < stationCount; destination++) {
+                final double tripsPerDay = this.originDestinationMatrix[origin][destination] * ridershipMultiplier;
+
+                if (origin == destination || tripsPerDay <= 0.0) {
+                    continue;
+                }
+
+                final Station entryStation = stations.get(origin);
+                final Station exitStation = stations.get(destination);
+
+                final PassengerMovement.TravelDirection travelDirection
+                        = EnvironmentSetup.getTravelDirection(this.trainSystem, entryStation, exitStation);
+                final Duration travelTime = TripTimes.getDuration(this.travelTimes[origin][destination]);
+
+                for (int interval = 0; interval < intervals; interval++) {
+                    final long intervalStart = (long) interval * SECONDS_PER_DAY / intervals;
+                    final long intervalEnd = (long) (interval + 1) * SECONDS_PER_DAY / intervals;
+
+                    // Denotes the rate at which these passengers arrive in this interval (passengers/s)
+                    final double rate = tripsPerDay * this.timeOfDayProfile[interval] / profileTotal
+                            / (intervalEnd - intervalStart);
+
+                    if (rate <= 0.0) {
+                        continue;
+                    }
+
+                    // Draw the time between each arrival and the next
+                    double arrivalTime = intervalStart - Math.log(1.0 - random.nextDouble()) / rate;
+
+                    while (arrivalTime < intervalEnd) {
+                        passengerList.add(
+                                new PassengerTripInformation(
+                                        TripTimes.getTime((int) arrivalTime),
+                                        String.format("SYN%09d", cardNumber++),
+                                        random.nextDouble() < this.storedValueShare,
+                                        entryStation,
+                                        exitStation,
+                                        travelDirection,
+                                        travelTime
+                                )
+                        );
+
+                        arrivalTime -= Math.log(1.0 - random.nextDouble()) / rate;
+                    }
+                }
+            }
+        }
+
+        EnvironmentSetup.sortPassengerList(passengerList);
+
+        return passengerList;
+    }
+}
@@ -11,23 +11,41 @@ import com.trainsimulation.model.core.environment.trainservice.passengerservice.
 import com.trainsimulation.model.db.DatabaseInterface;
 import com.trainsimulation.model.db.DatabaseQueries;
 import com.trainsimulation.model.db.entity.EndSegmentsEntity;
+import com.trainsimulation.model.simulator.RandomStreams;
 import com.trainsimulation.model.simulator.Simulator;
 import com.trainsimulation.model.utility.TrainSystemInformation;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
+import java.time.temporal.ChronoField;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 // A class used to set the environment of the simulation
 public class EnvironmentSetup {
+    // Denotes the order of the trips in a passenger list, according to the approximated station entry time
+    static final Comparator<PassengerTripInformation> STATION_ENTRY_TIME_ORDER
+            = new Comparator<PassengerTripInformation>() {
+        public int compare(PassengerTripInformation o1, PassengerTripInformation o2) {
+            long secondsDifference = Duration.between(
+                    o2.getApproximateStationEntryTime(),
+                    o1.getApproximateStationEntryTime()
+            ).getSeconds();
+
+            return (int) secondsDifference;
+        }
+    };
+
     // Set the environment of the given train station up
-    public static List<TrainSystem> setup(DatabaseInterface databaseInterface) {
+    public static List<TrainSystem> setup(Simulator simulator) {
+        // Get the database interface of the simulator
+        DatabaseInterface databaseInterface = simulator.getDatabaseInterface();
+
         // Take note of each train system
         List<TrainSystem> trainSystems = new ArrayList<>();
 
@@ -36,31 +54,29 @@ public class EnvironmentSetup {
 
         // From each of the retrieved information about the train system, realize and create such train system
         for (TrainSystemInformation trainSystemInformation : trainSystemInformations) {
-            if (trainSystemInformation.getName().equals(Simulator.TRAIN_SYSTEM_TO_SIMULATE)) {
-                switch (trainSystemInformation.getName()) {
-                    case "LRT-1":
-//                        trainSystems.add(setupLRT1(databaseInterface, trainSystemInformation));
+            switch (trainSystemInformation.getName()) {
+                case "LRT-1":
+                    trainSystems.add(setupLRT1(simulator, databaseInterface, trainSystemInformation));
 
-                        break;
-                    case "LRT-2":
-                        trainSystems.add(setupLRT2(databaseInterface, trainSystemInformation));
+                    break;
+                case "LRT-2":
+                    trainSystems.add(setupLRT2(simulator, databaseInterface, trainSystemInformation));
 
-                        break;
-                    case "MRT-3":
-//                        trainSystems.add(setupMRT3(databaseInterface, trainSystemInformation));
+                    break;
+                case "MRT-3":
+                    trainSystems.add(setupMRT3(simulator, databaseInterface, trainSystemInformation));
 
-                        break;
-                }
+                    break;
             }
         }
 
         return trainSystems;
     }
 
-    private static TrainSystem setupLRT1(DatabaseInterface databaseInterface,
+    private static TrainSystem setupLRT1(Simulator simulator, DatabaseInterface databaseInterface,
                                          TrainSystemInformation trainSystemInformation) {
         // Create a train system object
-        TrainSystem trainSystem = new TrainSystem(trainSystemInformation);
+        TrainSystem trainSystem = new TrainSystem(simulator, trainSystemInformation);
 
         // Retrieve all stations
         List<Station> stations = DatabaseQueries.getStations(databaseInterface, trainSystem);
@@ -69,8 +85,7 @@ public class EnvironmentSetup {
         trainSystem.getStations().addAll(stations);
 
         // Retrieve the passenger list for this train system
-        List<PassengerTripInformation> passengerList = EnvironmentSetup.retrievePassengerList(trainSystem);
-        trainSystem.loadPassengerList(passengerList);
+        EnvironmentSetup.loadTrips(trainSystem);
 
         // Connect all stations
         for (int stationIndex = 1; stationIndex < stations.size(); stationIndex++) {
@@ -145,10 +160,10 @@ public class EnvironmentSetup {
     }
 
     // Set the LRT-2 system up
-    private static TrainSystem setupLRT2(DatabaseInterface databaseInterface,
+    private static TrainSystem setupLRT2(Simulator simulator, DatabaseInterface databaseInterface,
                                          TrainSystemInformation trainSystemInformation) {
         // Create a train system object
-        TrainSystem trainSystem = new TrainSystem(trainSystemInformation);
+        TrainSystem trainSystem = new TrainSystem(simulator, trainSystemInformation);
 
         // Retrieve all stations
         List<Station> stations = DatabaseQueries.getStations(databaseInterface, trainSystem);
@@ -157,8 +172,7 @@ public class EnvironmentSetup {
         trainSystem.getStations().addAll(stations);
 
         // Retrieve the passenger list for this train system
-        List<PassengerTripInformation> passengerList = EnvironmentSetup.retrievePassengerList(trainSystem);
-        trainSystem.loadPassengerList(passengerList);
+        EnvironmentSetup.loadTrips(trainSystem);
 
         // Connect all stations
         for (int stationIndex = 1; stationIndex < stations.size(); stationIndex++) {
@@ -233,10 +247,10 @@ public class EnvironmentSetup {
     }
 
     // Set the MRT-3 system up
-    private static TrainSystem setupMRT3(DatabaseInterface databaseInterface,
+    private static TrainSystem setupMRT3(Simulator simulator, DatabaseInterface databaseInterface,
                                          TrainSystemInformation trainSystemInformation) {
         // Create a train system object
-        TrainSystem trainSystem = new TrainSystem(trainSystemInformation);
+        TrainSystem trainSystem = new TrainSystem(simulator, trainSystemInformation);
 
         // Retrieve all stations
         List<Station> stations = DatabaseQueries.getStations(databaseInterface, trainSystem);
@@ -245,8 +259,7 @@ public class EnvironmentSetup {
         trainSystem.getStations().addAll(stations);
 
 //         Retrieve the passenger list for this train system
-        List<PassengerTripInformation> passengerList = EnvironmentSetup.retrievePassengerList(trainSystem);
-        trainSystem.loadPassengerList(passengerList);
+        EnvironmentSetup.loadTrips(trainSystem);
 
         // Connect all stations
         for (int stationIndex = 1; stationIndex < stations.size(); stationIndex++) {
@@ -320,117 +333,229 @@ public class EnvironmentSetup {
         return trainSystem;
     }
 
-    // Load a CSV file into a passenger list
+    // Retrieve the passenger list of a train system, only reading its CSV file if the simulator does not have the trips
+    // of the train system yet
+    // If the passenger list has been converted into a binary trip file, that file is loaded instead
     private static List<PassengerTripInformation> retrievePassengerList(TrainSystem trainSystem) {
-        // Denotes where the CSV file of the passenger list of the given train system name can be found
-        String path
-                = "D:\\Documents\\Thesis\\Data\\Data\\Current\\OD and granular data\\Granular data\\Splits\\Jan 2019\\"
-                + trainSystem.getTrainSystemInformation().getName() + "\\Weekday\\"
-//                + trainSystem.getTrainSystemInformation().getName() + "_list_extended_889.csv";
-//                + trainSystem.getTrainSystemInformation().getName() + "_list_extended_1793.csv";
-//                + trainSystem.getTrainSystemInformation().getName() + "_list_extended_2712.csv";
-                + trainSystem.getTrainSystemInformation().getName() + "_list_extended_3646.csv";
-//                + trainSystem.getTrainSystemInformation().getName() + "_list_cleaned.csv";
-//                + trainSystem.getTrainSystemInformation().getName() + "_list_test.csv";
+        File binaryTripFile = new File(getPassengerListPath(trainSystem, Scenario.BINARY_PASSENGER_LIST_FILE_NAME));
+
+        if (binaryTripFile.isFile()) {
+            try {
+                return BinaryTripFile.load(trainSystem, binaryTripFile);
+            } catch (IOException ex) {
+                // Fall back to the CSV file
+                ex.printStackTrace();
+            }
+        }
 
-        List<PassengerTripInformation> passengerList = new ArrayList<>();
+        return createPassengerList(trainSystem, retrieveTripRecords(trainSystem));
+    }
 
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(path))) {
-            String line;
+    // Retrieve the trip records of a train system, only reading its CSV file if the simulator does not have them yet
+    private static TripTable retrieveTripRecords(TrainSystem trainSystem) {
+        final String trainSystemName = trainSystem.getTrainSystemInformation().getName();
+        final Map<String, TripTable> tripRecords = trainSystem.getSimulator().getTripRecords();
 
-            boolean isFirstLine = true;
+        TripTable trainSystemTripRecords;
 
-            while ((line = bufferedReader.readLine()) != null) {
-                // Skip reading the header row
-                if (isFirstLine) {
-                    isFirstLine = false;
+        synchronized (tripRecords) {
+            trainSystemTripRecords = tripRecords.get(trainSystemName);
 
-                    continue;
-                }
+            if (trainSystemTripRecords == null) {
+                trainSystemTripRecords = new TripTable(readTripRecords(trainSystem));
 
-                String[] values = line.split(",");
+                tripRecords.put(trainSystemName, trainSystemTripRecords);
+            }
+        }
 
-                PassengerTripInformation passengerTripInformation;
+        return trainSystemTripRecords;
+    }
 
-                String tripIdentifier = values[1];
-                String[] tripIdentifierComponents = tripIdentifier.split("=");
+    // Have the given train system take its trips either from the whole passenger list, read up front, or from its
+    // CSV file as the simulation goes, if the scenario asks for the trips to be streamed
+    // If the scenario asks for a multiple of the ridership, the trips are generated from the demand found in the
+    // passenger list instead
+    private static void loadTrips(TrainSystem trainSystem) {
+        final Scenario scenario = trainSystem.getSimulator().getScenario();
+        final int tripLoadingWindow = scenario.getTripLoadingWindow();
+
+        if (scenario.getRidershipMultiplier() > 0.0) {
+            trainSystem.loadPassengerList(
+                    EnvironmentSetup.generatePassengerList(trainSystem, scenario.getRidershipMultiplier())
+            );
+        } else if (tripLoadingWindow > 0) {
+            trainSystem.loadTripSource(
+                    new StreamingTripSource(trainSystem, getPassengerListPath(trainSystem), tripLoadingWindow)
+            );
+        } else {
+            trainSystem.loadPassengerList(EnvironmentSetup.retrievePassengerList(trainSystem));
+        }
+    }
 
-                String timeComponent = tripIdentifierComponents[0];
+    // Generate the passenger list of a train system with the given multiple of the ridership of its passenger list
+    // The trips are drawn from the demand stream of the train system, so the same seed gives the same trips
+    private static List<PassengerTripInformation> generatePassengerList(
+            TrainSystem trainSystem,
+            double ridershipMultiplier
+    ) {
+        final String trainSystemName = trainSystem.getTrainSystemInformation().getName();
+
+        DemandGenerator demandGenerator = DemandGenerator.fromTripRecords(
+                trainSystem,
+                retrieveTripRecords(trainSystem),
+                DemandGenerator.DEFAULT_PROFILE_INTERVALS
+        );
+
+        Random random = trainSystem.getSimulator().getRandomStreams().getStream(
+                RandomStreams.EntityKind.DEMAND,
+                trainSystemName,
+                0
+        );
+
+        List<PassengerTripInformation> passengerList = demandGenerator.generate(ridershipMultiplier, random);
+
+        System.out.println(
+                "Generated " + passengerList.size() + " trips for " + trainSystemName + " at " + ridershipMultiplier
+                        + "x the ridership of its passenger list"
+        );
 
-                String[] turnstileTapInTimeComponents = timeComponent.split(":");
+        return passengerList;
+    }
 
-                LocalTime turnstileTapInTime = LocalTime.of(
-                        Integer.parseInt(turnstileTapInTimeComponents[0]),
-                        Integer.parseInt(turnstileTapInTimeComponents[1]),
-                        Integer.parseInt(turnstileTapInTimeComponents[2])
-                );
+    // Get where the CSV file of the passenger list of the given train system can be found
+    static String getPassengerListPath(TrainSystem trainSystem) {
+        return getPassengerListPath(trainSystem, Scenario.PASSENGER_LIST_FILE_NAME);
+    }
 
-                String cardNumber = tripIdentifierComponents[1];
+    // Get where the file with the given name (following the name of the train system) of the passenger list of the
+    // given train system can be found
+    static String getPassengerListPath(TrainSystem trainSystem, String fileName) {
+        // Use the passenger list directory of the scenario, if one has been given
+        String passengerListDirectory = trainSystem.getSimulator().getScenario().getPassengerListDirectory();
+
+        if (passengerListDirectory != null) {
+            return passengerListDirectory + File.separator
+                    + trainSystem.getTrainSystemInformation().getName() + fileName;
+        } else {
+            return "D:\\Documents\\Thesis\\Data\\Data\\Current\\OD and granular data\\Granular data\\Splits\\Jan 2019\\"
+                    + trainSystem.getTrainSystemInformation().getName() + "\\Weekday\\"
+//                    + trainSystem.getTrainSystemInformation().getName() + "_list_extended_889.csv";
+//                    + trainSystem.getTrainSystemInformation().getName() + "_list_extended_1793.csv";
+//                    + trainSystem.getTrainSystemInformation().getName() + "_list_extended_2712.csv";
+                    + trainSystem.getTrainSystemInformation().getName() + fileName;
+//                    + trainSystem.getTrainSystemInformation().getName() + "_list_cleaned.csv";
+//                    + trainSystem.getTrainSystemInformation().getName() + "_list_test.csv";
+        }
+    }
 
-                boolean isStoredValue = values[2].equals("999");
+    // Load a CSV file into a list of trip records, parsing it in parallel chunks
+    private static List<TripRecord> readTripRecords(TrainSystem trainSystem) {
+        // Denotes where the CSV file of the passenger list of the given train system name can be found
+        String path = getPassengerListPath(trainSystem);
 
-                Station entryStation = trainSystem.retrieveStation(values[3]);
-                Station exitStation = trainSystem.retrieveStation(values[4]);
+        try {
+            return ParallelTripReader.readTripRecords(trainSystem, path);
+        } catch (IOException ex) {
+            ex.printStackTrace();
 
-                PassengerMovement.TravelDirection travelDirection = null;
+            return new ArrayList<>();
+        }
+    }
 
-                switch (trainSystem.getTrainSystemInformation().getName()) {
-                    case "LRT-1":
-                    case "MRT-3":
-                        if (entryStation.getSequence() < exitStation.getSequence()) {
-                            travelDirection = PassengerMovement.TravelDirection.SOUTHBOUND;
-                        } else {
-                            travelDirection = PassengerMovement.TravelDirection.NORTHBOUND;
-                        }
+    // Read a line of the CSV file of a passenger list into a trip record
+    static TripRecord parseTripRecord(String line) {
+        String[] values = line.split(",");
 
-                        break;
-                    case "LRT-2":
-                        if (entryStation.getSequence() < exitStation.getSequence()) {
-                            travelDirection = PassengerMovement.TravelDirection.EASTBOUND;
-                        } else {
-                            travelDirection = PassengerMovement.TravelDirection.WESTBOUND;
-                        }
+        String tripIdentifier = values[1];
+        String[] tripIdentifierComponents = tripIdentifier.split("=");
 
-                        break;
-                }
+        String timeComponent = tripIdentifierComponents[0];
+
+        String[] turnstileTapInTimeComponents = timeComponent.split(":");
+
+        int hour = ChronoField.HOUR_OF_DAY.checkValidIntValue(Integer.parseInt(turnstileTapInTimeComponents[0]));
+        int minute = ChronoField.MINUTE_OF_HOUR.checkValidIntValue(Integer.parseInt(turnstileTapInTimeComponents[1]));
+        int second = ChronoField.SECOND_OF_MINUTE.checkValidIntValue(Integer.parseInt(turnstileTapInTimeComponents[2]));
+
+        // Share the time with every other trip tapped in at the same second
+        LocalTime turnstileTapInTime = TripTimes.getTime(hour * 3600 + minute * 60 + second);
+
+        String cardNumber = tripIdentifierComponents[1];
+
+        boolean isStoredValue = values[2].equals("999");
+
+        Duration travelTime = TripTimes.getDuration(Long.parseLong(values[5]));
+
+        return new TripRecord(turnstileTapInTime, cardNumber, isStoredValue, values[3], values[4], travelTime);
+    }
+
+    // Turn a trip record into a trip of the passenger list of a train system (null if the trip is to be skipped)
+    static PassengerTripInformation createPassengerTripInformation(TrainSystem trainSystem, TripRecord tripRecord) {
+        Station entryStation = trainSystem.retrieveStation(tripRecord.getEntryStationName());
+        Station exitStation = trainSystem.retrieveStation(tripRecord.getExitStationName());
+
+        PassengerMovement.TravelDirection travelDirection
+                = getTravelDirection(trainSystem, entryStation, exitStation);
+
+        if (!entryStation.equals(exitStation)) {
+            return new PassengerTripInformation(
+                    tripRecord.getTurnstileTapInTime(),
+                    tripRecord.getCardNumber(),
+                    tripRecord.isStoredValue(),
+                    entryStation,
+                    exitStation,
+                    travelDirection,
+                    tripRecord.getTravelTime()
+            );
+        } else {
+            System.out.println("Skipped card number " + tripRecord.getCardNumber() + " - same O/D");
+
+            return null;
+        }
+    }
 
-                Duration travelTime = Duration.of(
-                        Long.parseLong(values[5]),
-                        ChronoUnit.SECONDS
-                );
-
-                if (!entryStation.equals(exitStation)) {
-                    passengerTripInformation = new PassengerTripInformation(
-                            turnstileTapInTime,
-                            cardNumber,
-                            isStoredValue,
-                            entryStation,
-                            exitStation,
-                            travelDirection,
-                            travelTime
-                    );
-
-                    passengerList.add(passengerTripInformation);
+    // Turn a table of trip records into the passenger list of a train system, sorted according to the approximated
+    // station entry time
+    private static List<PassengerTripInformation> createPassengerList(
+            TrainSystem trainSystem,
+            TripTable tripRecords
+    ) {
+        return ParallelTripReader.createPassengerList(trainSystem, tripRecords);
+    }
+
+    // Sort a passenger list according to the approximated station entry time
+    static void sortPassengerList(List<PassengerTripInformation> passengerList) {
+        passengerList.sort(STATION_ENTRY_TIME_ORDER);
+    }
+
+    // Get the direction a passenger travels in when going from the given entry station to the given exit station
+    public static PassengerMovement.TravelDirection getTravelDirection(
+            TrainSystem trainSystem,
+            Station entryStation,
+            Station exitStation
+    ) {
+        PassengerMovement.TravelDirection travelDirection = null;
+
+        switch (trainSystem.getTrainSystemInformation().getName()) {
+            case "LRT-1":
+            case "MRT-3":
+                if (entryStation.getSequence() < exitStation.getSequence()) {
+                    travelDirection = PassengerMovement.TravelDirection.SOUTHBOUND;
                 } else {
-                    System.out.println("Skipped card number " + cardNumber + " - same O/D");
+                    travelDirection = PassengerMovement.TravelDirection.NORTHBOUND;
                 }
-            }
-
-            // Finally, sort the created list according to the approximated station entry time
-            passengerList.sort(new Comparator<PassengerTripInformation>() {
-                public int compare(PassengerTripInformation o1, PassengerTripInformation o2) {
-                    long secondsDifference = Duration.between(
-                            o2.getApproximateStationEntryTime(),
-                            o1.getApproximateStationEntryTime()
-                    ).getSeconds();
 
-                    return (int) secondsDifference;
+                break;
+            case "LRT-2":
+                if (entryStation.getSequence() < exitStation.getSequence()) {
+                    travelDirection = PassengerMovement.TravelDirection.EASTBOUND;
+                } else {
+                    travelDirection = PassengerMovement.TravelDirection.WESTBOUND;
                 }
-            });
-        } catch (IOException ex) {
-            ex.printStackTrace();
+
+                break;
         }
 
-        return passengerList;
+        return travelDirection;
     }
 }
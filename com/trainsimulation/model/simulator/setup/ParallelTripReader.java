@@ -0,0 +1,356 @@
+package com.trainsimulation.model.simulator.setup;
+
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerMovement;
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+import com.trainsimulation.model.simulator.TickScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+
+// Reads the CSV file of a passenger list, then turns its trip records into the passenger list of a train system, with
+// the work split into chunks run in parallel by the worker threads of the simulator
+// The file is split into chunks on line boundaries, each of which is parsed on its own; the trip records of the chunks
+// are then put back together in the order of the file, so the trip records are the same as if they were read one line
+// after the other
+// The passenger list is made the same way: each chunk of trip records is turned into trips and sorted on its own, then
+// the sorted chunks are merged, taking the trips of the earlier chunk first whenever trips are due at the same time, so
+// the passenger list is the same as if it were sorted as a whole
+// The stations and the direction of travel of each pair of stations are only resolved once, and shared by every trip
+// between them
+public class ParallelTripReader {
+    // Denotes the smallest chunk of the file worth parsing in a task of its own (bytes)
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    // Denotes the smallest chunk of trip records worth turning into trips in a task of its own
+    private static final int MIN_CHUNK_TRIPS = 10000;
+
+    // Read the CSV file of a passenger list into a list of trip records, in the order of the file
+    static List<TripRecord> readTripRecords(TrainSystem trainSystem, String path) throws IOException {
+        final TickScheduler tickScheduler = trainSystem.getSimulator().getTickScheduler();
+
+        final byte[] bytes = Files.readAllBytes(new File(path).toPath());
+
+        // Skip reading the header row
+        final int start = nextLineStart(bytes, 0);
+
+        final int chunkCount = (int) Math.max(
+                1,
+                Math.min(tickScheduler.getParallelism(), (long) (bytes.length - start) / MIN_CHUNK_SIZE)
+        );
+
+        // Split the file into chunks of about the same size, each ending at the end of a line
+        List<TripRecordParseTask> tripRecordParseTasks = new ArrayList<>();
+
+        int chunkStart = start;
+
+        for (int chunk = 1; chunk <= chunkCount && chunkStart < bytes.length; chunk++) {
+            final int chunkTarget = start + (int) ((long) (bytes.length - start) * chunk / chunkCount);
+            final int chunkEnd = chunk == chunkCount
+                    ? bytes.length
+                    : nextLineStart(bytes, Math.max(chunkStart, chunkTarget - 1));
+
+            tripRecordParseTasks.add(new TripRecordParseTask(bytes, chunkStart, chunkEnd));
+
+            chunkStart = chunkEnd;
+        }
+
+        runTasks(tickScheduler, tripRecordParseTasks);
+
+        List<TripRecord> tripRecords = new ArrayList<>();
+
+        for (TripRecordParseTask tripRecordParseTask : tripRecordParseTasks) {
+            tripRecords.addAll(tripRecordParseTask.getTripRecords());
+        }
+
+        return tripRecords;
+    }
+
+    // Turn a table of trip records into the passenger list of a train system, sorted according to the approximated
+    // station entry time
+    static List<PassengerTripInformation> createPassengerList(TrainSystem trainSystem, TripTable tripRecords) {
+        final TickScheduler tickScheduler = trainSystem.getSimulator().getTickScheduler();
+
+        final StationPair[] stationPairs = resolveStationPairs(trainSystem, tripRecords);
+
+        final int chunkCount = Math.max(
+                1,
+                Math.min(tickScheduler.getParallelism(), tripRecords.size() / MIN_CHUNK_TRIPS)
+        );
+
+        List<PassengerListCreateTask> passengerListCreateTasks = new ArrayList<>();
+
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            passengerListCreateTasks.add(
+                    new PassengerListCreateTask(
+                            tripRecords,
+                            stationPairs,
+                            (int) ((long) tripRecords.size() * chunk / chunkCount),
+                            (int) ((long) tripRecords.size() * (chunk + 1) / chunkCount)
+                    )
+            );
+        }
+
+        runTasks(tickScheduler, passengerListCreateTasks);
+
+        if (passengerListCreateTasks.size() == 1) {
+            return passengerListCreateTasks.get(0).getPassengerList();
+        }
+
+        // Merge the sorted chunks, taking the trips of the earlier chunk first whenever trips are due at the same time
+        List<List<PassengerTripInformation>> passengerLists = new ArrayList<>();
+        int tripCount = 0;
+
+        for (PassengerListCreateTask passengerListCreateTask : passengerListCreateTasks) {
+            passengerLists.add(passengerListCreateTask.getPassengerList());
+            tripCount += passengerListCreateTask.getPassengerList().size();
+        }
+
+        PriorityQueue<int[]> cursors = new PriorityQueue<>((first, second) -> {
+            int order = EnvironmentSetup.STATION_ENTRY_TIME_ORDER.compare(
+                    passengerLists.get(first[0]).get(first[1]),
+                    passengerLists.get(second[0]).get(second[1])
+            );
+
+            return order != 0 ? order : Integer.compare(first[0], second[0]);
+        });
+
+        for (int chunk = 0; chunk < passengerLists.size(); chunk++) {
+            if (!passengerLists.get(chunk).isEmpty()) {
+                cursors.add(new int[]{chunk, 0});
+            }
+        }
+
+        List<PassengerTripInformation> passengerList = new ArrayList<>(tripCount);
+
+        while (!cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+
+            List<PassengerTripInformation> chunkPassengerList = passengerLists.get(cursor[0]);
+
+            passengerList.add(chunkPassengerList.get(cursor[1]));
+
+            if (++cursor[1] < chunkPassengerList.size()) {
+                cursors.add(cursor);
+            }
+        }
+
+        return passengerList;
+    }
+
+    // Resolve the stations and the direction of travel of each pair of stations in the given table once, so every trip
+    // of the same pair shares them
+    private static StationPair[] resolveStationPairs(TrainSystem trainSystem, TripTable tripRecords) {
+        StationPair[] stationPairs = new StationPair[tripRecords.getStationPairCount()];
+
+        for (int stationPair = 0; stationPair < stationPairs.length; stationPair++) {
+            Station entryStation = trainSystem.retrieveStation(tripRecords.getEntryStationName(stationPair));
+            Station exitStation = trainSystem.retrieveStation(tripRecords.getExitStationName(stationPair));
+
+            stationPairs[stationPair] = new StationPair(
+                    entryStation,
+                    exitStation,
+                    entryStation != null && exitStation != null
+                            ? EnvironmentSetup.getTravelDirection(trainSystem, entryStation, exitStation)
+                            : null
+            );
+        }
+
+        return stationPairs;
+    }
+
+    // Run the given tasks, in parallel if there is more than one, then rethrow the first failure of any of them
+    private static void runTasks(TickScheduler tickScheduler, List<? extends ChunkTask> tasks) {
+        if (tasks.size() == 1) {
+            tasks.get(0).call();
+        } else {
+            tickScheduler.invokeAll(tasks);
+        }
+
+        for (ChunkTask task : tasks) {
+            if (task.getFailure() != null) {
+                throw task.getFailure();
+            }
+        }
+    }
+
+    // Get the start of the line after the one containing the given position (or the end, if there is none)
+    private static int nextLineStart(byte[] bytes, int position) {
+        while (position < bytes.length && bytes[position] != '\n') {
+            position++;
+        }
+
+        return Math.min(bytes.length, position + 1);
+    }
+
+    // Represents a chunk of work which keeps its failure, if any, to be rethrown once all chunks are done
+    private abstract static class ChunkTask implements Callable<Void> {
+        // Denotes the failure of this task, if any
+        private RuntimeException failure;
+
+        @Override
+        public Void call() {
+            try {
+                run();
+            } catch (RuntimeException ex) {
+                this.failure = ex;
+            }
+
+            return null;
+        }
+
+        protected abstract void run();
+
+        public RuntimeException getFailure() {
+            return failure;
+        }
+    }
+
+    // Parses a chunk of the CSV file of a passenger list into trip records
+    private static class TripRecordParseTask extends ChunkTask {
+        private final byte[] bytes;
+        private final int start;
+        private final int end;
+        private final List<TripRecord> tripRecords;
+
+        public TripRecordParseTask(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+            this.tripRecords = new ArrayList<>();
+        }
+
+        @Override
+        protected void run() {
+            final Charset charset = Charset.defaultCharset();
+
+            int lineStart = this.start;
+
+            while (lineStart < this.end) {
+                int lineEnd = lineStart;
+
+                while (lineEnd < this.end && this.bytes[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+
+                final int nextLineStart = lineEnd + 1;
+
+                // Leave out the carriage return of a line ending in one
+                if (lineEnd > lineStart && this.bytes[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+
+                if (lineEnd > lineStart) {
+                    this.tripRecords.add(
+                            EnvironmentSetup.parseTripRecord(
+                                    new String(this.bytes, lineStart, lineEnd - lineStart, charset)
+                            )
+                    );
+                }
+
+                lineStart = nextLineStart;
+            }
+        }
+
+        public List<TripRecord> getTripRecords() {
+            return tripRecords;
+        }
+    }
+
+    // Turns a chunk of trip records into trips, sorted according to the approximated station entry time
+    private static class PassengerListCreateTask extends ChunkTask {
+        private final TripTable tripRecords;
+        private final StationPair[] stationPairs;
+        private final int start;
+        private final int end;
+        private List<PassengerTripInformation> passengerList;
+
+        public PassengerListCreateTask(TripTable tripRecords, StationPair[] stationPairs, int start, int end) {
+            this.tripRecords = tripRecords;
+            this.stationPairs = stationPairs;
+            this.start = start;
+            this.end = end;
+            this.passengerList = Collections.emptyList();
+        }
+
+        @Override
+        protected void run() {
+            List<PassengerTripInformation> passengerList = new ArrayList<>(this.end - this.start);
+
+            for (int index = this.start; index < this.end; index++) {
+                StationPair stationPair = this.stationPairs[this.tripRecords.getStationPair(index)];
+
+                if (stationPair.getEntryStation() == null || stationPair.getExitStation() == null) {
+                    throw new IllegalStateException(
+                            "Unknown station in the trip of card number " + this.tripRecords.getCardNumber(index)
+                    );
+                }
+
+                if (stationPair.getEntryStation().equals(stationPair.getExitStation())) {
+                    System.out.println(
+                            "Skipped card number " + this.tripRecords.getCardNumber(index) + " - same O/D"
+                    );
+
+                    continue;
+                }
+
+                passengerList.add(
+                        new PassengerTripInformation(
+                                TripTimes.getTime(this.tripRecords.getTapInSecond(index)),
+                                this.tripRecords.getCardNumber(index),
+                                this.tripRecords.isStoredValue(index),
+                                stationPair.getEntryStation(),
+                                stationPair.getExitStation(),
+                                stationPair.getTravelDirection(),
+                                TripTimes.getDuration(this.tripRecords.getTravelSeconds(index))
+                        )
+                );
+            }
+
+            EnvironmentSetup.sortPassengerList(passengerList);
+
+            this.passengerList = passengerList;
+        }
+
+        public List<PassengerTripInformation> getPassengerList() {
+            return passengerList;
+        }
+    }
+
+    // Contains the stations and the direction of travel shared by every trip between the same pair of stations
+    private static class StationPair {
+        private final Station entryStation;
+        private final Station exitStation;
+        private final PassengerMovement.TravelDirection travelDirection;
+
+        public StationPair(
+                Station entryStation,
+                Station exitStation,
+                PassengerMovement.TravelDirection travelDirection
+        ) {
+            this.entryStation = entryStation;
+            this.exitStation = exitStation;
+            this.travelDirection = travelDirection;
+        }
+
+        public Station getEntryStation() {
+            return entryStation;
+        }
+
+        public Station getExitStation() {
+            return exitStation;
+        }
+
+        public PassengerMovement.TravelDirection getTravelDirection() {
+            return travelDirection;
+        }
+    }
+}
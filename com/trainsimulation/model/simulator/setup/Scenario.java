@@ -0,0 +1,323 @@
+package com.trainsimulation.model.simulator.setup;
+
+import com.trainsimulation.model.simulator.PacingController;
+
+// Contains the parameters of a simulation run which are not retrieved from the database
+public class Scenario {
+    // Denotes the file name (following the name of the train system) of the passenger list to be used
+    public static final String PASSENGER_LIST_FILE_NAME = "_list_extended_3646.csv";
+
+    // Denotes the file name (following the name of the train system) of the same passenger list, once converted into a
+    // binary trip file
+    public static final String BINARY_PASSENGER_LIST_FILE_NAME = "_list_extended_3646.trips";
+
+    // Denotes the default distance to be maintained between each train (m)
+    public static final int DEFAULT_HEADWAY_DISTANCE = 300;
+
+    // Denotes the default coefficients of the linear model of the waiting time of a train at a station (s), given the
+    // number of passengers at the platform
+    public static final double DEFAULT_DWELL_TIME_SLOPE = 0.03832;
+    public static final double DEFAULT_DWELL_TIME_INTERCEPT = 11.14;
+
+    // Denotes the default stopping time of the trains at the end of the line (s)
+    public static final int DEFAULT_END_WAITING_TIME = 300;
+
+    // Denotes the default number of passengers and trains updated together as a single task of the worker threads
+    public static final int DEFAULT_PASSENGER_CHUNK_SIZE = 256;
+    public static final int DEFAULT_TRAIN_CHUNK_SIZE = 4;
+
+    // Denotes the default number of ticks the logging and drawing of the simulation may fall behind the simulation
+    public static final int DEFAULT_OBSERVATION_LAG = 4;
+
+    // Denotes the suggested number of seconds the passenger lists are read ahead of the simulation, if streamed
+    public static final int SUGGESTED_TRIP_LOADING_WINDOW = 900;
+
+    // Denotes the number of trains to be deployed automatically in each train system (zero if the trains are to be
+    // deployed manually through the user interface)
+    private int numberOfTrains;
+
+    // Denotes the distance to be maintained between each train (m)
+    private int headwayDistance;
+
+    // Denotes the increase in the waiting time of a train at a station for every passenger at the platform (s)
+    private double dwellTimeSlope;
+
+    // Denotes the waiting time of a train at a station when there are no passengers at the platform (s)
+    private double dwellTimeIntercept;
+
+    // Denotes the stopping time of the trains at the end of the line (s)
+    private int endWaitingTime;
+
+    // Denotes the seed the random number generators of the simulation are split off (null if the simulation is not
+    // meant to be reproducible)
+    private Long seed;
+
+    // Denotes the number of worker threads to be shared by the train systems (zero if all available processors are to
+    // be used)
+    private int workerThreads;
+
+    // Denotes whether the helper threads of the simulation (which wait on behalf of the user interface, and for ticks
+    // to be observed) run in virtual threads instead of platform threads
+    private boolean virtualThreads;
+
+    // Denotes the number of passengers ticked together as a single task of the worker threads
+    private int passengerChunkSize;
+
+    // Denotes the number of trains which decide together as a single task of the worker threads
+    private int trainChunkSize;
+
+    // Denotes whether the time taken by each phase of each tick is recorded
+    private boolean tickProfiling;
+
+    // Denotes the number of simulated seconds to be run per second of wall time (as fast as possible by default)
+    private double realTimeFactor;
+
+    // Denotes whether the ticks in which nothing could happen are skipped over when the simulation is running headless
+    private boolean timeSkipping;
+
+    // Denotes whether the simulation is run so that the same seed always gives the same results, however many worker
+    // threads there are (everything whose order matters, including the train systems, is then run one at a time, in a
+    // fixed order)
+    // The crowd simulation keeps some of its state (such as its passenger counter and its random number generator) in
+    // static fields, which this simulator cannot seed or isolate; the results are only the same if that state starts
+    // out the same, and if no other simulator runs in the same program at the same time
+    private boolean deterministic;
+
+    // Denotes whether a digest of the state of the simulation is computed at each tick
+    private boolean stateDigesting;
+
+    // Denotes the number of ticks the logging and drawing of the simulation may fall behind the simulation itself
+    // before the simulation waits for them to catch up (0 if each tick is logged and drawn before the next one starts)
+    private int observationLag;
+
+    // Denotes the number of seconds the passenger lists are read ahead of the simulation, when they are streamed from
+    // their files as the simulation goes instead of being read whole before the simulation starts (0 if they are read
+    // whole)
+    private int tripLoadingWindow;
+
+    // Denotes the multiple of the ridership of the passenger lists the trips are generated with, from the demand found
+    // in the passenger lists (0 if the trips of the passenger lists are used as they are)
+    private double ridershipMultiplier;
+
+    // Denotes the directory where the passenger lists of the train systems are found (null if the default directory
+    // is to be used)
+    private String passengerListDirectory;
+
+    // Denotes the directory where the logs of the train systems are saved (null if the default directory is to be
+    // used)
+    private String logDirectory;
+
+    public Scenario() {
+        this.numberOfTrains = 0;
+        this.headwayDistance = DEFAULT_HEADWAY_DISTANCE;
+        this.dwellTimeSlope = DEFAULT_DWELL_TIME_SLOPE;
+        this.dwellTimeIntercept = DEFAULT_DWELL_TIME_INTERCEPT;
+        this.endWaitingTime = DEFAULT_END_WAITING_TIME;
+        this.seed = null;
+        this.workerThreads = 0;
+        this.virtualThreads = false;
+        this.passengerChunkSize = DEFAULT_PASSENGER_CHUNK_SIZE;
+        this.trainChunkSize = DEFAULT_TRAIN_CHUNK_SIZE;
+        this.tickProfiling = false;
+        this.realTimeFactor = PacingController.MAXIMUM_REAL_TIME_FACTOR;
+        this.timeSkipping = true;
+        this.deterministic = false;
+        this.stateDigesting = false;
+        this.observationLag = DEFAULT_OBSERVATION_LAG;
+        this.tripLoadingWindow = 0;
+        this.ridershipMultiplier = 0.0;
+        this.passengerListDirectory = null;
+        this.logDirectory = null;
+    }
+
+    public Scenario(int numberOfTrains, String passengerListDirectory, String logDirectory) {
+        this();
+
+        this.numberOfTrains = numberOfTrains;
+        this.passengerListDirectory = passengerListDirectory;
+        this.logDirectory = logDirectory;
+    }
+
+    public Scenario(Scenario scenario) {
+        this.numberOfTrains = scenario.numberOfTrains;
+        this.headwayDistance = scenario.headwayDistance;
+        this.dwellTimeSlope = scenario.dwellTimeSlope;
+        this.dwellTimeIntercept = scenario.dwellTimeIntercept;
+        this.endWaitingTime = scenario.endWaitingTime;
+        this.seed = scenario.seed;
+        this.workerThreads = scenario.workerThreads;
+        this.virtualThreads = scenario.virtualThreads;
+        this.passengerChunkSize = scenario.passengerChunkSize;
+        this.trainChunkSize = scenario.trainChunkSize;
+        this.tickProfiling = scenario.tickProfiling;
+        this.realTimeFactor = scenario.realTimeFactor;
+        this.timeSkipping = scenario.timeSkipping;
+        this.deterministic = scenario.deterministic;
+        this.stateDigesting = scenario.stateDigesting;
+        this.observationLag = scenario.observationLag;
+        this.tripLoadingWindow = scenario.tripLoadingWindow;
+        this.ridershipMultiplier = scenario.ridershipMultiplier;
+        this.passengerListDirectory = scenario.passengerListDirectory;
+        this.logDirectory = scenario.logDirectory;
+    }
+
+    public int getNumberOfTrains() {
+        return numberOfTrains;
+    }
+
+    public void setNumberOfTrains(int numberOfTrains) {
+        this.numberOfTrains = numberOfTrains;
+    }
+
+    public int getHeadwayDistance() {
+        return headwayDistance;
+    }
+
+    public void setHeadwayDistance(int headwayDistance) {
+        this.headwayDistance = headwayDistance;
+    }
+
+    public double getDwellTimeSlope() {
+        return dwellTimeSlope;
+    }
+
+    public void setDwellTimeSlope(double dwellTimeSlope) {
+        this.dwellTimeSlope = dwellTimeSlope;
+    }
+
+    public double getDwellTimeIntercept() {
+        return dwellTimeIntercept;
+    }
+
+    public void setDwellTimeIntercept(double dwellTimeIntercept) {
+        this.dwellTimeIntercept = dwellTimeIntercept;
+    }
+
+    public int getEndWaitingTime() {
+        return endWaitingTime;
+    }
+
+    public void setEndWaitingTime(int endWaitingTime) {
+        this.endWaitingTime = endWaitingTime;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getPassengerChunkSize() {
+        return passengerChunkSize;
+    }
+
+    public void setPassengerChunkSize(int passengerChunkSize) {
+        this.passengerChunkSize = passengerChunkSize;
+    }
+
+    public int getTrainChunkSize() {
+        return trainChunkSize;
+    }
+
+    public void setTrainChunkSize(int trainChunkSize) {
+        this.trainChunkSize = trainChunkSize;
+    }
+
+    public boolean isTickProfiling() {
+        return tickProfiling;
+    }
+
+    public void setTickProfiling(boolean tickProfiling) {
+        this.tickProfiling = tickProfiling;
+    }
+
+    public double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+
+    public void setRealTimeFactor(double realTimeFactor) {
+        this.realTimeFactor = realTimeFactor;
+    }
+
+    public boolean isTimeSkipping() {
+        return timeSkipping;
+    }
+
+    public void setTimeSkipping(boolean timeSkipping) {
+        this.timeSkipping = timeSkipping;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    public boolean isStateDigesting() {
+        return stateDigesting;
+    }
+
+    public void setStateDigesting(boolean stateDigesting) {
+        this.stateDigesting = stateDigesting;
+    }
+
+    public int getObservationLag() {
+        return observationLag;
+    }
+
+    public void setObservationLag(int observationLag) {
+        this.observationLag = observationLag;
+    }
+
+    public int getTripLoadingWindow() {
+        return tripLoadingWindow;
+    }
+
+    public void setTripLoadingWindow(int tripLoadingWindow) {
+        this.tripLoadingWindow = tripLoadingWindow;
+    }
+
+    public double getRidershipMultiplier() {
+        return ridershipMultiplier;
+    }
+
+    public void setRidershipMultiplier(double ridershipMultiplier) {
+        this.ridershipMultiplier = ridershipMultiplier;
+    }
+
+    public String getPassengerListDirectory() {
+        return passengerListDirectory;
+    }
+
+    public void setPassengerListDirectory(String passengerListDirectory) {
+        this.passengerListDirectory = passengerListDirectory;
+    }
+
+    public String getLogDirectory() {
+        return logDirectory;
+    }
+
+    public void setLogDirectory(String logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+}
@@ -0,0 +1,270 @@
+package com.trainsimulation.model.simulator.setup;
+
+import com.crowdsimulation.model.core.agent.passenger.movement.PassengerTripInformation;
+import com.trainsimulation.model.core.environment.TrainSystem;
+import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
+import com.trainsimulation.model.simulator.SimulationTime;
+import com.trainsimulation.model.simulator.TripSource;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Reads the trips of a train system from the CSV file of its passenger list as the simulation goes, only reading ahead
+// of the second being spawned by a window of time, so only the trips within the window are ever kept
+// The file is taken to be in order of tap-in time, and the window should be longer than the time between a passenger
+// entering a station and tapping in at the turnstiles; trips due before the second being spawned are let go (or never
+// created at all, if their tap-in time has already passed)
+// Unlike a passenger list read up front, the file is never sorted, so a file whose tap-in times go back by more than
+// the window is rejected outright; the trips which are still read after they are due are counted, and reported once
+// the file has been read through
+// This should only be used by the thread updating the train system
+public class StreamingTripSource implements TripSource {
+    // Denotes the number of seconds in a day
+    private static final int SECONDS_PER_DAY = (int) SimulationTime.SECONDS_PER_DAY;
+
+    // Denotes the train system the trips are for
+    private final TrainSystem trainSystem;
+
+    // Denotes where the CSV file of the passenger list can be found
+    private final String path;
+
+    // Denotes how far ahead of the second being spawned the file is read (s)
+    private final int window;
+
+    // Contains the trips read but not taken yet, by the second of the day they are due, in the order they were read
+    private final TreeMap<Integer, List<PassengerTripInformation>> pendingTrips;
+
+    // Denotes the reader of the file (null once the file has been read through)
+    private BufferedReader bufferedReader;
+
+    // Denotes the latest tap-in time read so far (as a second of the day, -1 if nothing has been read yet)
+    private int readSecond;
+
+    // Denotes the second of the day before which trips are no longer kept
+    private int keptFromSecond;
+
+    // Denotes the number of trips read after they were due since the file was last opened
+    private int lateTrips;
+
+    // Denotes the earliest second of the day with any trips due (-1 if there is none)
+    private final int firstSecond;
+
+    public StreamingTripSource(TrainSystem trainSystem, String path, int window) {
+        this.trainSystem = trainSystem;
+        this.path = path;
+        this.window = window;
+        this.pendingTrips = new TreeMap<>();
+
+        checkOrder(path, window);
+
+        open();
+
+        // Read just far enough to know when the first trip of the day is due
+        this.firstSecond = getNextSecond(0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.firstSecond < 0;
+    }
+
+    @Override
+    public void collect(int second, Map<Station, List<PassengerTripInformation>> passengersToSpawn) {
+        keepFrom(second);
+        read(second);
+
+        List<PassengerTripInformation> trips = this.pendingTrips.remove(second);
+
+        this.keptFromSecond = second + 1;
+
+        if (trips == null) {
+            return;
+        }
+
+        for (PassengerTripInformation passengerTripInformation : trips) {
+            Station entryStation = passengerTripInformation.getEntryStation();
+
+            if (passengersToSpawn.get(entryStation) == null) {
+                passengersToSpawn.put(entryStation, Collections.synchronizedList(new ArrayList<>()));
+            }
+
+            passengersToSpawn.get(entryStation).add(passengerTripInformation);
+        }
+    }
+
+    @Override
+    public int getNextSecond(int second) {
+        if (second >= SECONDS_PER_DAY) {
+            return -1;
+        }
+
+        keepFrom(second);
+        read(second);
+
+        while (true) {
+            Integer nextSecond = this.pendingTrips.ceilingKey(Math.max(0, second));
+
+            // A trip is only known to be the next one once nothing left to be read could be due before it
+            if (nextSecond != null && (this.bufferedReader == null || this.readSecond >= nextSecond + this.window)) {
+                return nextSecond;
+            }
+
+            if (this.bufferedReader == null) {
+                return -1;
+            }
+
+            read(nextSecond != null ? nextSecond : this.readSecond + 1);
+        }
+    }
+
+    @Override
+    public int getFirstSecond() {
+        return this.firstSecond;
+    }
+
+    // Read the file again from the start of the day
+    @Override
+    public void rewind() {
+        close();
+        open();
+    }
+
+    @Override
+    public void close() {
+        this.pendingTrips.clear();
+
+        if (this.bufferedReader != null) {
+            try {
+                this.bufferedReader.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+
+            this.bufferedReader = null;
+        }
+    }
+
+    // Start reading the file from the top
+    private void open() {
+        this.readSecond = -1;
+        this.keptFromSecond = 0;
+        this.lateTrips = 0;
+
+        try {
+            this.bufferedReader = new BufferedReader(new FileReader(this.path));
+
+            // Skip reading the header row
+            if (this.bufferedReader.readLine() == null) {
+                close();
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+
+            this.bufferedReader = null;
+        }
+    }
+
+    // Let go of the trips due before the given second
+    private void keepFrom(int second) {
+        if (second > this.keptFromSecond) {
+            this.keptFromSecond = second;
+
+            this.pendingTrips.headMap(second).clear();
+        }
+    }
+
+    // Read the file until it is a window of time ahead of the given second (or until it ends)
+    private void read(int second) {
+        try {
+            String line;
+
+            while (this.bufferedReader != null && this.readSecond < second + this.window) {
+                line = this.bufferedReader.readLine();
+
+                if (line == null) {
+                    this.bufferedReader.close();
+                    this.bufferedReader = null;
+
+                    if (this.lateTrips > 0) {
+                        System.out.println(
+                                "Left out " + this.lateTrips + " trips of " + this.path + " read after they were due"
+                        );
+                    }
+
+                    break;
+                }
+
+                TripRecord tripRecord = EnvironmentSetup.parseTripRecord(line);
+
+                final int tapInSecond = tripRecord.getTurnstileTapInTime().toSecondOfDay();
+
+                this.readSecond = Math.max(this.readSecond, tapInSecond);
+
+                // A passenger enters a station before tapping in, so a trip tapped in before the seconds still kept is
+                // due before them as well
+                if (tapInSecond < this.keptFromSecond) {
+                    this.lateTrips++;
+
+                    continue;
+                }
+
+                PassengerTripInformation passengerTripInformation
+                        = EnvironmentSetup.createPassengerTripInformation(this.trainSystem, tripRecord);
+
+                if (passengerTripInformation == null) {
+                    continue;
+                }
+
+                final int entrySecond = passengerTripInformation.getApproximateStationEntryTime().toSecondOfDay();
+
+                if (entrySecond >= this.keptFromSecond) {
+                    this.pendingTrips.computeIfAbsent(entrySecond, key -> new ArrayList<>())
+                            .add(passengerTripInformation);
+                } else {
+                    this.lateTrips++;
+                }
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+
+            this.bufferedReader = null;
+        }
+    }
+
+    // Make sure the tap-in times of the given file never go back by more than the window, as the trips read that late
+    // would be lost without the file ever being sorted
+    private static void checkOrder(String path, int window) {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(path))) {
+            // Skip reading the header row
+            bufferedReader.readLine();
+
+            String line;
+
+            int lineNumber = 1;
+            int latestSecond = -1;
+
+            while ((line = bufferedReader.readLine()) != null) {
+                lineNumber++;
+
+                final int tapInSecond = EnvironmentSetup.parseTripRecord(line).getTurnstileTapInTime().toSecondOfDay();
+
+                if (tapInSecond < latestSecond - window) {
+                    throw new IllegalStateException(
+                            "The passenger list " + path + " goes back in tap-in time by more than the window of "
+                                    + window + " s at line " + lineNumber + "; sort it, or read it up front instead"
+                    );
+                }
+
+                latestSecond = Math.max(latestSecond, tapInSecond);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.trainsimulation.model.simulator.setup;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+// Contains a single trip of a passenger list as it was read, with its stations only known by name
+// Trip records do not refer to any train system, so they may be shared by multiple simulators
+public class TripRecord {
+    // Denotes the time when the passenger tapped in at the turnstile
+    private final LocalTime turnstileTapInTime;
+
+    // Denotes the card number used in this trip
+    private final String cardNumber;
+
+    // Denotes whether the card used in this trip is a stored value card
+    private final boolean storedValue;
+
+    // Denotes the names of the entry and exit stations, as written in the passenger list
+    private final String entryStationName;
+    private final String exitStationName;
+
+    // Denotes the travel time of this trip
+    private final Duration travelTime;
+
+    public TripRecord(LocalTime turnstileTapInTime, String cardNumber, boolean storedValue, String entryStationName,
+                      String exitStationName, Duration travelTime) {
+        this.turnstileTapInTime = turnstileTapInTime;
+        this.cardNumber = cardNumber;
+        this.storedValue = storedValue;
+        this.entryStationName = entryStationName;
+        this.exitStationName = exitStationName;
+        this.travelTime = travelTime;
+    }
+
+    public LocalTime getTurnstileTapInTime() {
+        return turnstileTapInTime;
+    }
+
+    public String getCardNumber() {
+        return cardNumber;
+    }
+
+    public boolean isStoredValue() {
+        return storedValue;
+    }
+
+    public String getEntryStationName() {
+        return entryStationName;
+    }
+
+    public String getExitStationName() {
+        return exitStationName;
+    }
+
+    public Duration getTravelTime() {
+        return travelTime;
+    }
+}
@@ -0,0 +1,136 @@
+package com.trainsimulation.model.simulator.setup;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+// Contains the trip records of a passenger list packed into columns of primitive values, so the trip records kept by a
+// simulator for the whole of its runs hold no objects of their own apart from their card numbers
+// The names of the entry and exit stations are kept once for each pair of them (the trips of the same pair share it),
+// and the trips only keep the position of their pair
+// A trip record is only created when a trip of the table is read as one, out of the times shared by all trips
+// The table is never changed once it has been made, so it may be read by any number of threads, and shared by multiple
+// simulators
+public class TripTable extends AbstractList<TripRecord> implements RandomAccess {
+    // Denotes the tap-in time of each trip (as a second of the day)
+    private final int[] tapInSeconds;
+
+    // Denotes the card number of each trip
+    private final String[] cardNumbers;
+
+    // Denotes whether the card of each trip is a stored value card
+    private final BitSet storedValues;
+
+    // Denotes the travel time of each trip (s)
+    private final int[] travelSeconds;
+
+    // Denotes the position of the pair of stations of each trip
+    private final int[] stationPairs;
+
+    // Contains the names of the entry and exit stations of each pair of stations
+    private final String[] entryStationNames;
+    private final String[] exitStationNames;
+
+    public TripTable(List<TripRecord> tripRecords) {
+        final int tripCount = tripRecords.size();
+
+        this.tapInSeconds = new int[tripCount];
+        this.cardNumbers = new String[tripCount];
+        this.storedValues = new BitSet(tripCount);
+        this.travelSeconds = new int[tripCount];
+        this.stationPairs = new int[tripCount];
+
+        // Give each pair of stations a position the first time it is found
+        Map<String, Map<String, Integer>> stationPairIndices = new HashMap<>();
+
+        List<String> entryStationNames = new ArrayList<>();
+        List<String> exitStationNames = new ArrayList<>();
+
+        for (int index = 0; index < tripCount; index++) {
+            TripRecord tripRecord = tripRecords.get(index);
+
+            this.tapInSeconds[index] = tripRecord.getTurnstileTapInTime().toSecondOfDay();
+            this.cardNumbers[index] = tripRecord.getCardNumber();
+            this.storedValues.set(index, tripRecord.isStoredValue());
+            this.travelSeconds[index] = (int) tripRecord.getTravelTime().getSeconds();
+
+            Map<String, Integer> exitStationIndices = stationPairIndices.computeIfAbsent(
+                    tripRecord.getEntryStationName(),
+                    entryStationName -> new HashMap<>()
+            );
+
+            Integer stationPair = exitStationIndices.get(tripRecord.getExitStationName());
+
+            if (stationPair == null) {
+                stationPair = entryStationNames.size();
+
+                entryStationNames.add(tripRecord.getEntryStationName());
+                exitStationNames.add(tripRecord.getExitStationName());
+
+                exitStationIndices.put(tripRecord.getExitStationName(), stationPair);
+            }
+
+            this.stationPairs[index] = stationPair;
+        }
+
+        this.entryStationNames = entryStationNames.toArray(new String[0]);
+        this.exitStationNames = exitStationNames.toArray(new String[0]);
+    }
+
+    // Read the trip at the given position as a trip record
+    @Override
+    public TripRecord get(int index) {
+        final int stationPair = this.stationPairs[index];
+
+        return new TripRecord(
+                TripTimes.getTime(this.tapInSeconds[index]),
+                this.cardNumbers[index],
+                this.storedValues.get(index),
+                this.entryStationNames[stationPair],
+                this.exitStationNames[stationPair],
+                TripTimes.getDuration(this.travelSeconds[index])
+        );
+    }
+
+    @Override
+    public int size() {
+        return this.tapInSeconds.length;
+    }
+
+    public int getTapInSecond(int index) {
+        return this.tapInSeconds[index];
+    }
+
+    public String getCardNumber(int index) {
+        return this.cardNumbers[index];
+    }
+
+    public boolean isStoredValue(int index) {
+        return this.storedValues.get(index);
+    }
+
+    public int getTravelSeconds(int index) {
+        return this.travelSeconds[index];
+    }
+
+    public int getStationPair(int index) {
+        return this.stationPairs[index];
+    }
+
+    // Get the number of distinct pairs of entry and exit stations in this table
+    public int getStationPairCount() {
+        return this.entryStationNames.length;
+    }
+
+    public String getEntryStationName(int stationPair) {
+        return this.entryStationNames[stationPair];
+    }
+
+    public String getExitStationName(int stationPair) {
+        return this.exitStationNames[stationPair];
+    }
+}
@@ -0,0 +1,53 @@
+package com.trainsimulation.model.simulator.setup;
+
+import com.trainsimulation.model.simulator.SimulationTime;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+// Hands out the times of the day and the durations the trips are made of, creating each of them only once, so the
+// trips of a passenger list share them instead of each trip holding times of its own
+// The times and durations are immutable, so a time created twice by two threads at once is harmless
+public final class TripTimes {
+    // Denotes the number of seconds in a day
+    private static final int SECONDS_PER_DAY = (int) SimulationTime.SECONDS_PER_DAY;
+
+    // Contains the time of the day at each second of the day, once it has been asked for
+    private static final LocalTime[] TIMES = new LocalTime[SECONDS_PER_DAY];
+
+    // Contains the duration of each number of seconds up to a day, once it has been asked for
+    private static final Duration[] DURATIONS = new Duration[SECONDS_PER_DAY];
+
+    private TripTimes() {
+    }
+
+    // Get the time of the day at the given second of the day
+    public static LocalTime getTime(int secondOfDay) {
+        LocalTime time = TIMES[secondOfDay];
+
+        if (time == null) {
+            time = LocalTime.ofSecondOfDay(secondOfDay);
+
+            TIMES[secondOfDay] = time;
+        }
+
+        return time;
+    }
+
+    // Get the duration of the given number of seconds (only durations shorter than a day are shared)
+    public static Duration getDuration(long seconds) {
+        if (seconds < 0 || seconds >= SECONDS_PER_DAY) {
+            return Duration.ofSeconds(seconds);
+        }
+
+        Duration duration = DURATIONS[(int) seconds];
+
+        if (duration == null) {
+            duration = Duration.ofSeconds(seconds);
+
+            DURATIONS[(int) seconds] = duration;
+        }
+
+        return duration;
+    }
+}
@@ -15,7 +15,7 @@ public class Schedule {
 
     public Schedule(SimulationTime startTime, SimulationTime endTime) {
         // The start time should not be later than the end time
-        assert startTime.getTime().compareTo(endTime.getTime()) < 0 : "The specified time is later than the end time";
+        assert startTime.getTick() < endTime.getTick() : "The specified time is later than the end time";
 
         this.startTime = startTime;
         this.endTime = endTime;
@@ -35,7 +35,7 @@ public class Schedule {
         );
 
         // The start time should not be later than the end time
-        assert startTime.getTime().compareTo(endTime.getTime()) < 0 : "The specified time is later than the end time";
+        assert startTime.getTick() < endTime.getTick() : "The specified time is later than the end time";
 
         this.startTime = startTime;
         this.endTime = endTime;
@@ -44,6 +44,19 @@ public class StationQueue {
         }
     }
 
+    public List<Station> getStations() {
+        return stationQueue;
+    }
+
+    // Replace the contents of this queue with the given original station list and remaining stations, as they are
+    public void restoreStations(List<Station> originalStationList, List<Station> stations) {
+        this.originalStationList.clear();
+        this.originalStationList.addAll(originalStationList);
+
+        this.stationQueue.clear();
+        this.stationQueue.addAll(stations);
+    }
+
     public Station pop() {
         return this.stationQueue.remove(0);
     }
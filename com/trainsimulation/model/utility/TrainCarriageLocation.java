@@ -49,6 +49,10 @@ public class TrainCarriageLocation {
         this.directionIndex++;
     }
 
+    public void setDirectionIndex(int directionIndex) {
+        this.directionIndex = directionIndex;
+    }
+
     public int getVirtualDirectionIndex() {
         return virtualDirectionIndex;
     }
@@ -1,8 +1,5 @@
 package com.trainsimulation.model.utility;
 
-import com.crowdsimulation.model.simulator.Simulator;
-import com.trainsimulation.controller.graphics.GraphicsController;
-import com.trainsimulation.controller.screen.MainScreenController;
 import com.trainsimulation.model.core.environment.infrastructure.track.Junction;
 import com.trainsimulation.model.core.environment.infrastructure.track.Segment;
 import com.trainsimulation.model.core.environment.infrastructure.track.Track;
@@ -11,24 +8,18 @@ import com.trainsimulation.model.core.environment.trainservice.passengerservice.
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.stationset.Station;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.Train;
 import com.trainsimulation.model.core.environment.trainservice.passengerservice.trainset.TrainCarriage;
+import com.trainsimulation.model.simulator.RandomStreams;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicInteger;
 
 // Contains information regarding the train's movement
 public class TrainMovement {
-    // Prepare the headway distances (the distances to be maintained between each train)
-    private static final int DEFAULT_HEADWAY_DISTANCE = 300;
-    public static final AtomicInteger HEADWAY_DISTANCE = new AtomicInteger(DEFAULT_HEADWAY_DISTANCE);
-
     // Special value for when the track is a dead end
     private static final double TRACK_ENDS = -1.0;
 
-    // Manages the synchronization between different train movements
-    private static final Semaphore MOVEMENT_LOCK = new Semaphore(1, true);
-
     // Denotes the stopping time of the train at the end of the line (s)
     private final int endWaitingTime;
 
@@ -47,11 +38,8 @@ public class TrainMovement {
     // Denotes the stations which this train should stop at
     private final StationQueue stationQueue;
 
-    // Denotes the train's current waited time (s)
-    private int waitedTime;
-
-    // Denotes the train's current stopped time at an end (s)
-    private int endWaitedTime;
+    // Denotes the tick when the train is due to leave the station or the end of the line where it is waiting
+    private long wakeTick;
 
     // Denotes the train's current velocity (km/h)
     private double velocity;
@@ -95,18 +83,28 @@ public class TrainMovement {
     // Denotes whether the train's station list has been edited
     private volatile boolean stationListEdited;
 
+    // Denotes the action decided by this train for the current tick
+    private TrainAction decidedAction;
+
     public TrainMovement(final double maxVelocity, final double deceleration, final Train train) {
         // TODO: Make editable
         final double baseWaitingTime = 18.56;
         final double standardDeviationWaitingTime = 7.03;
 
-        final int endWaitingTime = 300;
+        final int endWaitingTime = train.getTrainSystem().getSimulator().getScenario().getEndWaitingTime();
 
         this.deceleration = deceleration;
 
+        // Draw from the random number generator of this train, so the draws of the other trains do not affect it
+        final Random random = train.getTrainSystem().getSimulator().getRandomStreams().getStream(
+                RandomStreams.EntityKind.TRAIN,
+                train.getTrainSystem().getTrainSystemInformation().getName(),
+                train.getIdentifier()
+        );
+
         // TODO: Remove artificial stochasticity
         this.waitingTime = (int) Math.round(
-                baseWaitingTime + Simulator.RANDOM_NUMBER_GENERATOR.nextGaussian() * standardDeviationWaitingTime
+                baseWaitingTime + random.nextGaussian() * standardDeviationWaitingTime
         );
 //        this.waitingTime = (int) Math.round(baseWaitingTime);
 
@@ -149,24 +147,16 @@ public class TrainMovement {
         return maxVelocity;
     }
 
-    public int getWaitedTime() {
-        return waitedTime;
-    }
-
-    public void setWaitedTime(int waitedTime) {
-        this.waitedTime = waitedTime;
-    }
-
     public int getEndWaitingTime() {
         return endWaitingTime;
     }
 
-    public int getEndWaitedTime() {
-        return endWaitedTime;
+    public long getWakeTick() {
+        return wakeTick;
     }
 
-    public void setEndWaitedTime(int endWaitedTime) {
-        this.endWaitedTime = endWaitedTime;
+    public void setWakeTick(long wakeTick) {
+        this.wakeTick = wakeTick;
     }
 
     public double getVelocity() {
@@ -221,6 +211,14 @@ public class TrainMovement {
         this.active = active;
     }
 
+    public boolean hasStopped() {
+        return hasStopped;
+    }
+
+    public void setHasStopped(boolean hasStopped) {
+        this.hasStopped = hasStopped;
+    }
+
     public boolean isDisembarkedWhenRemoved() {
         return disembarkedWhenRemoved;
     }
@@ -249,6 +247,10 @@ public class TrainMovement {
         return directions;
     }
 
+    public void setDirections(List<Track.Direction> directions) {
+        this.directions = directions;
+    }
+
     public Track.Direction getDesiredDirection() {
         return desiredDirection;
     }
@@ -287,14 +289,17 @@ public class TrainMovement {
         this.actualDirection = Track.opposite(this.actualDirection);
     }
 
-    // Make this train move forward while looking forward to see if there is nothing in its way
-    public TrainAction move() throws InterruptedException {
+    // Look forward to see if there is nothing in this train's way, then take note of what the train should do
+    public void decide() {
         // Check whether moving is even possible in the first place
         // Lookahead distance (in m)
-        TrainAction actionTaken = decideAction(HEADWAY_DISTANCE.get());
+        this.decidedAction = decideAction(this.train.getTrainSystem().getSimulator().getHeadwayDistance().get());
+    }
 
-        // Only one train may move at a time to avoid race conditions
-        TrainMovement.MOVEMENT_LOCK.acquire();
+    // Make this train move forward according to what it has decided
+    // The simulator only moves one train at a time to avoid race conditions
+    public TrainAction move() {
+        TrainAction actionTaken = this.decidedAction;
 
         // Take note of the appropriate action
         if (actionTaken == TrainAction.HEADWAY_STOP) {
@@ -302,12 +307,7 @@ public class TrainMovement {
             this.velocity = 0.0;
 
             // If the action was to stop because of a train ahead, just draw this train's position and stop
-            GraphicsController.requestDrawLineView(MainScreenController.getActiveSimulationContext().getLineViewCanvases(),
-                    MainScreenController.getActiveSimulationContext().getTrainSystem(),
-                    MainScreenController.getActiveSimulationContext().getLineScaleDownFactor(), false);
-
-            // Signal to all trains waiting to process their movement that they may now proceed to do so
-            TrainMovement.MOVEMENT_LOCK.release();
+            this.notifyTrainMoved();
 
             return TrainAction.HEADWAY_STOP;
         } else if (actionTaken == TrainAction.END_STOP) {
@@ -324,12 +324,7 @@ public class TrainMovement {
                 this.hasStopped = false;
 
                 // Request a draw
-                GraphicsController.requestDrawLineView(MainScreenController.getActiveSimulationContext().getLineViewCanvases(),
-                        MainScreenController.getActiveSimulationContext().getTrainSystem(),
-                        MainScreenController.getActiveSimulationContext().getLineScaleDownFactor(), false);
-
-                // Signal to all trains waiting to process their movement that they may now proceed to do so
-                TrainMovement.MOVEMENT_LOCK.release();
+                this.notifyTrainMoved();
 
                 return TrainAction.END_STOP;
             }
@@ -352,8 +347,8 @@ public class TrainMovement {
 
                         // If it hasn't been noted yet, the train has now passed the first station from the depot
                         if (this.previousPassedStation == null) {
-                            // Tell the GUI to enable the add train button again
-                            MainScreenController.ARM_ADD_TRAIN_BUTTON.release();
+                            // Allow another train to be deployed
+                            this.train.getTrainSystem().getTrainDeploymentSemaphore().release();
                         }
 
                         // If the train hasn't stopped yet for this direction, stop it now
@@ -375,13 +370,7 @@ public class TrainMovement {
                         this.train.arriveAt(this.currentStation);
 
                         // Request a draw
-                        GraphicsController.requestDrawLineView(MainScreenController.getActiveSimulationContext().getLineViewCanvases(),
-                                MainScreenController.getActiveSimulationContext().getTrainSystem(),
-                                MainScreenController.getActiveSimulationContext().getLineScaleDownFactor(),
-                                false);
-
-                        // Signal to all trains waiting to process their movement that they may now proceed to do so
-                        TrainMovement.MOVEMENT_LOCK.release();
+                        this.notifyTrainMoved();
 
                         return TrainAction.STATION_STOP;
                     }
@@ -397,8 +386,8 @@ public class TrainMovement {
 
             // If it hasn't been noted yet, the train has now passed the first station from the depot
             if (this.previousPassedStation == null) {
-                // Tell the GUI to enable the add train button again
-                MainScreenController.ARM_ADD_TRAIN_BUTTON.release();
+                // Allow another train to be deployed
+                this.train.getTrainSystem().getTrainDeploymentSemaphore().release();
             }
 
             // The train has now passed this station
@@ -408,21 +397,13 @@ public class TrainMovement {
             this.velocity = 0.0;
 
             // If the action was to stop because of a train ahead, just draw this train's position and stop
-            GraphicsController.requestDrawLineView(MainScreenController.getActiveSimulationContext().getLineViewCanvases(),
-                    MainScreenController.getActiveSimulationContext().getTrainSystem(),
-                    MainScreenController.getActiveSimulationContext().getLineScaleDownFactor(), false);
-
-            // Signal to all trains waiting to process their movement that they may now proceed to do so
-            TrainMovement.MOVEMENT_LOCK.release();
+            this.notifyTrainMoved();
 
             return TrainAction.SIGNAL_STOP;
         } else if (actionTaken == TrainAction.DEPOT_STOP) {
             // If this train is inactive, it is time for it to despawn
             if (!this.active) {
-                // Signal to all trains waiting to process their movement that they may now proceed to do so
-                TrainMovement.MOVEMENT_LOCK.release();
-
-                // Deactivate this train thread
+                // Have this train despawn
                 return TrainAction.DEPOT_STOP;
             }
         }
@@ -431,6 +412,28 @@ public class TrainMovement {
         // Compute the location of each train carriage after moving forward by the specified velocity
         // Move each carriage one by one
         synchronized (this.train.getTrainCarriages()) {
+            List<TrainCarriage> trainCarriages = this.train.getTrainCarriages();
+
+            // Compute for the updated velocity
+            this.updateVelocity();
+
+            // Before anything about this train changes, look ahead for the segment the head is about to enter, if any,
+            // and try to enter it
+            // If another train has entered it earlier in this tick, stop and try again in the next tick, with this
+            // train left exactly as it was
+            Segment headNextSegment = this.findNextSegment(
+                    this.train.getHead(),
+                    toMetersPerSecond(this.velocity)
+            );
+
+            if (headNextSegment != null && !headNextSegment.getFrom().getSignal().tryAcquire()) {
+                this.velocity = 0.0;
+
+                this.notifyTrainMoved();
+
+                return TrainAction.SIGNAL_STOP;
+            }
+
             // If the train is moving, and the current station is still set, check if the current station is part of the
             // train's route
             // If it is, have the train depart that station
@@ -445,11 +448,6 @@ public class TrainMovement {
                 this.currentStation = null;
             }
 
-            List<TrainCarriage> trainCarriages = this.train.getTrainCarriages();
-
-            // Compute for the updated velocity
-            this.updateVelocity();
-
             for (TrainCarriage trainCarriage : trainCarriages) {
                 // Get the current train carriage
                 // Then get its location information
@@ -483,21 +481,7 @@ public class TrainMovement {
                         this.nextDirection(trainCarriage);
                     } while (segmentClearance / currentSegment.getLength() >= 1.0);
 
-                    // If this carriage is the head of the train, try to enter the next segment
-                    // This will only happen if the next segment is clear
-                    Semaphore nextSegmentSignal = currentSegment.getFrom().getSignal();
-
-                    if (trainCarriage == trainCarriage.getParentTrain().getHead()) {
-                        // Before trying to move, surrender the movement lock first to allow others to move in case this
-                        // carriage has to wait
-                        TrainMovement.MOVEMENT_LOCK.release();
-
-                        // Try moving to the next segment
-                        nextSegmentSignal.acquire();
-
-                        // Once this carriage can now move, reacquire the movement lock again
-                        TrainMovement.MOVEMENT_LOCK.acquire();
-                    }
+                    // The signal of the segment the head enters has already been taken above
 
                     // Remove this carriage from its former segment
                     // By this point, this carriage should be at the front of this segment
@@ -522,16 +506,37 @@ public class TrainMovement {
         }
 
         // Request a draw
-        GraphicsController.requestDrawLineView(MainScreenController.getActiveSimulationContext().getLineViewCanvases(),
-                MainScreenController.getActiveSimulationContext().getTrainSystem(),
-                MainScreenController.getActiveSimulationContext().getLineScaleDownFactor(), false);
-
-        // Signal to all trains waiting to process their movement that they may now proceed to do so
-        TrainMovement.MOVEMENT_LOCK.release();
+        this.notifyTrainMoved();
 
         return TrainAction.PROCEED;
     }
 
+    // Find the segment the given carriage would enter after moving forward by the given distance, without moving it
+    // (null if the carriage would stay in its current segment)
+    private Segment findNextSegment(TrainCarriage trainCarriage, double clearedDistance) {
+        TrainCarriageLocation trainCarriageLocation = trainCarriage.getTrainCarriageLocation();
+
+        double segmentClearance = trainCarriageLocation.getSegmentClearance() + clearedDistance;
+        Segment currentSegment = trainCarriageLocation.getSegmentLocation();
+
+        if (segmentClearance / currentSegment.getLength() < 1.0) {
+            return null;
+        }
+
+        // Follow the directions the carriage would take, without taking them yet
+        int directionIndex = trainCarriageLocation.getDirectionIndex();
+
+        do {
+            segmentClearance -= currentSegment.getLength();
+
+            currentSegment = currentSegment.getTo().getOutSegment(this.directions.get(directionIndex));
+
+            directionIndex++;
+        } while (segmentClearance / currentSegment.getLength() >= 1.0);
+
+        return currentSegment;
+    }
+
     // Update the directions of the train to its next station
     public void generateDirectionsToNextStation(Track.Direction goalPlatformDirection) {
         // Get the train's target location - the goal
@@ -699,36 +704,6 @@ public class TrainMovement {
         return velocity / 3600.0 * 1000.0;
     }
 
-    // Makes this train wait for the necessary waiting time
-    // Return true if the train still needs to wait
-    // Else, return false
-    public boolean waitAtStation() {
-        this.waitedTime += 1;
-
-        if (this.waitedTime == this.waitingTime) {
-            this.waitedTime = 0;
-
-            return false;
-        } else {
-            return true;
-        }
-    }
-
-    // Makes this train wait for the necessary end waiting time
-    // Return true if the train still needs to wait
-    // Else, return false
-    public boolean waitAtEnd() {
-        this.endWaitedTime += 1;
-
-        if (this.endWaitedTime == this.endWaitingTime) {
-            this.endWaitedTime = 0;
-
-            return false;
-        } else {
-            return true;
-        }
-    }
-
     // Decide what the train should to at the current time
     private TrainAction decideAction(final int lookaheadLimit) {
         // Get the front carriage of this train
@@ -929,11 +904,15 @@ public class TrainMovement {
     }
 
     // Set this train to a segment
-    public void setTrainAtSegment(final Segment segment, final double carriageGap) throws InterruptedException {
-        // Wait until this segment is free of trains previously here
-        segment.getFrom().getSignal().acquire();
+    // Return true if the train has been set, or false if the segment is not yet free of the trains previously there
+    public boolean setTrainAtSegment(final Segment segment, final double carriageGap) {
+        if (!segment.getFrom().getSignal().tryAcquire()) {
+            return false;
+        }
 
         snapToSegment(segment, carriageGap, false);
+
+        return true;
     }
 
     // Snap this train to the head of the segment
@@ -961,15 +940,12 @@ public class TrainMovement {
         }
 
         // Redraw the line view canvas
-        GraphicsController.requestDrawLineView(MainScreenController.getActiveSimulationContext().getLineViewCanvases(),
-                MainScreenController.getActiveSimulationContext().getTrainSystem(),
-                MainScreenController.getActiveSimulationContext().getLineScaleDownFactor(), false);
-
-        // TODO: Move to own loop
-        GraphicsController.requestDrawStationView(MainScreenController.getActiveSimulationContext().getStationViewCanvases(),
-                MainScreenController.getActiveSimulationContext().getCurrentStation(),
-                MainScreenController.getActiveSimulationContext().getStationScaleDownFactor(), false
-        );
+        this.notifyTrainMoved();
+    }
+
+    // Tell the observer of the simulation, if any, that this train has moved
+    private void notifyTrainMoved() {
+        this.train.getTrainSystem().getSimulator().notifyTrainMoved(this.train.getTrainSystem());
     }
 
     // Computes the velocity of the train (km/h)
@@ -3,12 +3,17 @@ package com.trainsimulation.model.utility;
 import com.trainsimulation.model.db.entity.TrainSystemsEntity;
 import com.trainsimulation.model.simulator.SimulationTime;
 
+import java.io.File;
 import java.util.Objects;
 
 // Used to identify which train system a simulation component is part of
 public class TrainSystemInformation {
-    // Denotes the base path where the files of the train systems are located
-    public static final String BASE_PATH = "C:\\Users\\ERDT\\Desktop\\train-simulation\\train-systems";
+    // Denotes the base path where the files of the train systems are located (may be overridden through the
+    // "trainsimulation.basepath" system property, e.g., when running headless on another machine)
+    public static final String BASE_PATH = System.getProperty(
+            "trainsimulation.basepath",
+            "C:\\Users\\ERDT\\Desktop\\train-simulation\\train-systems"
+    );
 
     // Denotes the name of the train system
     private final String name;
@@ -32,7 +37,7 @@ public class TrainSystemInformation {
 
         this.schedule = new Schedule(startTime, endTime);
 
-        this.trainSystemPath = TrainSystemInformation.BASE_PATH + "\\" + this.name;
+        this.trainSystemPath = TrainSystemInformation.BASE_PATH + File.separator + this.name;
     }
 
     public TrainSystemInformation(TrainSystemsEntity trainSystemsEntity) {
@@ -42,7 +47,7 @@ public class TrainSystemInformation {
 
         this.schedule = new Schedule(trainSystemsEntity.getSchedulesBySchedule());
 
-        this.trainSystemPath = TrainSystemInformation.BASE_PATH + "\\" + this.name;
+        this.trainSystemPath = TrainSystemInformation.BASE_PATH + File.separator + this.name;
     }
 
     public String getName() {